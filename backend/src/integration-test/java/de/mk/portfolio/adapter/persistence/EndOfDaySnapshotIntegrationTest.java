@@ -0,0 +1,174 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.application.EndOfDaySnapshotService;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.port.in.TakeEndOfDaySnapshotUseCase.SnapshotResult;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the end-of-day snapshot against 100k portfolios, from scratch and resumed from checkpoints, and
+ * checks the claim that keeps two instances off the same date.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EndOfDaySnapshotIntegrationTest {
+
+    private static final int PORTFOLIOS = 100_000;
+    private static final int PARTITIONS = 256;
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static EndOfDaySnapshotJdbcAdapter adapter;
+    private static int portfolioCount;
+
+    @BeforeAll
+    static void migrateAndLoad() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        adapter = new EndOfDaySnapshotJdbcAdapter(jdbcTemplate, transactionTemplate,
+                new PortfolioHistoryPartitionJdbcAdapter(jdbcTemplate, transactionTemplate), new HistoryRollupWriter(jdbcTemplate));
+
+        jdbcTemplate.execute("INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value, total_change_percent, cost_basis, day_open_value) "
+                + "SELECT md5('p' || g)::uuid, g, 1, 1, 0, 0, g, g - 1 FROM generate_series(1, " + PORTFOLIOS + ") g");
+        jdbcTemplate.execute("ANALYZE");
+        portfolioCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio", Integer.class);
+    }
+
+    @Test
+    void snapshotsEveryPortfolioWithinMinutes() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        long start = System.nanoTime();
+
+        SnapshotResult result = new EndOfDaySnapshotService(adapter, PARTITIONS, 8, LEASE, "").takeSnapshot(date);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMinutes(3));
+        assertThat(result.portfolios()).isEqualTo(portfolioCount);
+        assertThat(historyRows(date)).isEqualTo(portfolioCount);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history_monthly WHERE period_start = ?", Integer.class, date.withDayOfMonth(1)))
+                .isEqualTo(portfolioCount);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM portfolio WHERE day_open_value <> total_value OR daily_change_value <> 0", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void resumesFromCheckpointsWithoutDuplicatingRows() {
+        LocalDate date = LocalDate.of(2024, 3, 4);
+        for (int partition = 0; partition < PARTITIONS / 2; partition++) {
+            adapter.snapshotPartition(date, partition, PARTITIONS);
+        }
+        assertThat(adapter.loadIncompleteSnapshotDate(PARTITIONS)).contains(date);
+
+        SnapshotResult result = new EndOfDaySnapshotService(adapter, PARTITIONS, 8, LEASE, "").takeSnapshot(date);
+
+        assertThat(result.resumedPartitions()).isEqualTo(PARTITIONS / 2);
+        assertThat(historyRows(date)).isEqualTo(portfolioCount);
+        assertThat(adapter.loadIncompleteSnapshotDate(PARTITIONS)).isEmpty();
+    }
+
+    @Test
+    void runThatDiedBeforeItsFirstCheckpointIsResumed() {
+        LocalDate date = LocalDate.of(2024, 3, 5);
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "crashed-instance", Duration.ofMillis(1))).isTrue();
+        assertThat(adapter.loadIncompleteSnapshotDate(PARTITIONS)).contains(date);
+
+        SnapshotResult result = new EndOfDaySnapshotService(adapter, PARTITIONS, 8, LEASE, "").takeSnapshot(date);
+
+        assertThat(result.resumedPartitions()).isZero();
+        assertThat(result.portfolios()).isEqualTo(portfolioCount);
+        assertThat(adapter.loadIncompleteSnapshotDate(PARTITIONS)).isEmpty();
+    }
+
+    @Test
+    void dateIsClaimedByOneInstanceUntilItsLeaseRunsOut() throws InterruptedException {
+        LocalDate date = LocalDate.of(2024, 3, 6);
+
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "a", Duration.ofMillis(500))).isTrue();
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "b", LEASE)).isFalse();
+        assertThat(new EndOfDaySnapshotService(adapter, PARTITIONS, 8, LEASE, "").takeSnapshot(date).portfolios()).isZero();
+        assertThat(historyRows(date)).isZero();
+        assertThat(adapter.renewSnapshotClaim(date, "a", Duration.ofMillis(500))).isTrue();
+
+        Thread.sleep(600);
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "b", LEASE)).isTrue();
+        assertThat(adapter.renewSnapshotClaim(date, "a", LEASE)).isFalse();
+
+        adapter.completeSnapshot(date, "b");
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "b", LEASE)).isFalse();
+        assertThat(adapter.claimSnapshot(date, PARTITIONS, "c", LEASE)).isFalse();
+    }
+
+    @Test
+    void priceTickAfterTheCloseWasReadCountsForTheNextDay() {
+        LocalDate date = LocalDate.of(2024, 3, 7);
+        UUID portfolioId = jdbcTemplate.queryForObject("SELECT id FROM portfolio ORDER BY id LIMIT 1", UUID.class);
+        jdbcTemplate.update("UPDATE portfolio SET total_value = 1000.00, day_open_value = 950.00, daily_change_value = 50.00 WHERE id = ?", portfolioId);
+        // Stands in for a price flush that commits between reading the closes and rolling the day
+        HistoryRollupWriter tickInBetween = new HistoryRollupWriter(jdbcTemplate) {
+            @Override
+            public void applyDailyCloses(List<PortfolioHistory> closes) {
+                super.applyDailyCloses(closes);
+                jdbcTemplate.update("UPDATE portfolio SET total_value = 1010.00 WHERE id = ?", portfolioId);
+            }
+        };
+        EndOfDaySnapshotJdbcAdapter racingAdapter = new EndOfDaySnapshotJdbcAdapter(jdbcTemplate, transactionTemplate,
+                new PortfolioHistoryPartitionJdbcAdapter(jdbcTemplate, transactionTemplate), tickInBetween);
+
+        // A single partition, so the date is complete and does not show up as interrupted
+        racingAdapter.snapshotPartition(date, 0, 1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT value FROM portfolio_history WHERE portfolio_id = ? AND date = ?",
+                BigDecimal.class, portfolioId, date)).isEqualByComparingTo("1000.00");
+        Map<String, Object> rolled = jdbcTemplate.queryForMap(
+                "SELECT day_open_value, daily_change_value, daily_change_percent FROM portfolio WHERE id = ?", portfolioId);
+        assertThat((BigDecimal) rolled.get("day_open_value")).isEqualByComparingTo("1000.00");
+        assertThat((BigDecimal) rolled.get("daily_change_value")).isEqualByComparingTo("10.00");
+        assertThat((BigDecimal) rolled.get("daily_change_percent")).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void partitionsCoverTheWholeIdRangeOnce() {
+        int covered = 0;
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            covered += partition == PARTITIONS - 1
+                    ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio WHERE id >= ?", Integer.class,
+                    EndOfDaySnapshotJdbcAdapter.lowerBound(partition, PARTITIONS))
+                    : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio WHERE id >= ? AND id < ?", Integer.class,
+                    EndOfDaySnapshotJdbcAdapter.lowerBound(partition, PARTITIONS), EndOfDaySnapshotJdbcAdapter.lowerBound(partition + 1, PARTITIONS));
+        }
+
+        assertThat(covered).isEqualTo(portfolioCount);
+    }
+
+    private static int historyRows(LocalDate date) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history WHERE date = ?", Integer.class, date);
+    }
+}
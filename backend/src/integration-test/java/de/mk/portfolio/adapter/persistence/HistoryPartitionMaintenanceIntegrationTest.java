@@ -0,0 +1,115 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.application.HistoryPartitionMaintenanceService;
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort.HistoryPartition;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merges a year of monthly history partitions into one, through the adapter and through the
+ * scheduled maintenance, and checks that no row is lost and the yearly partition is attached with
+ * the year as its bounds.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HistoryPartitionMaintenanceIntegrationTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static PortfolioHistoryPartitionJdbcAdapter adapter;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        adapter = new PortfolioHistoryPartitionJdbcAdapter(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        jdbcTemplate.update("INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value, total_change_percent, cost_basis, day_open_value) "
+                + "VALUES (?, 0, 0, 0, 0, 0, 0, 0)", PORTFOLIO_ID);
+    }
+
+    @Test
+    void mergesTheMonthsOfAYearIntoOnePartition() {
+        LocalDate year = LocalDate.of(2021, 1, 1);
+        List<HistoryPartition> months = createMonthsWithHistory(year);
+
+        adapter.mergePartitions(months, year, year.plusYears(1));
+
+        assertYearMerged(year);
+    }
+
+    @Test
+    void maintenanceMergesYearsPastTheCompactionCutoff() {
+        LocalDate year = LocalDate.of(2022, 1, 1);
+        createMonthsWithHistory(year);
+
+        new HistoryPartitionMaintenanceService(adapter, 3, 24, 0).maintainPartitions();
+
+        assertYearMerged(year);
+        LocalDate aheadMonth = LocalDate.now().withDayOfMonth(1).plusMonths(3);
+        assertThat(adapter.loadPartitions()).contains(
+                new HistoryPartition(PortfolioHistoryPartitionJdbcAdapter.partitionName(aheadMonth, aheadMonth.plusMonths(1)), aheadMonth, aheadMonth.plusMonths(1)));
+    }
+
+    private static List<HistoryPartition> createMonthsWithHistory(LocalDate year) {
+        LocalDate yearEnd = year.plusYears(1);
+        adapter.createPartitions(year, yearEnd.minusDays(1));
+        jdbcTemplate.update("INSERT INTO portfolio_history (portfolio_id, date, value) "
+                + "SELECT ?, d::date, 100 FROM generate_series(?::date, ?::date, INTERVAL '1 day') d",
+                PORTFOLIO_ID, year, yearEnd.minusDays(1));
+
+        List<HistoryPartition> months = adapter.loadPartitions().stream()
+                .filter(partition -> !partition.fromDate().isBefore(year) && !partition.toDate().isAfter(yearEnd))
+                .toList();
+        assertThat(months).hasSize(12);
+        assertThat(rows(year, yearEnd)).isEqualTo(year.lengthOfYear());
+        return months;
+    }
+
+    private static void assertYearMerged(LocalDate year) {
+        LocalDate yearEnd = year.plusYears(1);
+        String name = "portfolio_history_p" + year.getYear();
+
+        assertThat(adapter.loadPartitions())
+                .filteredOn(partition -> !partition.fromDate().isBefore(year) && !partition.toDate().isAfter(yearEnd))
+                .containsExactly(new HistoryPartition(name, year, yearEnd));
+        assertThat(rows(year, yearEnd)).isEqualTo(year.lengthOfYear());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ONLY " + name, Integer.class)).isEqualTo(year.lengthOfYear());
+        // The monthly tables are gone and the check that made attaching cheap was dropped again
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)", String.class, name + "01")).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, name + "_bounds")).isZero();
+
+        // New rows of the year are routed into the merged partition
+        jdbcTemplate.update("DELETE FROM portfolio_history WHERE portfolio_id = ? AND date = ?", PORTFOLIO_ID, year.plusMonths(5));
+        jdbcTemplate.update("INSERT INTO portfolio_history (portfolio_id, date, value) VALUES (?, ?, 101)", PORTFOLIO_ID, year.plusMonths(5));
+        assertThat(jdbcTemplate.queryForObject("SELECT value FROM " + name + " WHERE portfolio_id = ? AND date = ?", Integer.class,
+                PORTFOLIO_ID, year.plusMonths(5))).isEqualTo(101);
+    }
+
+    private static int rows(LocalDate fromDate, LocalDate toDate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history WHERE portfolio_id = ? AND date >= ? AND date < ?",
+                Integer.class, PORTFOLIO_ID, fromDate, toDate);
+    }
+}
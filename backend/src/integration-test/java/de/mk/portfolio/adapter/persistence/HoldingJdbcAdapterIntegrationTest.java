@@ -0,0 +1,141 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.PriceTick;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The flush SQL of the price feed: the portfolio delta has to be taken against the stored holding
+ * prices before the holdings are revalued.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HoldingJdbcAdapterIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static HoldingJdbcAdapter adapter;
+
+    private UUID portfolioId;
+    private UUID otherPortfolioId;
+    private UUID firstLotId;
+    private UUID secondLotId;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        adapter = new HoldingJdbcAdapter(jdbcTemplate);
+    }
+
+    @BeforeEach
+    void createPortfolios() {
+        // Two AAPL lots at 100 (bought at 90 and 120, up 5 and 2.50 today) and one MSFT lot at 200
+        portfolioId = insertPortfolio("1900.00", "1900.00", "1892.50");
+        firstLotId = insertLot(portfolioId, "AAPL", 10, "100.00", "90.00", "5.00");
+        secondLotId = insertLot(portfolioId, "AAPL", 5, "100.00", "120.00", "2.50");
+        insertLot(portfolioId, "MSFT", 2, "200.00", "200.00", "0.00");
+        otherPortfolioId = insertPortfolio("400.00", "400.00", "400.00");
+        insertLot(otherPortfolioId, "MSFT", 2, "200.00", "200.00", "0.00");
+    }
+
+    @Test
+    void appliesPriceDeltaToPortfolioBeforeRevaluingHoldings() {
+        adapter.revalueHoldings(List.of(new PriceTick("AAPL", new BigDecimal("110.00"), Instant.now())));
+
+        Map<String, Object> portfolio = portfolio(portfolioId);
+        assertThat((BigDecimal) portfolio.get("total_value")).isEqualByComparingTo("2050.00");
+        assertThat((BigDecimal) portfolio.get("daily_change_value")).isEqualByComparingTo("157.50");
+        assertThat((BigDecimal) portfolio.get("daily_change_percent")).isEqualByComparingTo("8.32");
+        assertThat((BigDecimal) portfolio.get("total_change_value")).isEqualByComparingTo("150.00");
+        assertThat((BigDecimal) portfolio.get("total_change_percent")).isEqualByComparingTo("7.89");
+        assertThat(portfolio.get("version")).isEqualTo(1L);
+
+        Map<String, Object> firstLot = holding(firstLotId);
+        assertThat((BigDecimal) firstLot.get("price")).isEqualByComparingTo("110.00");
+        assertThat((BigDecimal) firstLot.get("daily_change_value")).isEqualByComparingTo("105.00");
+        assertThat((BigDecimal) firstLot.get("total_change_value")).isEqualByComparingTo("200.00");
+        assertThat((BigDecimal) firstLot.get("total_change_percent")).isEqualByComparingTo("22.22");
+        Map<String, Object> secondLot = holding(secondLotId);
+        assertThat((BigDecimal) secondLot.get("daily_change_value")).isEqualByComparingTo("52.50");
+        assertThat((BigDecimal) secondLot.get("total_change_value")).isEqualByComparingTo("-50.00");
+        assertThat((BigDecimal) secondLot.get("total_change_percent")).isEqualByComparingTo("-8.33");
+
+        assertThat(portfolio(otherPortfolioId).get("version")).isEqualTo(0L);
+    }
+
+    @Test
+    void unchangedPriceLeavesRowsAndVersionAlone() {
+        adapter.revalueHoldings(List.of(new PriceTick("AAPL", new BigDecimal("110.00"), Instant.now())));
+
+        adapter.revalueHoldings(List.of(new PriceTick("AAPL", new BigDecimal("110.00"), Instant.now())));
+
+        Map<String, Object> portfolio = portfolio(portfolioId);
+        assertThat((BigDecimal) portfolio.get("total_value")).isEqualByComparingTo("2050.00");
+        assertThat(portfolio.get("version")).isEqualTo(1L);
+        assertThat((BigDecimal) holding(firstLotId).get("daily_change_value")).isEqualByComparingTo("105.00");
+    }
+
+    @Test
+    void revaluesSeveralSymbolsInOneFlush() {
+        adapter.revalueHoldings(List.of(
+                new PriceTick("AAPL", new BigDecimal("110.00"), Instant.now()),
+                new PriceTick("MSFT", new BigDecimal("190.00"), Instant.now())));
+
+        assertThat((BigDecimal) portfolio(portfolioId).get("total_value")).isEqualByComparingTo("2030.00");
+        assertThat((BigDecimal) portfolio(otherPortfolioId).get("total_value")).isEqualByComparingTo("380.00");
+        assertThat((BigDecimal) portfolio(otherPortfolioId).get("daily_change_percent")).isEqualByComparingTo("-5.00");
+    }
+
+    private static UUID insertPortfolio(String totalValue, String costBasis, String dayOpenValue) {
+        UUID id = UUID.randomUUID();
+        BigDecimal total = new BigDecimal(totalValue);
+        BigDecimal open = new BigDecimal(dayOpenValue);
+        jdbcTemplate.update("""
+                INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value,
+                    total_change_percent, cost_basis, day_open_value)
+                VALUES (?, ?, ?, 0, 0, 0, ?, ?)
+                """, id, total, total.subtract(open), new BigDecimal(costBasis), open);
+        return id;
+    }
+
+    private static UUID insertLot(UUID portfolioId, String symbol, int quantity, String price, String purchasePrice, String dailyChangeValue) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO holding (id, portfolio_id, name, symbol, quantity, price, purchase_price, purchase_date,
+                    daily_change_value, daily_change_percent, total_change_value, total_change_percent, logo_url)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, NULL)
+                """, id, portfolioId, symbol, symbol, quantity, new BigDecimal(price), new BigDecimal(purchasePrice),
+                LocalDate.of(2024, 1, 2), new BigDecimal(dailyChangeValue));
+        return id;
+    }
+
+    private static Map<String, Object> portfolio(UUID id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM portfolio WHERE id = ?", id);
+    }
+
+    private static Map<String, Object> holding(UUID id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM holding WHERE id = ?", id);
+    }
+}
@@ -0,0 +1,101 @@
+package de.mk.portfolio.adapter.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the holding access paths are served by the indexes from
+ * {@code V3__add_holding_and_history_indexes.sql}, and history reads by the partitioned primary key
+ * from {@code V9__partition_portfolio_history.sql}, once the tables hold a realistic amount of rows.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PortfolioIndexIntegrationTest {
+
+    private static final int PORTFOLIOS = 1_000;
+    private static final int ROWS = 1_000_000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @BeforeAll
+    static void migrateAndLoad() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        new PortfolioHistoryPartitionJdbcAdapter(new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)))
+                .createPartitions(LocalDate.of(2020, 1, 1), LocalDate.of(2022, 12, 31));
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value, total_change_percent) "
+                    + "SELECT md5('p' || g)::uuid, 0, 0, 0, 0, 0 FROM generate_series(0, " + (PORTFOLIOS - 1) + ") g");
+            statement.execute("INSERT INTO holding (id, portfolio_id, name, symbol, quantity, price, purchase_price, purchase_date, "
+                    + "daily_change_value, daily_change_percent, total_change_value, total_change_percent) "
+                    + "SELECT md5('h' || g)::uuid, md5('p' || (g % " + PORTFOLIOS + "))::uuid, 'Company ' || (g % 500), 'SYM' || (g % 500), "
+                    + "10, 100, 90, DATE '2020-01-01', 0, 0, 0, 0 FROM generate_series(0, " + (ROWS - 1) + ") g");
+            statement.execute("INSERT INTO portfolio_history (portfolio_id, date, value) "
+                    + "SELECT md5('p' || (g % " + PORTFOLIOS + "))::uuid, DATE '2020-01-01' + (g / " + PORTFOLIOS + "), 100 "
+                    + "FROM generate_series(0, " + (ROWS - 1) + ") g");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    void findByPortfolioIdUsesHoldingIndex() throws SQLException {
+        String plan = explain("SELECT * FROM holding WHERE portfolio_id = md5('p42')::uuid");
+
+        assertThat(plan).contains("idx_holding_portfolio_symbol").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findByPortfolioIdAndSymbolUsesHoldingIndex() throws SQLException {
+        String plan = explain("SELECT * FROM holding WHERE portfolio_id = md5('p42')::uuid AND symbol = 'SYM42'");
+
+        assertThat(plan).contains("idx_holding_portfolio_symbol").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findHistoryByPortfolioIdAndDateUsesHistoryIndexOfRecentPartitionsOnly() throws SQLException {
+        String plan = explain("SELECT * FROM portfolio_history WHERE portfolio_id = md5('p42')::uuid "
+                + "AND date >= DATE '2022-06-01' ORDER BY date ASC");
+
+        assertThat(plan).contains("portfolio_history_p202206_pkey")
+                .doesNotContain("portfolio_history_p202205")
+                .doesNotContain("Seq Scan");
+    }
+
+    private static String explain(String query) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
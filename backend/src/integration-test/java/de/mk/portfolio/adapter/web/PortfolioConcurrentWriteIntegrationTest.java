@@ -0,0 +1,152 @@
+package de.mk.portfolio.adapter.web;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Concurrent and retried writes to one portfolio: no buy is lost, and a retried buy is not repeated.
+ */
+@SpringBootTest(properties = "portfolio.write.max-attempts=100")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class PortfolioConcurrentWriteIntegrationTest {
+
+    private static final int WRITERS = 8;
+    private static final int BUYS_PER_WRITER = 10;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String portfolioPath;
+
+    @BeforeEach
+    void createPortfolio() throws Exception {
+        String created = mockMvc.perform(post("/api/portfolio"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        portfolioPath = "/api/portfolio/" + JsonPath.read(created, "$.id");
+    }
+
+    @Test
+    void concurrentBuysAreAllCounted() throws Exception {
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS)) {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                results.add(executor.submit(() -> {
+                    for (int buy = 0; buy < BUYS_PER_WRITER; buy++) {
+                        int status = mockMvc.perform(buy(null)).andReturn().getResponse().getStatus();
+                        if (status != 200) {
+                            return status;
+                        }
+                    }
+                    return 200;
+                }));
+            }
+        }
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(200);
+        }
+
+        int buys = WRITERS * BUYS_PER_WRITER;
+        assertThat(holdingCount()).isEqualTo(buys);
+        // Every buy is 10 shares at 100.00
+        assertThat(totalValue()).isEqualByComparingTo(BigDecimal.valueOf(buys * 1000L));
+    }
+
+    @Test
+    void retriedBuyIsReplayedInsteadOfRepeated() throws Exception {
+        String key = UUID.randomUUID().toString();
+        MvcResult first = mockMvc.perform(buy(key)).andExpect(status().isOk()).andReturn();
+
+        mockMvc.perform(buy(key))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeyFilter.IDEMPOTENT_REPLAYED, "true"))
+                .andExpect(content().json(first.getResponse().getContentAsString(), true));
+
+        assertThat(holdingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(buy(key)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/portfolio").header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, key))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(holdingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keyReusedWithAnotherBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(buy(key)).andExpect(status().isOk());
+
+        mockMvc.perform(post(portfolioPath + "/holdings")
+                        .header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbol": "AAPL", "quantity": 20, "purchasePrice": 100.00, "purchaseDate": "2024-01-02"}
+                                """))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(holdingCount()).isEqualTo(1);
+    }
+
+    private MockHttpServletRequestBuilder buy(String idempotencyKey) {
+        MockHttpServletRequestBuilder request = post(portfolioPath + "/holdings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"symbol": "AAPL", "quantity": 10, "purchasePrice": 100.00, "purchaseDate": "2024-01-02"}
+                        """);
+        return idempotencyKey != null ? request.header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, idempotencyKey) : request;
+    }
+
+    private int holdingCount() throws Exception {
+        String holdings = mockMvc.perform(get(portfolioPath + "/holdings")).andReturn().getResponse().getContentAsString();
+        return JsonPath.<List<?>>read(holdings, "$").size();
+    }
+
+    private BigDecimal totalValue() throws Exception {
+        String portfolio = mockMvc.perform(get(portfolioPath)).andReturn().getResponse().getContentAsString();
+        return new BigDecimal(JsonPath.read(portfolio, "$.totalValue").toString());
+    }
+}
@@ -0,0 +1,236 @@
+package de.mk.portfolio.adapter.web;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements each portfolio endpoint issues through Hibernate.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class PortfolioStatementCountIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RenderedResponseCache renderedResponseCache;
+
+    private Statistics statistics;
+    private UUID portfolioId;
+    private String portfolioPath;
+
+    @BeforeEach
+    void createPortfolioWithHolding() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        String created = mockMvc.perform(post("/api/portfolio"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        portfolioId = UUID.fromString(JsonPath.read(created, "$.id"));
+        portfolioPath = "/api/portfolio/" + portfolioId;
+        addStock("AAPL");
+
+        statistics.clear();
+    }
+
+    @Test
+    void getPortfolioIssuesVersionLookupAndOneStatement() throws Exception {
+        mockMvc.perform(get(portfolioPath)).andExpect(status().isOk()).andExpect(header().exists(HttpHeaders.ETAG));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getHoldingsIssuesVersionLookupAndOneStatement() throws Exception {
+        mockMvc.perform(get(portfolioPath + "/holdings")).andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getHistoryIssuesVersionLookupAndOneStatement() throws Exception {
+        mockMvc.perform(get(portfolioPath + "/history").param("range", "1Y")).andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getDashboardIssuesVersionLookupAndOneStatementPerPart() throws Exception {
+        mockMvc.perform(get(portfolioPath + "/dashboard").param("range", "1Y").param("maxPoints", "250"))
+                .andExpect(status().isOk());
+
+        // version, then summary, holdings and history, read in parallel
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void unchangedPortfolioIsNotModifiedAfterVersionLookupOnly() throws Exception {
+        for (String path : new String[]{portfolioPath, portfolioPath + "/holdings", portfolioPath + "/dashboard"}) {
+            String etag = mockMvc.perform(get(path)).andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            statistics.clear();
+
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void buyingChangesTheEtag() throws Exception {
+        String etag = mockMvc.perform(get(portfolioPath)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        addStock("MSFT");
+
+        mockMvc.perform(get(portfolioPath).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void repeatedReadIsServedFromResponseCacheAfterVersionLookupOnly() throws Exception {
+        for (String path : new String[]{portfolioPath, portfolioPath + "/holdings", portfolioPath + "/history", portfolioPath + "/dashboard"}) {
+            String body = mockMvc.perform(get(path)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            statistics.clear();
+
+            mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(content().string(body));
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void buyingInvalidatesCachedResponses() throws Exception {
+        mockMvc.perform(get(portfolioPath + "/holdings")).andExpect(jsonPath("$", hasSize(1)));
+        assertThat(renderedResponseCache.isCached(portfolioId)).isTrue();
+
+        addStock("MSFT");
+
+        assertThat(renderedResponseCache.isCached(portfolioId)).isFalse();
+        mockMvc.perform(get(portfolioPath + "/holdings")).andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void streamedHoldingsMatchBufferedOnesAfterVersionLookupAndOneStatement() throws Exception {
+        String buffered = mockMvc.perform(get(portfolioPath + "/holdings"))
+                .andReturn().getResponse().getContentAsString();
+        statistics.clear();
+
+        mockMvc.perform(get(portfolioPath + "/holdings").param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(buffered));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void streamedHistoryMatchesBufferedOne() throws Exception {
+        String buffered = mockMvc.perform(get(portfolioPath + "/history").param("range", "ALL"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        statistics.clear();
+
+        mockMvc.perform(get(portfolioPath + "/history").param("range", "ALL").param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(buffered));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        mockMvc.perform(get(portfolioPath + "/history").param("stream", "true").param("maxPoints", "250"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void columnarHistoryIsOnlyBuffered() throws Exception {
+        mockMvc.perform(get(portfolioPath + "/history").param("range", "ALL").param("format", "columnar"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(portfolioPath + "/history").param("range", "ALL").param("format", "columnar").param("stream", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addStockReadsPortfolioOnceAndWritesWithoutRereading() throws Exception {
+        addStock("MSFT");
+
+        // load valuation, insert holding, update valuation
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void sellingWholeLotIssuesFiveStatements() throws Exception {
+        mockMvc.perform(delete(portfolioPath + "/holdings/AAPL").param("quantity", "10"))
+                .andExpect(status().isNoContent());
+
+        // load valuation, lock lots of the symbol, delete lot, insert realized trade, update valuation
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    @Test
+    void sellingPartOfLotIssuesFiveStatements() throws Exception {
+        mockMvc.perform(delete(portfolioPath + "/holdings/AAPL").param("quantity", "4"))
+                .andExpect(status().isNoContent());
+
+        // load valuation, lock lots of the symbol, reduce lot, insert realized trade, update valuation
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    private void addStock(String symbol) throws Exception {
+        mockMvc.perform(post(portfolioPath + "/holdings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbol": "%s", "quantity": 10, "purchasePrice": 100.00, "purchaseDate": "2024-01-02"}
+                                """.formatted(symbol)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,116 @@
+package de.mk.portfolio.adapter.web;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Portfolio reads against a primary and a replica that do not replicate, so every response shows
+ * which of the two it was read from.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class ReadReplicaRoutingIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("portfolio.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("portfolio.datasource.replica.username", replica::getUsername);
+        registry.add("portfolio.datasource.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        // A real replica gets the schema from the primary
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void readsGoToTheReplica() throws Exception {
+        String id = JsonPath.read(createPortfolio().getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(get("/api/portfolio/" + id)).andExpect(status().isNotFound());
+
+        replicaJdbcTemplate().update("""
+                INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value,
+                    total_change_percent, cost_basis, day_open_value)
+                VALUES (?, 42.00, 0, 0, 0, 0, 0, 0)
+                """, UUID.fromString(id));
+        mockMvc.perform(get("/api/portfolio/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalValue").value(42.0));
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromThePrimary() throws Exception {
+        MvcResult created = createPortfolio();
+        Cookie readPrimary = created.getResponse().getCookie(ReadYourWritesFilter.READ_PRIMARY_COOKIE);
+        String path = "/api/portfolio/" + JsonPath.read(created.getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(post(path + "/holdings")
+                        .cookie(readPrimary)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbol": "AAPL", "quantity": 10, "purchasePrice": 100.00, "purchaseDate": "2024-01-02"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(ReadYourWritesFilter.READ_PRIMARY_COOKIE));
+
+        // Holdings and history are read on the dashboard pool, which must keep the routing of the request
+        mockMvc.perform(get(path + "/dashboard").cookie(readPrimary))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdings", hasSize(1)));
+    }
+
+    private MvcResult createPortfolio() throws Exception {
+        return mockMvc.perform(post("/api/portfolio"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(ReadYourWritesFilter.READ_PRIMARY_COOKIE, 5))
+                .andReturn();
+    }
+
+    private static JdbcTemplate replicaJdbcTemplate() {
+        return new JdbcTemplate(new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+    }
+}
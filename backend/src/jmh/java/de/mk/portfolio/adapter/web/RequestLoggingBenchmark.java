@@ -0,0 +1,63 @@
+package de.mk.portfolio.adapter.web;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What logging costs the request thread: the per-request info line {@link PortfolioController} used to
+ * write, against the sampled access log record of {@link AccessLogFilter}, each with the previous
+ * synchronous file appender and with the asynchronous loggers and buffered appenders of log4j2.xml.
+ * <p>
+ * Every mode runs in its own fork, so the context selector can be chosen before Log4j starts. A
+ * benchmark loop outpaces the file, so in async mode the ring buffer runs full and, as configured for
+ * production, INFO events are then dropped instead of waiting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequestLoggingBenchmark {
+
+    @Param({"sync", "async"})
+    String mode;
+
+    private final UUID portfolioId = UUID.randomUUID();
+    private final String path = "/api/portfolio/" + portfolioId + "/dashboard";
+
+    private Logger logger;
+    private AccessLogFilter accessLogFilter;
+
+    @Setup
+    public void setUp() {
+        boolean async = mode.equals("async");
+        System.setProperty("log4j2.contextSelector", async
+                ? "org.apache.logging.log4j.core.async.AsyncLoggerContextSelector"
+                : "org.apache.logging.log4j.core.selector.ClassLoaderContextSelector");
+        System.setProperty("log4j.configurationFile", async ? "log4j2-bench-async.xml" : "log4j2-bench-sync.xml");
+        logger = LogManager.getLogger(PortfolioController.class);
+        accessLogFilter = new AccessLogFilter(0.1, Duration.ofSeconds(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogManager.shutdown();
+    }
+
+    @Benchmark
+    public void perRequestInfoLine() {
+        logger.info("Getting dashboard of portfolio {} with range: {} and maxPoints: {}", portfolioId, "1M", 250);
+    }
+
+    @Benchmark
+    public void sampledAccessLog() {
+        accessLogFilter.log("GET", path, 200, 5_000_000L);
+    }
+}
@@ -0,0 +1,45 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.model.Holding;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The DTO mapping {@link PortfolioController} applies to a holdings response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    @Param({"10", "1000"})
+    int holdingCount;
+
+    private List<Holding> holdings;
+
+    @Setup
+    public void setUp() {
+        holdings = new ArrayList<>(holdingCount);
+        UUID portfolioId = UUID.randomUUID();
+        for (int i = 0; i < holdingCount; i++) {
+            BigDecimal value = BigDecimal.valueOf(10_000 + i, 2);
+            holdings.add(new Holding(UUID.randomUUID(), portfolioId, "SYM" + i + " Company", "SYM" + i, 10 + i,
+                    value, value, LocalDate.of(2024, 1, 2), value, value, value, value, "https://logo.clearbit.com/sym" + i + ".com"));
+        }
+    }
+
+    @Benchmark
+    public List<PortfolioController.HoldingResponse> mapHoldings() {
+        return holdings.stream().map(PortfolioController::mapToHoldingResponse).collect(Collectors.toList());
+    }
+}
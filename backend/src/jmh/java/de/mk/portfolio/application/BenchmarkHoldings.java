@@ -0,0 +1,72 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Quote;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic holdings and quotes shared by the benchmarks, so runs are comparable.
+ */
+final class BenchmarkHoldings {
+
+    static final UUID PORTFOLIO_ID = UUID.fromString("a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11");
+
+    private BenchmarkHoldings() {
+    }
+
+    static List<Holding> holdings(int count, int distinctSymbols) {
+        Random random = new Random(42);
+        List<Holding> holdings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String symbol = symbol(i % distinctSymbols);
+            BigDecimal purchasePrice = cents(random, 1_000, 50_000);
+            BigDecimal price = cents(random, 1_000, 50_000);
+            holdings.add(Holding.builder()
+                    .id(UUID.randomUUID())
+                    .portfolioId(PORTFOLIO_ID)
+                    .name(symbol + " Company")
+                    .symbol(symbol)
+                    .quantity(1 + random.nextInt(500))
+                    .price(price)
+                    .purchasePrice(purchasePrice)
+                    .purchaseDate(LocalDate.of(2024, 1, 2).plusDays(random.nextInt(365)))
+                    .dailyChangeValue(cents(random, -5_000, 5_000))
+                    .dailyChangePercent(cents(random, -300, 300))
+                    .totalChangeValue(BigDecimal.ZERO)
+                    .totalChangePercent(BigDecimal.ZERO)
+                    .logoUrl("https://logo.clearbit.com/" + symbol.toLowerCase(Locale.ROOT) + ".com")
+                    .build());
+        }
+        return holdings;
+    }
+
+    /**
+     * Quotes for every other symbol, so both the cache hit and the fallback path are measured.
+     */
+    static QuoteCache quoteCache(int distinctSymbols) {
+        Random random = new Random(7);
+        QuoteCache quoteCache = new QuoteCache(distinctSymbols, Duration.ofDays(1));
+        Instant now = Instant.now();
+        for (int i = 0; i < distinctSymbols; i += 2) {
+            quoteCache.put(new Quote(symbol(i), cents(random, 1_000, 50_000), now));
+        }
+        return quoteCache;
+    }
+
+    static String symbol(int index) {
+        return "SYM" + index;
+    }
+
+    private static BigDecimal cents(Random random, int minCents, int maxCents) {
+        return BigDecimal.valueOf(minCents + random.nextInt(maxCents - minCents), 2);
+    }
+}
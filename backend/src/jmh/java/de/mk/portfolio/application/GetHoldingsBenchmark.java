@@ -0,0 +1,58 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link PortfolioService#getHoldings} with the persistence port stubbed out: measures the
+ * quote lookup and the revaluation of every holding, not the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetHoldingsBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int holdingCount;
+
+    private PortfolioService portfolioService;
+
+    @Setup
+    public void setUp() {
+        int distinctSymbols = Math.max(1, holdingCount / 4);
+        List<Holding> holdings = BenchmarkHoldings.holdings(holdingCount, distinctSymbols);
+        LoadHoldingsPort loadHoldingsPort = new LoadHoldingsPort() {
+            @Override
+            public List<Holding> loadHoldings(UUID portfolioId) {
+                return holdings;
+            }
+
+            @Override
+            public List<Holding> loadHoldings(UUID portfolioId, String symbol) {
+                return holdings.stream().filter(holding -> holding.getSymbol().equals(symbol)).toList();
+            }
+
+            @Override
+            public void forEachHolding(UUID portfolioId, Consumer<Holding> action) {
+                holdings.forEach(action);
+            }
+        };
+        QuoteCache quoteCache = BenchmarkHoldings.quoteCache(distinctSymbols);
+        portfolioService = new PortfolioService(null, loadHoldingsPort, null, null, null,
+                new PortfolioAggregator(), quoteCache, new HoldingFactory(quoteCache), null, event -> { });
+    }
+
+    @Benchmark
+    public List<Holding> getHoldings() {
+        return portfolioService.getHoldings(BenchmarkHoldings.PORTFOLIO_ID);
+    }
+}
@@ -0,0 +1,70 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BigDecimal gain/percent arithmetic on its own: per holding as {@code getHoldings} does it,
+ * and per portfolio as {@link PortfolioAggregator} does it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValuationBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final PortfolioAggregator aggregator = new PortfolioAggregator();
+
+    private Holding holding;
+    private List<Holding> lots;
+    private Portfolio portfolio;
+
+    @Setup
+    public void setUp() {
+        lots = BenchmarkHoldings.holdings(100, 25);
+        holding = lots.get(0);
+        portfolio = aggregator.applyBuys(Portfolio.builder()
+                .id(BenchmarkHoldings.PORTFOLIO_ID)
+                .totalValue(new BigDecimal("0.00"))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .totalChangePercent(new BigDecimal("0.00"))
+                .costBasis(new BigDecimal("0.00"))
+                .dayOpenValue(new BigDecimal("0.00"))
+                .history(List.of())
+                .build(), lots);
+    }
+
+    @Benchmark
+    public void holdingGainAndPercent(Blackhole blackhole) {
+        BigDecimal quantity = BigDecimal.valueOf(holding.getQuantity());
+        BigDecimal costBasis = holding.getPurchasePrice().multiply(quantity);
+        BigDecimal totalChangeValue = holding.getPrice().subtract(holding.getPurchasePrice()).multiply(quantity);
+        blackhole.consume(totalChangeValue);
+        blackhole.consume(costBasis.signum() == 0
+                ? BigDecimal.ZERO
+                : totalChangeValue.multiply(HUNDRED).divide(costBasis, PortfolioAggregator.SCALE, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public Portfolio applySell() {
+        return aggregator.applySell(portfolio, holding, holding.getQuantity() / 2);
+    }
+
+    @Benchmark
+    public Portfolio applyBuys() {
+        return aggregator.applyBuys(portfolio, lots);
+    }
+}
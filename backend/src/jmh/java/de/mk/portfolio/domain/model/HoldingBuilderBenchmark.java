@@ -0,0 +1,52 @@
+package de.mk.portfolio.domain.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building a {@link Holding} through its 13-field builder versus the constructor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HoldingBuilderBenchmark {
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID portfolioId = UUID.randomUUID();
+    private final BigDecimal price = new BigDecimal("187.42");
+    private final BigDecimal purchasePrice = new BigDecimal("150.10");
+    private final LocalDate purchaseDate = LocalDate.of(2024, 1, 2);
+    private final BigDecimal change = new BigDecimal("12.34");
+
+    @Benchmark
+    public Holding builder() {
+        return Holding.builder()
+                .id(id)
+                .portfolioId(portfolioId)
+                .name("AAPL Company")
+                .symbol("AAPL")
+                .quantity(10)
+                .price(price)
+                .purchasePrice(purchasePrice)
+                .purchaseDate(purchaseDate)
+                .dailyChangeValue(change)
+                .dailyChangePercent(change)
+                .totalChangeValue(change)
+                .totalChangePercent(change)
+                .logoUrl("https://logo.clearbit.com/aapl.com")
+                .build();
+    }
+
+    @Benchmark
+    public Holding constructor() {
+        return new Holding(id, portfolioId, "AAPL Company", "AAPL", 10, price, purchasePrice, purchaseDate,
+                change, change, change, change, "https://logo.clearbit.com/aapl.com");
+    }
+}
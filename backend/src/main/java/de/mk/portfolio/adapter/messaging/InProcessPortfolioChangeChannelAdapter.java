@@ -0,0 +1,36 @@
+package de.mk.portfolio.adapter.messaging;
+
+import de.mk.portfolio.domain.port.out.PortfolioChangeChannelPort;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Change channel of a single instance: changes are delivered right away on the publishing thread.
+ */
+@Component
+@ConditionalOnProperty(name = "portfolio.change-channel", havingValue = "in-process", matchIfMissing = true)
+public class InProcessPortfolioChangeChannelAdapter implements PortfolioChangeChannelPort {
+
+    private volatile Consumer<UUID> listener;
+
+    @Override
+    public void publish(UUID portfolioId) {
+        Consumer<UUID> current = listener;
+        if (current != null) {
+            current.accept(portfolioId);
+        }
+    }
+
+    @Override
+    public void start(Consumer<UUID> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void stop() {
+        this.listener = null;
+    }
+}
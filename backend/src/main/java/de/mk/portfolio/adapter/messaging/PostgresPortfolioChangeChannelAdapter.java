@@ -0,0 +1,104 @@
+package de.mk.portfolio.adapter.messaging;
+
+import de.mk.portfolio.domain.port.out.PortfolioChangeChannelPort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Change channel across instances over PostgreSQL {@code LISTEN/NOTIFY}, so no broker is needed. Each
+ * instance listens on a connection of its own, outside the pool; notifications sent while it is
+ * reconnecting are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "portfolio.change-channel", havingValue = "postgres")
+public class PostgresPortfolioChangeChannelAdapter implements PortfolioChangeChannelPort {
+
+    private static final Logger logger = LogManager.getLogger(PostgresPortfolioChangeChannelAdapter.class);
+
+    private static final String CHANNEL = "portfolio_changed";
+    private static final int POLL_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final DataSourceProperties dataSourceProperties;
+
+    private volatile Thread listenerThread;
+
+    public PostgresPortfolioChangeChannelAdapter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, DataSourceProperties dataSourceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        // Changes are published after the commit of the change, when its connection can no longer commit
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @Override
+    public void publish(UUID portfolioId) {
+        ownTransaction.executeWithoutResult(status ->
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, portfolioId.toString()));
+    }
+
+    @Override
+    public synchronized void start(Consumer<UUID> listener) {
+        if (listenerThread != null) {
+            throw new IllegalStateException("Portfolio change channel already started");
+        }
+        listenerThread = Thread.ofPlatform()
+                .name("portfolio-change-channel")
+                .daemon()
+                .start(() -> listen(listener));
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+    }
+
+    private void listen(Consumer<UUID> listener) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        listener.accept(UUID.fromString(notification.getParameter()));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warn("Portfolio change channel disconnected, reconnecting in {} ms: {}", RECONNECT_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
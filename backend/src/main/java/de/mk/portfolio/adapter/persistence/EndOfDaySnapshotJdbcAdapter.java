@@ -0,0 +1,188 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.port.out.EndOfDaySnapshotPort;
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Set-based end-of-day snapshot. Partition {@code i} of {@code n} covers the portfolio IDs whose
+ * leading 64 bits fall into the {@code i}-th of {@code n} equal slices of the unsigned range; both
+ * PostgreSQL and H2 order UUIDs by their unsigned bytes, so the slices are plain index range scans.
+ */
+@Component
+public class EndOfDaySnapshotJdbcAdapter implements EndOfDaySnapshotPort {
+
+    private static final BigInteger KEY_SPACE = BigInteger.ONE.shiftLeft(64);
+
+    private static final String SELECT_PORTFOLIOS = """
+            SELECT id, total_value FROM portfolio WHERE id >= ? AND id < ?
+            """;
+
+    private static final String SELECT_LAST_PORTFOLIOS = """
+            SELECT id, total_value FROM portfolio WHERE id >= ?
+            """;
+
+    // Re-running a partition must not duplicate rows, whether they came from an earlier run or not
+    private static final String INSERT_HISTORY = """
+            INSERT INTO portfolio_history (portfolio_id, date, value)
+            SELECT ?, ?, ? WHERE NOT EXISTS (
+                SELECT 1 FROM portfolio_history WHERE portfolio_id = ? AND date = ?)
+            """;
+
+    // The close is the base of the next day's change. A price tick flushed after the close was read already
+    // belongs to the next day, so it stays in the change instead of moving the base
+    private static final String ROLL_PORTFOLIO_DAY = """
+            UPDATE portfolio SET
+                day_open_value = ?,
+                daily_change_value = total_value - ?,
+                daily_change_percent = CASE WHEN ? = 0 THEN 0 ELSE ROUND((total_value - ?) * 100 / ?, 2) END,
+                version = version + 1
+            WHERE id = ?
+            """;
+
+    private static final String ROLL_HOLDING_DAY = """
+            UPDATE holding SET daily_change_value = 0, daily_change_percent = 0
+            WHERE portfolio_id = ?
+            """;
+
+    private static final String INSERT_CHECKPOINT = """
+            INSERT INTO eod_snapshot_checkpoint (snapshot_date, partition_no, partition_count, portfolio_count, completed_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String SELECT_COMPLETED_PARTITIONS = """
+            SELECT partition_no FROM eod_snapshot_checkpoint WHERE snapshot_date = ? AND partition_count = ?
+            """;
+
+    // Checkpoints without a run row were written before runs were recorded
+    private static final String SELECT_INCOMPLETE_DATE = """
+            SELECT MAX(snapshot_date) FROM (
+                SELECT snapshot_date FROM eod_snapshot_run WHERE completed_at IS NULL
+                UNION ALL
+                SELECT snapshot_date FROM eod_snapshot_checkpoint WHERE partition_count = ?
+                GROUP BY snapshot_date HAVING COUNT(*) < ?) incomplete
+            """;
+
+    private static final String INSERT_RUN = """
+            INSERT INTO eod_snapshot_run (snapshot_date, partition_count, owner, started_at, lease_until)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String TAKE_OVER_RUN = """
+            UPDATE eod_snapshot_run SET partition_count = ?, owner = ?, lease_until = ?
+            WHERE snapshot_date = ? AND completed_at IS NULL AND (owner = ? OR lease_until < ?)
+            """;
+
+    private static final String RENEW_RUN = """
+            UPDATE eod_snapshot_run SET lease_until = ?
+            WHERE snapshot_date = ? AND owner = ? AND completed_at IS NULL
+            """;
+
+    private static final String COMPLETE_RUN = """
+            UPDATE eod_snapshot_run SET completed_at = ? WHERE snapshot_date = ? AND owner = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PortfolioHistoryPartitionPort portfolioHistoryPartitionPort;
+    private final HistoryRollupWriter historyRollupWriter;
+
+    public EndOfDaySnapshotJdbcAdapter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PortfolioHistoryPartitionPort portfolioHistoryPartitionPort, HistoryRollupWriter historyRollupWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.portfolioHistoryPartitionPort = portfolioHistoryPartitionPort;
+        this.historyRollupWriter = historyRollupWriter;
+    }
+
+    @Override
+    public boolean claimSnapshot(LocalDate date, int partitionCount, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Timestamp leaseUntil = Timestamp.from(now.plus(lease));
+        try {
+            jdbcTemplate.update(INSERT_RUN, date, partitionCount, owner, Timestamp.from(now), leaseUntil);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Started before: taken over unless it is complete or another owner's lease still runs
+            return jdbcTemplate.update(TAKE_OVER_RUN, partitionCount, owner, leaseUntil, date, owner, Timestamp.from(now)) == 1;
+        }
+    }
+
+    @Override
+    public boolean renewSnapshotClaim(LocalDate date, String owner, Duration lease) {
+        return jdbcTemplate.update(RENEW_RUN, Timestamp.from(Instant.now().plus(lease)), date, owner) == 1;
+    }
+
+    @Override
+    public void completeSnapshot(LocalDate date, String owner) {
+        jdbcTemplate.update(COMPLETE_RUN, Timestamp.from(Instant.now()), date, owner);
+    }
+
+    @Override
+    public Set<Integer> loadCompletedPartitions(LocalDate date, int partitionCount) {
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_COMPLETED_PARTITIONS, Integer.class, date, partitionCount));
+    }
+
+    @Override
+    public Optional<LocalDate> loadIncompleteSnapshotDate(int partitionCount) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(SELECT_INCOMPLETE_DATE, LocalDate.class, partitionCount, partitionCount));
+    }
+
+    @Override
+    public int snapshotPartition(LocalDate date, int partition, int partitionCount) {
+        UUID lowerBound = lowerBound(partition, partitionCount);
+        // Normally created ahead of time by the partition maintenance; a no-op then
+        portfolioHistoryPartitionPort.createPartitions(date, date);
+        return transactionTemplate.execute(status -> {
+            List<PortfolioClose> closes = partition == partitionCount - 1
+                    ? jdbcTemplate.query(SELECT_LAST_PORTFOLIOS, PortfolioClose.ROW_MAPPER, lowerBound)
+                    : jdbcTemplate.query(SELECT_PORTFOLIOS, PortfolioClose.ROW_MAPPER, lowerBound, lowerBound(partition + 1, partitionCount));
+
+            List<Object[]> historyArgs = new ArrayList<>(closes.size());
+            List<PortfolioHistory> rollupCloses = new ArrayList<>(closes.size());
+            List<Object[]> rollArgs = new ArrayList<>(closes.size());
+            List<Object[]> portfolioArgs = new ArrayList<>(closes.size());
+            for (PortfolioClose close : closes) {
+                historyArgs.add(new Object[]{close.portfolioId(), date, close.value(), close.portfolioId(), date});
+                rollupCloses.add(new PortfolioHistory(close.portfolioId(), date, close.value()));
+                rollArgs.add(new Object[]{close.value(), close.value(), close.value(), close.value(), close.value(), close.portfolioId()});
+                portfolioArgs.add(new Object[]{close.portfolioId()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_HISTORY, historyArgs);
+            historyRollupWriter.applyDailyCloses(rollupCloses);
+            jdbcTemplate.batchUpdate(ROLL_PORTFOLIO_DAY, rollArgs);
+            jdbcTemplate.batchUpdate(ROLL_HOLDING_DAY, portfolioArgs);
+            jdbcTemplate.update(INSERT_CHECKPOINT, date, partition, partitionCount, closes.size(), Timestamp.from(Instant.now()));
+            return closes.size();
+        });
+    }
+
+    static UUID lowerBound(int partition, int partitionCount) {
+        long high = KEY_SPACE.multiply(BigInteger.valueOf(partition))
+                .divide(BigInteger.valueOf(partitionCount))
+                .longValue();
+        return new UUID(high, 0L);
+    }
+
+    private record PortfolioClose(UUID portfolioId, BigDecimal value) {
+        static final RowMapper<PortfolioClose> ROW_MAPPER =
+                (rs, rowNum) -> new PortfolioClose(rs.getObject("id", UUID.class), rs.getBigDecimal("total_value"));
+    }
+}
@@ -0,0 +1,156 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.HistoryResolution;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the weekly and monthly rollups of {@code portfolio_history} in step with the daily rows.
+ * Daily closes are folded into their week and month as they are written; a rewritten stretch of
+ * history is re-aggregated from the daily rows instead. Callers provide the transaction.
+ */
+@Component
+public class HistoryRollupWriter {
+
+    // Only a close at least as recent as the stored one moves the week's close
+    private static final String UPDATE_WEEK = """
+            UPDATE portfolio_history_weekly SET last_date = ?, close_value = ?
+            WHERE portfolio_id = ? AND period_start = ? AND last_date <= ?
+            """;
+
+    private static final String INSERT_WEEK_IF_MISSING = """
+            INSERT INTO portfolio_history_weekly (portfolio_id, period_start, last_date, close_value)
+            SELECT ?, ?, ?, ? WHERE NOT EXISTS (
+                SELECT 1 FROM portfolio_history_weekly WHERE portfolio_id = ? AND period_start = ?)
+            """;
+
+    private static final String UPDATE_MONTH = """
+            UPDATE portfolio_history_monthly SET
+                open_value = CASE WHEN ? < first_date THEN ? ELSE open_value END,
+                first_date = CASE WHEN ? < first_date THEN ? ELSE first_date END,
+                close_value = CASE WHEN ? >= last_date THEN ? ELSE close_value END,
+                last_date = CASE WHEN ? >= last_date THEN ? ELSE last_date END,
+                high_value = GREATEST(high_value, ?),
+                low_value = LEAST(low_value, ?)
+            WHERE portfolio_id = ? AND period_start = ?
+            """;
+
+    private static final String INSERT_MONTH_IF_MISSING = """
+            INSERT INTO portfolio_history_monthly (portfolio_id, period_start, first_date, last_date, open_value, high_value, low_value, close_value)
+            SELECT ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (
+                SELECT 1 FROM portfolio_history_monthly WHERE portfolio_id = ? AND period_start = ?)
+            """;
+
+    private static final String SELECT_DAILY = """
+            SELECT date, value FROM portfolio_history WHERE portfolio_id = ? AND date BETWEEN ? AND ? ORDER BY date
+            """;
+
+    private static final String DELETE_WEEKS = """
+            DELETE FROM portfolio_history_weekly WHERE portfolio_id = ? AND period_start BETWEEN ? AND ?
+            """;
+
+    private static final String DELETE_MONTHS = """
+            DELETE FROM portfolio_history_monthly WHERE portfolio_id = ? AND period_start BETWEEN ? AND ?
+            """;
+
+    private static final String INSERT_WEEK = """
+            INSERT INTO portfolio_history_weekly (portfolio_id, period_start, last_date, close_value) VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_MONTH = """
+            INSERT INTO portfolio_history_monthly (portfolio_id, period_start, first_date, last_date, open_value, high_value, low_value, close_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HistoryRollupWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Folds daily closes into the rollups, at most one close per portfolio: each close is applied
+     * by a batched update, and a batched insert creates the weeks and months that did not exist yet.
+     */
+    public void applyDailyCloses(List<PortfolioHistory> closes) {
+        List<Object[]> updateWeekArgs = new ArrayList<>(closes.size());
+        List<Object[]> insertWeekArgs = new ArrayList<>(closes.size());
+        List<Object[]> updateMonthArgs = new ArrayList<>(closes.size());
+        List<Object[]> insertMonthArgs = new ArrayList<>(closes.size());
+        for (PortfolioHistory close : closes) {
+            UUID portfolioId = close.getPortfolioId();
+            LocalDate date = close.getDate();
+            BigDecimal value = close.getValue();
+            LocalDate week = HistoryResolution.WEEKLY.periodStart(date);
+            LocalDate month = HistoryResolution.MONTHLY.periodStart(date);
+            updateWeekArgs.add(new Object[]{date, value, portfolioId, week, date});
+            insertWeekArgs.add(new Object[]{portfolioId, week, date, value, portfolioId, week});
+            updateMonthArgs.add(new Object[]{date, value, date, date, date, value, date, date, value, value, portfolioId, month});
+            insertMonthArgs.add(new Object[]{portfolioId, month, date, date, value, value, value, value, portfolioId, month});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_WEEK, updateWeekArgs);
+        jdbcTemplate.batchUpdate(INSERT_WEEK_IF_MISSING, insertWeekArgs);
+        jdbcTemplate.batchUpdate(UPDATE_MONTH, updateMonthArgs);
+        jdbcTemplate.batchUpdate(INSERT_MONTH_IF_MISSING, insertMonthArgs);
+    }
+
+    /**
+     * Re-aggregates the weeks and months touching {@code fromDate} to {@code toDate} from the daily
+     * rows of the portfolio.
+     */
+    public void rebuild(UUID portfolioId, LocalDate fromDate, LocalDate toDate) {
+        LocalDate firstWeek = HistoryResolution.WEEKLY.periodStart(fromDate);
+        LocalDate lastWeek = HistoryResolution.WEEKLY.periodStart(toDate);
+        LocalDate firstMonth = HistoryResolution.MONTHLY.periodStart(fromDate);
+        LocalDate lastMonth = HistoryResolution.MONTHLY.periodStart(toDate);
+        LocalDate windowStart = firstWeek.isBefore(firstMonth) ? firstWeek : firstMonth;
+        LocalDate weeksEnd = lastWeek.plusDays(6);
+        LocalDate monthsEnd = lastMonth.plusMonths(1).minusDays(1);
+        LocalDate windowEnd = weeksEnd.isAfter(monthsEnd) ? weeksEnd : monthsEnd;
+
+        List<PortfolioHistory> daily = jdbcTemplate.query(SELECT_DAILY,
+                (resultSet, rowNum) -> new PortfolioHistory(portfolioId, resultSet.getObject(1, LocalDate.class), resultSet.getBigDecimal(2)),
+                portfolioId, windowStart, windowEnd);
+
+        List<Object[]> weeks = new ArrayList<>();
+        List<Object[]> months = new ArrayList<>();
+        Object[] week = null;
+        Object[] month = null;
+        for (PortfolioHistory point : daily) {
+            LocalDate date = point.getDate();
+            BigDecimal value = point.getValue();
+            if (!date.isBefore(firstWeek) && !date.isAfter(weeksEnd)) {
+                LocalDate periodStart = HistoryResolution.WEEKLY.periodStart(date);
+                if (week == null || !week[1].equals(periodStart)) {
+                    week = new Object[]{portfolioId, periodStart, date, value};
+                    weeks.add(week);
+                }
+                week[2] = date;
+                week[3] = value;
+            }
+            if (!date.isBefore(firstMonth) && !date.isAfter(monthsEnd)) {
+                LocalDate periodStart = HistoryResolution.MONTHLY.periodStart(date);
+                if (month == null || !month[1].equals(periodStart)) {
+                    month = new Object[]{portfolioId, periodStart, date, date, value, value, value, value};
+                    months.add(month);
+                }
+                month[3] = date;
+                month[5] = value.max((BigDecimal) month[5]);
+                month[6] = value.min((BigDecimal) month[6]);
+                month[7] = value;
+            }
+        }
+
+        jdbcTemplate.update(DELETE_WEEKS, portfolioId, firstWeek, lastWeek);
+        jdbcTemplate.update(DELETE_MONTHS, portfolioId, firstMonth, lastMonth);
+        jdbcTemplate.batchUpdate(INSERT_WEEK, weeks);
+        jdbcTemplate.batchUpdate(INSERT_MONTH, months);
+    }
+}
@@ -1,6 +1,7 @@
 package de.mk.portfolio.adapter.persistence;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -8,7 +9,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "holding")
-public class HoldingEntity {
+public class HoldingEntity implements Persistable<UUID> {
     @Id
     private UUID id;
     private String name;
@@ -29,6 +30,10 @@ public class HoldingEntity {
     @JoinColumn(name = "portfolio_id")
     private PortfolioEntity portfolio;
 
+    // IDs are assigned by the application, so save() cannot tell new rows apart without this flag
+    @Transient
+    private boolean isNew = true;
+
     public HoldingEntity() {
     }
 
@@ -48,10 +53,22 @@ public class HoldingEntity {
         this.portfolio = portfolio;
     }
 
+    @Override
     public UUID getId() {
         return id;
     }
 
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public void setId(UUID id) {
         this.id = id;
     }
@@ -0,0 +1,105 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.PriceTick;
+import de.mk.portfolio.domain.port.out.RevalueHoldingsPort;
+import de.mk.portfolio.domain.port.out.SaveHoldingsPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based holding updates that would cost one JPA round trip per row otherwise.
+ */
+@Component
+public class HoldingJdbcAdapter implements RevalueHoldingsPort, SaveHoldingsPort {
+
+    private static final String INSERT_HOLDING = """
+            INSERT INTO holding (id, portfolio_id, name, symbol, quantity, price, purchase_price, purchase_date,
+                daily_change_value, daily_change_percent, total_change_value, total_change_percent, logo_url)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Must run before the holding prices are overwritten: the delta is taken against the stored price
+    private static final String ADD_PORTFOLIO_VALUE_DELTA = """
+            UPDATE portfolio SET total_value = total_value + (
+                SELECT SUM(h.quantity * (? - h.price)) FROM holding h
+                WHERE h.portfolio_id = portfolio.id AND h.symbol = ? AND h.price <> ?),
+                version = version + 1
+            WHERE id IN (SELECT h.portfolio_id FROM holding h WHERE h.symbol = ? AND h.price <> ?)
+            """;
+
+    // The change fields as PortfolioAggregator derives them from the running sums
+    private static final String DERIVE_PORTFOLIO_CHANGES = """
+            UPDATE portfolio SET
+                daily_change_value = total_value - day_open_value,
+                daily_change_percent = CASE WHEN day_open_value = 0 THEN 0
+                    ELSE ROUND((total_value - day_open_value) * 100 / day_open_value, 2) END,
+                total_change_value = total_value - cost_basis,
+                total_change_percent = CASE WHEN cost_basis = 0 THEN 0
+                    ELSE ROUND((total_value - cost_basis) * 100 / cost_basis, 2) END
+            WHERE id IN (SELECT h.portfolio_id FROM holding h WHERE h.symbol = ? AND h.price <> ?)
+            """;
+
+    private static final String REVALUE_HOLDINGS = """
+            UPDATE holding SET
+                daily_change_value = daily_change_value + quantity * (? - price),
+                daily_change_percent = CASE WHEN quantity * price - daily_change_value = 0 THEN 0
+                    ELSE ROUND((daily_change_value + quantity * (? - price)) * 100 / (quantity * price - daily_change_value), 2) END,
+                total_change_value = quantity * (? - purchase_price),
+                total_change_percent = CASE WHEN purchase_price = 0 THEN 0
+                    ELSE ROUND((? - purchase_price) * 100 / purchase_price, 2) END,
+                price = ?
+            WHERE symbol = ? AND price <> ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HoldingJdbcAdapter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void revalueHoldings(Collection<PriceTick> latestTicks) {
+        List<Object[]> portfolioDeltaArgs = new ArrayList<>(latestTicks.size());
+        List<Object[]> portfolioChangeArgs = new ArrayList<>(latestTicks.size());
+        List<Object[]> holdingArgs = new ArrayList<>(latestTicks.size());
+        for (PriceTick tick : latestTicks) {
+            portfolioDeltaArgs.add(new Object[]{tick.price(), tick.symbol(), tick.price(), tick.symbol(), tick.price()});
+            portfolioChangeArgs.add(new Object[]{tick.symbol(), tick.price()});
+            holdingArgs.add(new Object[]{tick.price(), tick.price(), tick.price(), tick.price(), tick.price(), tick.symbol(), tick.price()});
+        }
+        jdbcTemplate.batchUpdate(ADD_PORTFOLIO_VALUE_DELTA, portfolioDeltaArgs);
+        jdbcTemplate.batchUpdate(DERIVE_PORTFOLIO_CHANGES, portfolioChangeArgs);
+        jdbcTemplate.batchUpdate(REVALUE_HOLDINGS, holdingArgs);
+    }
+
+    @Override
+    @Transactional
+    public void saveHoldings(List<Holding> holdings) {
+        List<Object[]> args = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings) {
+            args.add(new Object[]{
+                    holding.getId(),
+                    holding.getPortfolioId(),
+                    holding.getName(),
+                    holding.getSymbol(),
+                    holding.getQuantity(),
+                    holding.getPrice(),
+                    holding.getPurchasePrice(),
+                    holding.getPurchaseDate(),
+                    holding.getDailyChangeValue(),
+                    holding.getDailyChangePercent(),
+                    holding.getTotalChangeValue(),
+                    holding.getTotalChangePercent(),
+                    holding.getLogoUrl()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_HOLDING, args);
+    }
+}
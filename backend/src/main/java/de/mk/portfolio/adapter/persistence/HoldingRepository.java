@@ -1,11 +1,61 @@
 package de.mk.portfolio.adapter.persistence;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface HoldingRepository extends JpaRepository<HoldingEntity, UUID> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<HoldingEntity> findByPortfolioId(UUID portfolioId);
+
+    // Read through a cursor, fetch-size rows per round trip; needs a surrounding transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    Stream<HoldingEntity> streamByPortfolioId(UUID portfolioId);
+
+    // Sells consume the lots of a symbol; the row locks keep two concurrent sells from consuming the same shares
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<HoldingEntity> findByPortfolioIdAndSymbolOrderByPurchaseDateAscIdAsc(UUID portfolioId, String symbol);
+
     void deleteByPortfolioIdAndSymbol(UUID portfolioId, String symbol);
+
+    // deleteById would load the entity first
+    @Transactional
+    @Modifying
+    @Query("delete from HoldingEntity h where h.id = :id")
+    int deleteDirectlyById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update HoldingEntity h set
+                h.quantity = :quantity,
+                h.purchasePrice = :purchasePrice,
+                h.dailyChangeValue = :dailyChangeValue,
+                h.dailyChangePercent = :dailyChangePercent,
+                h.totalChangeValue = :totalChangeValue,
+                h.totalChangePercent = :totalChangePercent
+            where h.id = :id
+            """)
+    int updateLot(@Param("id") UUID id,
+                  @Param("quantity") Integer quantity,
+                  @Param("purchasePrice") BigDecimal purchasePrice,
+                  @Param("dailyChangeValue") BigDecimal dailyChangeValue,
+                  @Param("dailyChangePercent") BigDecimal dailyChangePercent,
+                  @Param("totalChangeValue") BigDecimal totalChangeValue,
+                  @Param("totalChangePercent") BigDecimal totalChangePercent);
 }
@@ -0,0 +1,100 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.IdempotentResponse;
+import de.mk.portfolio.domain.port.out.IdempotencyKeyPort;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Idempotency keys in a plain table. The primary key decides which of two concurrent requests with the
+ * same key wins; each statement runs on its own, outside the transaction of the request.
+ */
+@Component
+public class IdempotencyKeyJdbcAdapter implements IdempotencyKeyPort {
+
+    private static final String INSERT_KEY = """
+            INSERT INTO idempotency_key (idempotency_key, fingerprint, created_at, expires_at) VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String SELECT_KEY = """
+            SELECT fingerprint, response_status, response_content_type, response_body, expires_at
+            FROM idempotency_key WHERE idempotency_key = ?
+            """;
+
+    private static final String UPDATE_RESPONSE = """
+            UPDATE idempotency_key SET response_status = ?, response_content_type = ?, response_body = ?, expires_at = ?
+            WHERE idempotency_key = ?
+            """;
+
+    private static final String EXTEND_KEY = """
+            UPDATE idempotency_key SET expires_at = ? WHERE idempotency_key = ? AND response_status IS NULL
+            """;
+
+    private static final String DELETE_KEY = """
+            DELETE FROM idempotency_key WHERE idempotency_key = ?
+            """;
+
+    private static final String DELETE_KEY_IF_EXPIRED = """
+            DELETE FROM idempotency_key WHERE idempotency_key = ? AND expires_at <= ?
+            """;
+
+    private static final String DELETE_EXPIRED_KEYS = """
+            DELETE FROM idempotency_key WHERE expires_at <= ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyJdbcAdapter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean insertKey(String key, String fingerprint, Instant expiresAt) {
+        try {
+            jdbcTemplate.update(INSERT_KEY, key, fingerprint, Timestamp.from(Instant.now()), Timestamp.from(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<StoredKey> loadKey(String key) {
+        return jdbcTemplate.query(SELECT_KEY, (rs, rowNum) -> {
+            int status = rs.getInt("response_status");
+            IdempotentResponse response = rs.wasNull() ? null
+                    : new IdempotentResponse(status, rs.getString("response_content_type"), rs.getBytes("response_body"));
+            return new StoredKey(rs.getString("fingerprint"), response, rs.getTimestamp("expires_at").toInstant());
+        }, key).stream().findFirst();
+    }
+
+    @Override
+    public void saveResponse(String key, IdempotentResponse response, Instant expiresAt) {
+        jdbcTemplate.update(UPDATE_RESPONSE, response.status(), response.contentType(), response.body(), Timestamp.from(expiresAt), key);
+    }
+
+    @Override
+    public boolean extendKey(String key, Instant expiresAt) {
+        return jdbcTemplate.update(EXTEND_KEY, Timestamp.from(expiresAt), key) > 0;
+    }
+
+    @Override
+    public void deleteKey(String key) {
+        jdbcTemplate.update(DELETE_KEY, key);
+    }
+
+    @Override
+    public boolean deleteKeyIfExpired(String key, Instant now) {
+        return jdbcTemplate.update(DELETE_KEY_IF_EXPIRED, key, Timestamp.from(now)) > 0;
+    }
+
+    @Override
+    public int deleteExpiredKeys(Instant now) {
+        return jdbcTemplate.update(DELETE_EXPIRED_KEYS, Timestamp.from(now));
+    }
+}
@@ -1,6 +1,7 @@
 package de.mk.portfolio.adapter.persistence;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -8,7 +9,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "portfolio")
-public class PortfolioEntity {
+public class PortfolioEntity implements Persistable<UUID> {
     @Id
     private UUID id;
     private BigDecimal totalValue;
@@ -16,6 +17,10 @@ public class PortfolioEntity {
     private BigDecimal dailyChangePercent;
     private BigDecimal totalChangeValue;
     private BigDecimal totalChangePercent;
+    private BigDecimal costBasis;
+    private BigDecimal dayOpenValue;
+    @Version
+    private long version;
 
     @OneToMany(mappedBy = "portfolio", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<HoldingEntity> holdings;
@@ -23,6 +28,10 @@ public class PortfolioEntity {
     @OneToMany(mappedBy = "portfolio", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PortfolioHistoryEntity> history;
 
+    // IDs are assigned by the application, so save() cannot tell new rows apart without this flag
+    @Transient
+    private boolean isNew = true;
+
     public PortfolioEntity() {
     }
 
@@ -37,10 +46,22 @@ public class PortfolioEntity {
         this.history = history;
     }
 
+    @Override
     public UUID getId() {
         return id;
     }
 
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public void setId(UUID id) {
         this.id = id;
     }
@@ -85,6 +106,30 @@ public class PortfolioEntity {
         this.totalChangePercent = totalChangePercent;
     }
 
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public void setCostBasis(BigDecimal costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public BigDecimal getDayOpenValue() {
+        return dayOpenValue;
+    }
+
+    public void setDayOpenValue(BigDecimal dayOpenValue) {
+        this.dayOpenValue = dayOpenValue;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public List<HoldingEntity> getHoldings() {
         return holdings;
     }
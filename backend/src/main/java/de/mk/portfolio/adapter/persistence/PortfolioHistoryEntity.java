@@ -8,33 +8,36 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "portfolio_history")
+@IdClass(PortfolioHistoryId.class)
 public class PortfolioHistoryEntity {
     @Id
-    private UUID id;
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+    @Id
     private LocalDate date;
     @Column(name = "value")
     private BigDecimal value;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "portfolio_id")
+    @JoinColumn(name = "portfolio_id", insertable = false, updatable = false)
     private PortfolioEntity portfolio;
 
     public PortfolioHistoryEntity() {
     }
 
-    public PortfolioHistoryEntity(UUID id, LocalDate date, BigDecimal value, PortfolioEntity portfolio) {
-        this.id = id;
+    public PortfolioHistoryEntity(UUID portfolioId, LocalDate date, BigDecimal value, PortfolioEntity portfolio) {
+        this.portfolioId = portfolioId;
         this.date = date;
         this.value = value;
         this.portfolio = portfolio;
     }
 
-    public UUID getId() {
-        return id;
+    public UUID getPortfolioId() {
+        return portfolioId;
     }
 
-    public void setId(UUID id) {
-        this.id = id;
+    public void setPortfolioId(UUID portfolioId) {
+        this.portfolioId = portfolioId;
     }
 
     public LocalDate getDate() {
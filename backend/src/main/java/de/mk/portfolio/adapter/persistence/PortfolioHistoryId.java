@@ -0,0 +1,46 @@
+package de.mk.portfolio.adapter.persistence;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of {@link PortfolioHistoryEntity}: one point per portfolio and day.
+ */
+public class PortfolioHistoryId implements Serializable {
+    private UUID portfolioId;
+    private LocalDate date;
+
+    public PortfolioHistoryId() {
+    }
+
+    public PortfolioHistoryId(UUID portfolioId, LocalDate date) {
+        this.portfolioId = portfolioId;
+        this.date = date;
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PortfolioHistoryId other)) {
+            return false;
+        }
+        return Objects.equals(portfolioId, other.portfolioId) && Objects.equals(date, other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(portfolioId, date);
+    }
+}
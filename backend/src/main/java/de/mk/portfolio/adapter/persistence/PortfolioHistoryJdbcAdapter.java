@@ -0,0 +1,65 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort;
+import de.mk.portfolio.domain.port.out.ReplacePortfolioHistoryPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk writes of history series, which would cost one JPA round trip per point otherwise.
+ */
+@Component
+public class PortfolioHistoryJdbcAdapter implements ReplacePortfolioHistoryPort {
+
+    private static final String DELETE_HISTORY = """
+            DELETE FROM portfolio_history WHERE portfolio_id = ? AND date = ?
+            """;
+
+    private static final String INSERT_HISTORY = """
+            INSERT INTO portfolio_history (portfolio_id, date, value) VALUES (?, ?, ?)
+            """;
+
+    private static final String BUMP_VERSION = """
+            UPDATE portfolio SET version = version + 1 WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PortfolioHistoryPartitionPort portfolioHistoryPartitionPort;
+    private final HistoryRollupWriter historyRollupWriter;
+
+    public PortfolioHistoryJdbcAdapter(JdbcTemplate jdbcTemplate, PortfolioHistoryPartitionPort portfolioHistoryPartitionPort, HistoryRollupWriter historyRollupWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.portfolioHistoryPartitionPort = portfolioHistoryPartitionPort;
+        this.historyRollupWriter = historyRollupWriter;
+    }
+
+    @Override
+    @Transactional
+    public void replacePortfolioHistory(UUID portfolioId, List<PortfolioHistory> history) {
+        if (history.isEmpty()) {
+            return;
+        }
+        LocalDate fromDate = history.get(0).getDate();
+        LocalDate toDate = history.get(history.size() - 1).getDate();
+        // A backfill may reach further back than the oldest partition
+        portfolioHistoryPartitionPort.createPartitions(fromDate, toDate);
+        List<Object[]> deleteArgs = new ArrayList<>(history.size());
+        List<Object[]> insertArgs = new ArrayList<>(history.size());
+        for (PortfolioHistory point : history) {
+            deleteArgs.add(new Object[]{portfolioId, point.getDate()});
+            insertArgs.add(new Object[]{portfolioId, point.getDate(), point.getValue()});
+        }
+        // Only the rewritten dates: a day without a close keeps the point it has
+        jdbcTemplate.batchUpdate(DELETE_HISTORY, deleteArgs);
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, insertArgs);
+        historyRollupWriter.rebuild(portfolioId, fromDate, toDate);
+        jdbcTemplate.update(BUMP_VERSION, portfolioId);
+    }
+}
@@ -0,0 +1,72 @@
+package de.mk.portfolio.adapter.persistence;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Open, high, low and close of a portfolio's month; written by {@link HistoryRollupWriter},
+ * read-only here.
+ */
+@Entity
+@Immutable
+@Table(name = "portfolio_history_monthly")
+@IdClass(PortfolioHistoryRollupId.class)
+public class PortfolioHistoryMonthlyEntity {
+    @Id
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+    @Column(name = "first_date")
+    private LocalDate firstDate;
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+    @Column(name = "open_value")
+    private BigDecimal openValue;
+    @Column(name = "high_value")
+    private BigDecimal highValue;
+    @Column(name = "low_value")
+    private BigDecimal lowValue;
+    @Column(name = "close_value")
+    private BigDecimal closeValue;
+
+    public PortfolioHistoryMonthlyEntity() {
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public BigDecimal getOpenValue() {
+        return openValue;
+    }
+
+    public BigDecimal getHighValue() {
+        return highValue;
+    }
+
+    public BigDecimal getLowValue() {
+        return lowValue;
+    }
+
+    public BigDecimal getCloseValue() {
+        return closeValue;
+    }
+}
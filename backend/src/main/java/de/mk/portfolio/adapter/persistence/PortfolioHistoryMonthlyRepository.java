@@ -0,0 +1,23 @@
+package de.mk.portfolio.adapter.persistence;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface PortfolioHistoryMonthlyRepository extends JpaRepository<PortfolioHistoryMonthlyEntity, PortfolioHistoryRollupId> {
+    // period_start narrows the primary key scan, last_date drops a first month that closed before the range
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            SELECT m FROM PortfolioHistoryMonthlyEntity m
+            WHERE m.portfolioId = :portfolioId AND m.periodStart >= :periodStart AND m.lastDate >= :fromDate
+            ORDER BY m.periodStart ASC
+            """)
+    List<PortfolioHistoryMonthlyEntity> findFrom(@Param("portfolioId") UUID portfolioId, @Param("periodStart") LocalDate periodStart, @Param("fromDate") LocalDate fromDate);
+}
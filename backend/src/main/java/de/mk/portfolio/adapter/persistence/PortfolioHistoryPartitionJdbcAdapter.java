@@ -0,0 +1,179 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the monthly range partitions that {@code V9__partition_portfolio_history.sql} sets up on
+ * Postgres. Other databases keep {@code portfolio_history} as a plain table, see the vendor
+ * specific migrations.
+ * <p>
+ * Partition names are derived from their range ({@code portfolio_history_p202403} for a month,
+ * {@code portfolio_history_p2024} for a year), never from input, so they can be spliced into DDL.
+ */
+@Component
+public class PortfolioHistoryPartitionJdbcAdapter implements PortfolioHistoryPartitionPort {
+
+    private static final Logger logger = LogManager.getLogger(PortfolioHistoryPartitionJdbcAdapter.class);
+
+    private static final String PARTITION_PREFIX = "portfolio_history_p";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\('(\\d{4}-\\d{2}-\\d{2})'\\) TO \\('(\\d{4}-\\d{2}-\\d{2})'\\)");
+
+    private static final String SELECT_IS_PARTITIONED = """
+            SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = 'portfolio_history'::regclass
+            """;
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'portfolio_history'::regclass
+            """;
+
+    // How long the swap of a merge waits for the parent lock before giving up until the next run,
+    // so that the history requests queued behind it are not held up for longer
+    private static final String SWAP_LOCK_TIMEOUT = "5s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Boolean partitioned;
+
+    public PortfolioHistoryPartitionJdbcAdapter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Not transactional of its own: within a caller's transaction the partitions commit together with
+    // the rows written into them, otherwise each one is committed before the next caller gets in
+    @Override
+    public synchronized void createPartitions(LocalDate fromDate, LocalDate toDate) {
+        if (!isPartitioned()) {
+            return;
+        }
+        List<HistoryPartition> partitions = loadPartitions();
+        for (LocalDate month = fromDate.withDayOfMonth(1); !month.isAfter(toDate); month = month.plusMonths(1)) {
+            if (!covered(partitions, month)) {
+                HistoryPartition partition = new HistoryPartition(partitionName(month, month.plusMonths(1)), month, month.plusMonths(1));
+                jdbcTemplate.execute("CREATE TABLE " + partition.name() + " PARTITION OF portfolio_history FOR VALUES " + bounds(partition));
+                partitions.add(partition);
+                logger.info("Created history partition {}", partition.name());
+            }
+        }
+    }
+
+    @Override
+    public List<HistoryPartition> loadPartitions() {
+        if (!isPartitioned()) {
+            return new ArrayList<>();
+        }
+        List<HistoryPartition> partitions = new ArrayList<>();
+        jdbcTemplate.query(SELECT_PARTITIONS, resultSet -> {
+            Matcher bound = RANGE_BOUND.matcher(resultSet.getString(2));
+            if (bound.find()) {
+                partitions.add(new HistoryPartition(resultSet.getString(1), LocalDate.parse(bound.group(1)), LocalDate.parse(bound.group(2))));
+            }
+        });
+        partitions.sort(Comparator.comparing(HistoryPartition::fromDate));
+        return partitions;
+    }
+
+    @Override
+    public synchronized void mergePartitions(List<HistoryPartition> partitions, LocalDate fromDate, LocalDate toDate) {
+        if (!isPartitioned() || partitions.isEmpty()) {
+            return;
+        }
+        for (HistoryPartition partition : partitions) {
+            if (partition.fromDate().isBefore(fromDate) || partition.toDate().isAfter(toDate)) {
+                throw new IllegalArgumentException("Partition " + partition.name() + " is not within " + fromDate + " and " + toDate);
+            }
+        }
+        HistoryPartition merged = new HistoryPartition(partitionName(fromDate, toDate), fromDate, toDate);
+        transactionTemplate.executeWithoutResult(status -> {
+            // The months stay attached while the yearly table is filled and indexed. SHARE locks only
+            // hold back writes into them until they are swapped out, so none is lost; reads of the
+            // history and writes to other months go on
+            for (HistoryPartition partition : partitions) {
+                jdbcTemplate.execute("LOCK TABLE " + partition.name() + " IN SHARE MODE");
+            }
+            jdbcTemplate.execute("CREATE TABLE " + merged.name() + " (LIKE portfolio_history INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            for (HistoryPartition partition : partitions) {
+                jdbcTemplate.execute("INSERT INTO " + merged.name() + " (portfolio_id, date, value) SELECT portfolio_id, date, value FROM " + partition.name());
+            }
+            jdbcTemplate.execute("ALTER TABLE " + merged.name() + " ADD PRIMARY KEY (portfolio_id, date)");
+            jdbcTemplate.execute("ALTER TABLE " + merged.name() + " ADD CONSTRAINT " + merged.name() + "_bounds CHECK (date >= DATE '" + fromDate + "' AND date < DATE '" + toDate + "')");
+
+            // Only the swap takes the parent's ACCESS EXCLUSIVE lock, held from the first detach to the
+            // commit. The bounds check lets the attach skip its scan of the yearly table
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + SWAP_LOCK_TIMEOUT + "'");
+            for (HistoryPartition partition : partitions) {
+                jdbcTemplate.execute("ALTER TABLE portfolio_history DETACH PARTITION " + partition.name());
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+            }
+            jdbcTemplate.execute("ALTER TABLE portfolio_history ATTACH PARTITION " + merged.name() + " FOR VALUES " + bounds(merged));
+            jdbcTemplate.execute("ALTER TABLE " + merged.name() + " DROP CONSTRAINT " + merged.name() + "_bounds");
+        });
+        logger.info("Merged {} history partitions into {}", partitions.size(), merged.name());
+    }
+
+    @Override
+    @Transactional
+    public synchronized void detachPartition(HistoryPartition partition) {
+        if (!isPartitioned()) {
+            return;
+        }
+        // Renamed so that a later backfill of the range can create a fresh partition under the old name
+        String archived = partition.name() + "_detached_" + LocalDate.now().format(DAY);
+        jdbcTemplate.execute("ALTER TABLE portfolio_history DETACH PARTITION " + partition.name());
+        jdbcTemplate.execute("ALTER TABLE " + partition.name() + " RENAME TO " + archived);
+        logger.info("Detached history partition {} as {}", partition.name(), archived);
+    }
+
+    private boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product)
+                    && jdbcTemplate.queryForObject(SELECT_IS_PARTITIONED, Integer.class) > 0;
+            partitioned = result;
+        }
+        return result;
+    }
+
+    private static boolean covered(List<HistoryPartition> partitions, LocalDate month) {
+        for (HistoryPartition partition : partitions) {
+            if (!month.isBefore(partition.fromDate()) && month.isBefore(partition.toDate())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String partitionName(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.getDayOfYear() == 1 && toDate.equals(fromDate.plusYears(1))) {
+            return PARTITION_PREFIX + fromDate.getYear();
+        }
+        if (fromDate.getDayOfMonth() == 1 && toDate.equals(fromDate.plusMonths(1))) {
+            return PARTITION_PREFIX + fromDate.format(DateTimeFormatter.ofPattern("yyyyMM"));
+        }
+        return PARTITION_PREFIX + fromDate.format(DAY) + "_" + toDate.format(DAY);
+    }
+
+    private static String bounds(HistoryPartition partition) {
+        return "FROM ('" + partition.fromDate() + "') TO ('" + partition.toDate() + "')";
+    }
+}
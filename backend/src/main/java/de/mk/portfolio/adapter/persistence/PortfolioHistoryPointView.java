@@ -0,0 +1,13 @@
+package de.mk.portfolio.adapter.persistence;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of one point of a history series.
+ */
+public interface PortfolioHistoryPointView {
+    LocalDate getDate();
+
+    BigDecimal getValue();
+}
@@ -1,10 +1,28 @@
 package de.mk.portfolio.adapter.persistence;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PortfolioHistoryRepository extends JpaRepository<PortfolioHistoryEntity, UUID> {
-    List<PortfolioHistoryEntity> findByPortfolioIdOrderByDateAsc(UUID portfolioId);
+public interface PortfolioHistoryRepository extends JpaRepository<PortfolioHistoryEntity, PortfolioHistoryId> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<PortfolioHistoryEntity> findByPortfolioIdAndDateGreaterThanEqualOrderByDateAsc(UUID portfolioId, LocalDate fromDate);
+
+    // Read through a cursor, fetch-size rows per round trip; needs a surrounding transaction. Points are
+    // projections, so the persistence context does not grow with the series.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select h.date as date, h.value as value from PortfolioHistoryEntity h
+            where h.portfolioId = :portfolioId and h.date >= :fromDate
+            order by h.date
+            """)
+    Stream<PortfolioHistoryPointView> streamPoints(@Param("portfolioId") UUID portfolioId, @Param("fromDate") LocalDate fromDate);
 }
@@ -0,0 +1,46 @@
+package de.mk.portfolio.adapter.persistence;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of the history rollups: one row per portfolio and week or month.
+ */
+public class PortfolioHistoryRollupId implements Serializable {
+    private UUID portfolioId;
+    private LocalDate periodStart;
+
+    public PortfolioHistoryRollupId() {
+    }
+
+    public PortfolioHistoryRollupId(UUID portfolioId, LocalDate periodStart) {
+        this.portfolioId = portfolioId;
+        this.periodStart = periodStart;
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PortfolioHistoryRollupId other)) {
+            return false;
+        }
+        return Objects.equals(portfolioId, other.portfolioId) && Objects.equals(periodStart, other.periodStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(portfolioId, periodStart);
+    }
+}
@@ -0,0 +1,47 @@
+package de.mk.portfolio.adapter.persistence;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Close of a portfolio's week; written by {@link HistoryRollupWriter}, read-only here.
+ */
+@Entity
+@Immutable
+@Table(name = "portfolio_history_weekly")
+@IdClass(PortfolioHistoryRollupId.class)
+public class PortfolioHistoryWeeklyEntity {
+    @Id
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+    @Column(name = "close_value")
+    private BigDecimal closeValue;
+
+    public PortfolioHistoryWeeklyEntity() {
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public BigDecimal getCloseValue() {
+        return closeValue;
+    }
+}
@@ -0,0 +1,23 @@
+package de.mk.portfolio.adapter.persistence;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface PortfolioHistoryWeeklyRepository extends JpaRepository<PortfolioHistoryWeeklyEntity, PortfolioHistoryRollupId> {
+    // period_start narrows the primary key scan, last_date drops a first week that closed before the range
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            SELECT w FROM PortfolioHistoryWeeklyEntity w
+            WHERE w.portfolioId = :portfolioId AND w.periodStart >= :periodStart AND w.lastDate >= :fromDate
+            ORDER BY w.periodStart ASC
+            """)
+    List<PortfolioHistoryWeeklyEntity> findFrom(@Param("portfolioId") UUID portfolioId, @Param("periodStart") LocalDate periodStart, @Param("fromDate") LocalDate fromDate);
+}
@@ -1,17 +1,25 @@
 package de.mk.portfolio.adapter.persistence;
 
+import de.mk.portfolio.domain.model.HistoryResolution;
 import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.LotMatchingMethod;
 import de.mk.portfolio.domain.model.Portfolio;
 import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.model.RealizedTrade;
 import de.mk.portfolio.domain.port.out.*;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class PortfolioPersistenceAdapter implements
@@ -20,21 +28,38 @@ public class PortfolioPersistenceAdapter implements
         LoadPortfolioHistoryPort,
         SavePortfolioPort,
         SaveHoldingPort,
-        DeleteHoldingPort {
+        UpdateHoldingPort,
+        DeleteHoldingPort,
+        SaveRealizedTradesPort,
+        LoadRealizedTradesPort {
 
     private final PortfolioRepository portfolioRepository;
     private final HoldingRepository holdingRepository;
     private final PortfolioHistoryRepository portfolioHistoryRepository;
+    private final PortfolioHistoryWeeklyRepository portfolioHistoryWeeklyRepository;
+    private final PortfolioHistoryMonthlyRepository portfolioHistoryMonthlyRepository;
+    private final RealizedTradeRepository realizedTradeRepository;
+    private final EntityManager entityManager;
 
-    public PortfolioPersistenceAdapter(PortfolioRepository portfolioRepository, HoldingRepository holdingRepository, PortfolioHistoryRepository portfolioHistoryRepository) {
+    public PortfolioPersistenceAdapter(PortfolioRepository portfolioRepository, HoldingRepository holdingRepository, PortfolioHistoryRepository portfolioHistoryRepository, PortfolioHistoryWeeklyRepository portfolioHistoryWeeklyRepository, PortfolioHistoryMonthlyRepository portfolioHistoryMonthlyRepository, RealizedTradeRepository realizedTradeRepository, EntityManager entityManager) {
         this.portfolioRepository = portfolioRepository;
         this.holdingRepository = holdingRepository;
         this.portfolioHistoryRepository = portfolioHistoryRepository;
+        this.portfolioHistoryWeeklyRepository = portfolioHistoryWeeklyRepository;
+        this.portfolioHistoryMonthlyRepository = portfolioHistoryMonthlyRepository;
+        this.realizedTradeRepository = realizedTradeRepository;
+        this.entityManager = entityManager;
     }
 
     @Override
     public Optional<Portfolio> loadPortfolio(UUID portfolioId) {
-        return portfolioRepository.findById(portfolioId).map(this::mapToDomain);
+        // Projection: neither the lazy collections nor a managed entity are needed to read the valuation
+        return portfolioRepository.findSummaryById(portfolioId).map(this::mapToDomain);
+    }
+
+    @Override
+    public Optional<Long> loadPortfolioVersion(UUID portfolioId) {
+        return portfolioRepository.findVersionById(portfolioId);
     }
 
     @Override
@@ -45,17 +70,82 @@ public class PortfolioPersistenceAdapter implements
     }
 
     @Override
-    public List<PortfolioHistory> loadPortfolioHistory(UUID portfolioId, String range) {
-        // For simplicity, range is ignored for now, returning all history
-        return portfolioHistoryRepository.findByPortfolioIdOrderByDateAsc(portfolioId).stream()
+    @Transactional(readOnly = true)
+    public void forEachHolding(UUID portfolioId, Consumer<Holding> action) {
+        try (Stream<HoldingEntity> holdings = holdingRepository.streamByPortfolioId(portfolioId)) {
+            holdings.forEach(entity -> {
+                // Keeps the persistence context from holding every lot read so far
+                entityManager.detach(entity);
+                action.accept(mapToDomain(entity));
+            });
+        }
+    }
+
+    @Override
+    public List<Holding> loadHoldings(UUID portfolioId, String symbol) {
+        return holdingRepository.findByPortfolioIdAndSymbolOrderByPurchaseDateAscIdAsc(portfolioId, symbol).stream()
                 .map(this::mapToDomain)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<PortfolioHistory> loadPortfolioHistory(UUID portfolioId, LocalDate fromDate, HistoryResolution resolution) {
+        LocalDate periodStart = resolution.periodStart(fromDate);
+        return switch (resolution) {
+            case DAILY -> portfolioHistoryRepository.findByPortfolioIdAndDateGreaterThanEqualOrderByDateAsc(portfolioId, fromDate).stream()
+                    .map(this::mapToDomain)
+                    .collect(Collectors.toList());
+            case WEEKLY -> portfolioHistoryWeeklyRepository.findFrom(portfolioId, periodStart, fromDate).stream()
+                    .map(week -> new PortfolioHistory(week.getPortfolioId(), week.getLastDate(), week.getCloseValue()))
+                    .collect(Collectors.toList());
+            case MONTHLY -> portfolioHistoryMonthlyRepository.findFrom(portfolioId, periodStart, fromDate).stream()
+                    .map(month -> new PortfolioHistory(month.getPortfolioId(), month.getLastDate(), month.getCloseValue()))
+                    .collect(Collectors.toList());
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachPortfolioHistory(UUID portfolioId, LocalDate fromDate, Consumer<PortfolioHistory> action) {
+        try (Stream<PortfolioHistoryPointView> points = portfolioHistoryRepository.streamPoints(portfolioId, fromDate)) {
+            points.forEach(point -> action.accept(new PortfolioHistory(portfolioId, point.getDate(), point.getValue())));
+        }
+    }
+
     @Override
     public Portfolio savePortfolio(Portfolio portfolio) {
-        PortfolioEntity entity = mapToEntity(portfolio);
-        return mapToDomain(portfolioRepository.save(entity));
+        if (portfolio.getVersion() == null) {
+            portfolioRepository.save(mapToEntity(portfolio));
+            return portfolio;
+        }
+        // Update in place instead of merge(), which would read the row first. The valuation is written as
+        // absolute values computed from the loaded state, so the row must still be at the loaded version.
+        int updated = portfolioRepository.updateValuation(
+                portfolio.getId(),
+                portfolio.getVersion(),
+                portfolio.getTotalValue(),
+                portfolio.getDailyChangeValue(),
+                portfolio.getDailyChangePercent(),
+                portfolio.getTotalChangeValue(),
+                portfolio.getTotalChangePercent(),
+                portfolio.getCostBasis(),
+                portfolio.getDayOpenValue());
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Portfolio " + portfolio.getId() + " changed after version " + portfolio.getVersion());
+        }
+        return Portfolio.builder()
+                .id(portfolio.getId())
+                .totalValue(portfolio.getTotalValue())
+                .dailyChangeValue(portfolio.getDailyChangeValue())
+                .dailyChangePercent(portfolio.getDailyChangePercent())
+                .totalChangeValue(portfolio.getTotalChangeValue())
+                .totalChangePercent(portfolio.getTotalChangePercent())
+                .costBasis(portfolio.getCostBasis())
+                .dayOpenValue(portfolio.getDayOpenValue())
+                .holdings(portfolio.getHoldings())
+                .history(portfolio.getHistory())
+                .version(portfolio.getVersion() + 1)
+                .build();
     }
 
     @Override
@@ -64,32 +154,60 @@ public class PortfolioPersistenceAdapter implements
         return mapToDomain(holdingRepository.save(entity));
     }
 
+    @Override
+    public void updateHolding(Holding holding) {
+        holdingRepository.updateLot(
+                holding.getId(),
+                holding.getQuantity(),
+                holding.getPurchasePrice(),
+                holding.getDailyChangeValue(),
+                holding.getDailyChangePercent(),
+                holding.getTotalChangeValue(),
+                holding.getTotalChangePercent());
+    }
+
     @Override
     public void deleteHolding(UUID holdingId) {
-        holdingRepository.deleteById(holdingId);
+        holdingRepository.deleteDirectlyById(holdingId);
+    }
+
+    @Override
+    public void saveRealizedTrades(List<RealizedTrade> trades) {
+        realizedTradeRepository.saveAll(trades.stream().map(this::mapToEntity).toList());
+    }
+
+    @Override
+    public List<RealizedTrade> loadRealizedTrades(UUID portfolioId) {
+        return realizedTradeRepository.findByPortfolioId(portfolioId).stream()
+                .map(this::mapToDomain)
+                .toList();
     }
 
     // --- Mappers ---
-    private Portfolio mapToDomain(PortfolioEntity entity) {
+    private Portfolio mapToDomain(PortfolioSummaryView view) {
         return Portfolio.builder()
-                .id(entity.getId())
-                .totalValue(entity.getTotalValue() != null ? entity.getTotalValue() : BigDecimal.ZERO)
-                .dailyChangeValue(entity.getDailyChangeValue() != null ? entity.getDailyChangeValue() : BigDecimal.ZERO)
-                .dailyChangePercent(entity.getDailyChangePercent() != null ? entity.getDailyChangePercent() : BigDecimal.ZERO)
-                .totalChangeValue(entity.getTotalChangeValue() != null ? entity.getTotalChangeValue() : BigDecimal.ZERO)
-                .totalChangePercent(entity.getTotalChangePercent() != null ? entity.getTotalChangePercent() : BigDecimal.ZERO)
-                .holdings(entity.getHoldings().stream().map(h -> mapToDomain(h)).collect(Collectors.toList()))
+                .id(view.getId())
+                .totalValue(view.getTotalValue() != null ? view.getTotalValue() : BigDecimal.ZERO)
+                .dailyChangeValue(view.getDailyChangeValue() != null ? view.getDailyChangeValue() : BigDecimal.ZERO)
+                .dailyChangePercent(view.getDailyChangePercent() != null ? view.getDailyChangePercent() : BigDecimal.ZERO)
+                .totalChangeValue(view.getTotalChangeValue() != null ? view.getTotalChangeValue() : BigDecimal.ZERO)
+                .totalChangePercent(view.getTotalChangePercent() != null ? view.getTotalChangePercent() : BigDecimal.ZERO)
+                .costBasis(view.getCostBasis() != null ? view.getCostBasis() : BigDecimal.ZERO)
+                .dayOpenValue(view.getDayOpenValue() != null ? view.getDayOpenValue() : BigDecimal.ZERO)
+                .version(view.getVersion())
                 .build();
     }
 
     private PortfolioEntity mapToEntity(Portfolio portfolio) {
-        PortfolioEntity entity = portfolioRepository.findById(portfolio.getId()).orElse(new PortfolioEntity());
+        PortfolioEntity entity = new PortfolioEntity();
         entity.setId(portfolio.getId());
         entity.setTotalValue(portfolio.getTotalValue());
         entity.setDailyChangeValue(portfolio.getDailyChangeValue());
         entity.setDailyChangePercent(portfolio.getDailyChangePercent());
         entity.setTotalChangeValue(portfolio.getTotalChangeValue());
         entity.setTotalChangePercent(portfolio.getTotalChangePercent());
+        entity.setCostBasis(portfolio.getCostBasis());
+        entity.setDayOpenValue(portfolio.getDayOpenValue());
         // The history collection is managed by Hibernate, so we don't explicitly set it here
         // when mapping from domain to entity for saving. Hibernate will handle updates
         // based on changes within the managed entity's collection.
@@ -99,6 +217,7 @@ public class PortfolioPersistenceAdapter implements
     private Holding mapToDomain(HoldingEntity entity) {
         return Holding.builder()
                 .id(entity.getId())
+                .portfolioId(entity.getPortfolio() != null ? entity.getPortfolio().getId() : null)
                 .name(entity.getName())
                 .symbol(entity.getSymbol())
                 .quantity(entity.getQuantity())
@@ -127,16 +246,42 @@ public class PortfolioPersistenceAdapter implements
         entity.setTotalChangeValue(holding.getTotalChangeValue());
         entity.setTotalChangePercent(holding.getTotalChangePercent());
         entity.setLogoUrl(holding.getLogoUrl());
-        // Set the portfolio relationship
-        PortfolioEntity portfolioEntity = new PortfolioEntity();
-        portfolioEntity.setId(holding.getPortfolioId());
-        entity.setPortfolio(portfolioEntity);
+        // Set the portfolio relationship; a reference is enough for the foreign key and does not hit the database
+        entity.setPortfolio(portfolioRepository.getReferenceById(holding.getPortfolioId()));
         return entity;
     }
 
+    private RealizedTradeEntity mapToEntity(RealizedTrade trade) {
+        return new RealizedTradeEntity(
+                trade.id(),
+                trade.portfolioId(),
+                trade.symbol(),
+                trade.quantity(),
+                trade.purchaseDate(),
+                trade.saleDate(),
+                trade.costBasis(),
+                trade.proceeds(),
+                trade.realizedGain(),
+                trade.lotMatchingMethod().name());
+    }
+
+    private RealizedTrade mapToDomain(RealizedTradeEntity entity) {
+        return new RealizedTrade(
+                entity.getId(),
+                entity.getPortfolioId(),
+                entity.getSymbol(),
+                entity.getQuantity(),
+                entity.getPurchaseDate(),
+                entity.getSaleDate(),
+                entity.getCostBasis(),
+                entity.getProceeds(),
+                entity.getRealizedGain(),
+                LotMatchingMethod.valueOf(entity.getLotMatching()));
+    }
+
     private PortfolioHistory mapToDomain(PortfolioHistoryEntity entity) {
         return PortfolioHistory.builder()
-                .id(entity.getId())
+                .portfolioId(entity.getPortfolioId())
                 .date(entity.getDate())
                 .value(entity.getValue())
                 .build();
@@ -144,7 +289,7 @@ public class PortfolioPersistenceAdapter implements
 
     private PortfolioHistoryEntity mapToEntity(PortfolioHistory history) {
         PortfolioHistoryEntity entity = new PortfolioHistoryEntity();
-        entity.setId(history.getId());
+        entity.setPortfolioId(history.getPortfolioId());
         entity.setDate(history.getDate());
         entity.setValue(history.getValue());
         // Portfolio relationship needs to be set if available
@@ -1,8 +1,42 @@
 package de.mk.portfolio.adapter.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface PortfolioRepository extends JpaRepository<PortfolioEntity, UUID> {
+    Optional<PortfolioSummaryView> findSummaryById(UUID id);
+
+    @Query("select p.version from PortfolioEntity p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update PortfolioEntity p set
+                p.totalValue = :totalValue,
+                p.dailyChangeValue = :dailyChangeValue,
+                p.dailyChangePercent = :dailyChangePercent,
+                p.totalChangeValue = :totalChangeValue,
+                p.totalChangePercent = :totalChangePercent,
+                p.costBasis = :costBasis,
+                p.dayOpenValue = :dayOpenValue,
+                p.version = p.version + 1
+            where p.id = :id and p.version = :version
+            """)
+    int updateValuation(@Param("id") UUID id,
+                        @Param("version") long version,
+                        @Param("totalValue") BigDecimal totalValue,
+                        @Param("dailyChangeValue") BigDecimal dailyChangeValue,
+                        @Param("dailyChangePercent") BigDecimal dailyChangePercent,
+                        @Param("totalChangeValue") BigDecimal totalChangeValue,
+                        @Param("totalChangePercent") BigDecimal totalChangePercent,
+                        @Param("costBasis") BigDecimal costBasis,
+                        @Param("dayOpenValue") BigDecimal dayOpenValue);
 }
@@ -0,0 +1,27 @@
+package de.mk.portfolio.adapter.persistence;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the portfolio row without its collections.
+ */
+public interface PortfolioSummaryView {
+    UUID getId();
+
+    BigDecimal getTotalValue();
+
+    BigDecimal getDailyChangeValue();
+
+    BigDecimal getDailyChangePercent();
+
+    BigDecimal getTotalChangeValue();
+
+    BigDecimal getTotalChangePercent();
+
+    BigDecimal getCostBasis();
+
+    BigDecimal getDayOpenValue();
+
+    long getVersion();
+}
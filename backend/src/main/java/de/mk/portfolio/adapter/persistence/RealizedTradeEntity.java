@@ -0,0 +1,99 @@
+package de.mk.portfolio.adapter.persistence;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "realized_trade")
+public class RealizedTradeEntity implements Persistable<UUID> {
+    @Id
+    private UUID id;
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+    private String symbol;
+    private Integer quantity;
+    @Column(name = "purchase_date")
+    private LocalDate purchaseDate;
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+    private BigDecimal costBasis;
+    private BigDecimal proceeds;
+    private BigDecimal realizedGain;
+    private String lotMatching;
+
+    // IDs are assigned by the application, so save() cannot tell new rows apart without this flag
+    @Transient
+    private boolean isNew = true;
+
+    public RealizedTradeEntity() {
+    }
+
+    public RealizedTradeEntity(UUID id, UUID portfolioId, String symbol, Integer quantity, LocalDate purchaseDate, LocalDate saleDate, BigDecimal costBasis, BigDecimal proceeds, BigDecimal realizedGain, String lotMatching) {
+        this.id = id;
+        this.portfolioId = portfolioId;
+        this.symbol = symbol;
+        this.quantity = quantity;
+        this.purchaseDate = purchaseDate;
+        this.saleDate = saleDate;
+        this.costBasis = costBasis;
+        this.proceeds = proceeds;
+        this.realizedGain = realizedGain;
+        this.lotMatching = lotMatching;
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public LocalDate getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public LocalDate getSaleDate() {
+        return saleDate;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getProceeds() {
+        return proceeds;
+    }
+
+    public BigDecimal getRealizedGain() {
+        return realizedGain;
+    }
+
+    public String getLotMatching() {
+        return lotMatching;
+    }
+}
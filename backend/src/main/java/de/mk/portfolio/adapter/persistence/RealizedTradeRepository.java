@@ -0,0 +1,10 @@
+package de.mk.portfolio.adapter.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RealizedTradeRepository extends JpaRepository<RealizedTradeEntity, UUID> {
+    List<RealizedTradeEntity> findByPortfolioId(UUID portfolioId);
+}
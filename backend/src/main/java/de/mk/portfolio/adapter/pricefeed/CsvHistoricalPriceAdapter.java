@@ -0,0 +1,78 @@
+package de.mk.portfolio.adapter.pricefeed;
+
+import de.mk.portfolio.domain.model.ClosingPrice;
+import de.mk.portfolio.domain.port.out.HistoricalPricePort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads daily closes from a local CSV file with lines of the form {@code date,symbol,close}
+ * (ISO-8601 date, e.g. {@code 2024-03-01,AAPL,179.66}). The file need not be sorted; only the
+ * requested symbols and dates are kept in memory.
+ */
+@Component
+public class CsvHistoricalPriceAdapter implements HistoricalPricePort {
+
+    private static final Logger logger = LogManager.getLogger(CsvHistoricalPriceAdapter.class);
+
+    private final String priceFile;
+
+    public CsvHistoricalPriceAdapter(@Value("${portfolio.backfill.price-file:}") String priceFile) {
+        this.priceFile = priceFile;
+    }
+
+    @Override
+    public List<ClosingPrice> loadClosingPrices(Set<String> symbols, LocalDate fromDate, LocalDate toDate) {
+        if (priceFile.isBlank()) {
+            logger.warn("No historical price file configured (portfolio.backfill.price-file), no closes to backfill from");
+            return List.of();
+        }
+        List<ClosingPrice> closes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(priceFile), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ClosingPrice close = parse(line);
+                if (close != null && symbols.contains(close.symbol())
+                        && !close.date().isBefore(fromDate) && !close.date().isAfter(toDate)) {
+                    closes.add(close);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read historical prices from " + priceFile, e);
+        }
+        closes.sort(Comparator.comparing(ClosingPrice::date));
+        return closes;
+    }
+
+    private ClosingPrice parse(String line) {
+        if (line.isBlank() || line.startsWith("#") || line.startsWith("date")) {
+            return null;
+        }
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            logger.warn("Skipping malformed closing price line: {}", line);
+            return null;
+        }
+        try {
+            return new ClosingPrice(fields[1].trim(), LocalDate.parse(fields[0].trim()), new BigDecimal(fields[2].trim()));
+        } catch (RuntimeException e) {
+            logger.warn("Skipping malformed closing price line: {}", line);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.mk.portfolio.adapter.pricefeed;
+
+import de.mk.portfolio.domain.model.PriceTick;
+import de.mk.portfolio.domain.port.out.PriceFeedPort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Replays ticks from a local CSV file with lines of the form {@code timestamp,symbol,price}
+ * (ISO-8601 instant, e.g. {@code 2024-03-01T14:30:00Z,AAPL,179.66}), so the pipeline runs offline.
+ */
+@Component
+@ConditionalOnProperty("portfolio.price-feed.replay-file")
+public class CsvReplayPriceFeedAdapter implements PriceFeedPort {
+
+    private static final Logger logger = LogManager.getLogger(CsvReplayPriceFeedAdapter.class);
+
+    private final Path replayFile;
+    private final int ticksPerSecond;
+    private final boolean loop;
+
+    private volatile Thread replayThread;
+
+    public CsvReplayPriceFeedAdapter(@Value("${portfolio.price-feed.replay-file}") Path replayFile,
+                                     @Value("${portfolio.price-feed.replay-ticks-per-second:0}") int ticksPerSecond,
+                                     @Value("${portfolio.price-feed.replay-loop:false}") boolean loop) {
+        this.replayFile = replayFile;
+        this.ticksPerSecond = ticksPerSecond;
+        this.loop = loop;
+    }
+
+    @Override
+    public synchronized void start(Consumer<PriceTick> listener) {
+        if (replayThread != null) {
+            throw new IllegalStateException("Price feed replay already started");
+        }
+        replayThread = Thread.ofPlatform()
+                .name("price-feed-replay")
+                .daemon()
+                .start(() -> replay(listener));
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (replayThread != null) {
+            replayThread.interrupt();
+            replayThread = null;
+        }
+    }
+
+    private void replay(Consumer<PriceTick> listener) {
+        // 0 means as fast as the file can be read
+        long nanosPerTick = ticksPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ticksPerSecond : 0;
+        long replayed = 0;
+        do {
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                long nextTickAt = System.nanoTime();
+                String line;
+                while ((line = reader.readLine()) != null && !Thread.currentThread().isInterrupted()) {
+                    PriceTick tick = parse(line);
+                    if (tick == null) {
+                        continue;
+                    }
+                    if (nanosPerTick > 0) {
+                        nextTickAt += nanosPerTick;
+                        long waitNanos = nextTickAt - System.nanoTime();
+                        if (waitNanos > 0) {
+                            LockSupport.parkNanos(waitNanos);
+                        }
+                    }
+                    listener.accept(tick);
+                    replayed++;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to replay price feed from {}", replayFile, e);
+                return;
+            }
+        } while (loop && !Thread.currentThread().isInterrupted());
+        logger.info("Replayed {} price ticks from {}", replayed, replayFile);
+    }
+
+    private PriceTick parse(String line) {
+        if (line.isBlank() || line.startsWith("#") || line.startsWith("timestamp")) {
+            return null;
+        }
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            logger.warn("Skipping malformed price tick line: {}", line);
+            return null;
+        }
+        try {
+            return new PriceTick(fields[1].trim(), new BigDecimal(fields[2].trim()), Instant.parse(fields[0].trim()));
+        } catch (RuntimeException e) {
+            logger.warn("Skipping malformed price tick line: {}", line);
+            return null;
+        }
+    }
+}
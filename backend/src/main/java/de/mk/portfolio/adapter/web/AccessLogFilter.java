@@ -0,0 +1,74 @@
+package de.mk.portfolio.adapter.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Structured access log: one record (method, path, status, duration) per sampled request on the
+ * {@code access} logger, which log4j2.xml writes as JSON lines. Requests are sampled at the configured
+ * rate; server errors and slow requests are always logged. Each record carries the rate, so counts can
+ * be scaled back up.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger accessLog = LogManager.getLogger("access");
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(@Value("${portfolio.access-log.sample-rate:0.1}") double sampleRate,
+                           @Value("${portfolio.access-log.slow-threshold:PT1S}") Duration slowThreshold) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Access log sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            log(request.getMethod(), request.getRequestURI(), status, System.nanoTime() - start);
+        }
+    }
+
+    void log(String method, String path, int status, long durationNanos) {
+        if (!accessLog.isInfoEnabled()) {
+            return;
+        }
+        boolean always = status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR || durationNanos >= slowThresholdNanos;
+        if (!always && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        accessLog.info(new StringMapMessage(6)
+                .with("time", Instant.now().toString())
+                .with("method", method)
+                .with("path", path)
+                .with("status", status)
+                .with("durationMs", durationNanos / 1_000_000.0)
+                .with("sampleRate", always ? 1.0 : sampleRate));
+    }
+}
@@ -0,0 +1,103 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads {@code symbol,quantity,purchasePrice,purchaseDate} lines; a header line is optional.
+ */
+class CsvTradeReader implements TradeReader {
+
+    private final BufferedReader reader;
+    private final int maxErrors;
+    private final List<String> errors = new ArrayList<>();
+    private int skipped;
+    private long lineNumber;
+    private Trade next;
+
+    CsvTradeReader(BufferedReader reader, int maxErrors) {
+        this.reader = reader;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.toLowerCase(Locale.ROOT).startsWith("symbol"))) {
+                    continue;
+                }
+                next = parse(line);
+                if (next != null) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Trade next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Trade trade = next;
+        next = null;
+        return trade;
+    }
+
+    @Override
+    public List<String> errors() {
+        return errors;
+    }
+
+    @Override
+    public int skipped() {
+        return skipped;
+    }
+
+    private Trade parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 4) {
+            return reject("expected 4 fields but found " + fields.length);
+        }
+        try {
+            return new Trade(position(), new AddStockCommand(
+                    fields[0].trim(),
+                    new BigDecimal(fields[1].trim()),
+                    new BigDecimal(fields[2].trim()),
+                    LocalDate.parse(fields[3].trim())));
+        } catch (RuntimeException e) {
+            return reject(e.getMessage());
+        }
+    }
+
+    private Trade reject(String reason) {
+        skipped++;
+        if (errors.size() < maxErrors) {
+            errors.add(position() + ": " + reason);
+        }
+        return null;
+    }
+
+    private String position() {
+        return "Line " + lineNumber;
+    }
+}
@@ -0,0 +1,166 @@
+package de.mk.portfolio.adapter.web;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A request whose body was read up front to take its SHA-256 hash, and is then served again to the
+ * handler. Bodies up to {@code memoryLimit} bytes are kept in memory; a larger one, e.g. a trade
+ * import, is spooled to a temporary file so it is still not held in memory. Closing the request
+ * deletes the file.
+ */
+final class DigestedRequest extends HttpServletRequestWrapper implements Closeable {
+
+    private final byte[] body;
+    private final Path spool;
+    private final String digest;
+    private BodyInputStream inputStream;
+    private BufferedReader reader;
+
+    private DigestedRequest(HttpServletRequest request, byte[] body, Path spool, String digest) {
+        super(request);
+        this.body = body;
+        this.spool = spool;
+        this.digest = digest;
+    }
+
+    static DigestedRequest read(HttpServletRequest request, int memoryLimit) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Path spool = null;
+        OutputStream target = buffer;
+        try (InputStream in = request.getInputStream()) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                sha256.update(chunk, 0, read);
+                if (spool == null && buffer.size() + read > memoryLimit) {
+                    spool = Files.createTempFile("request-body-", ".tmp");
+                    target = Files.newOutputStream(spool);
+                    buffer.writeTo(target);
+                    buffer = null;
+                }
+                target.write(chunk, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (spool != null) {
+                target.close();
+                Files.deleteIfExists(spool);
+            }
+            throw e;
+        }
+        if (spool != null) {
+            target.close();
+        }
+        return new DigestedRequest(request, buffer != null ? buffer.toByteArray() : null, spool,
+                HexFormat.of().formatHex(sha256.digest()));
+    }
+
+    /**
+     * Hex encoded SHA-256 of the body.
+     */
+    String digest() {
+        return digest;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() was already called on this request");
+        }
+        if (inputStream == null) {
+            inputStream = new BodyInputStream(spool != null ? Files.newInputStream(spool) : new ByteArrayInputStream(body));
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } finally {
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private boolean finished;
+
+        BodyInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("The request body is read synchronously");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.port.in.BackfillPortfolioHistoryUseCase;
+import de.mk.portfolio.domain.port.in.BackfillPortfolioHistoryUseCase.BackfillResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Rebuilds the history of a portfolio on demand, e.g. after a historical price file was added.
+ */
+@RestController
+@RequestMapping("/api/portfolio/{portfolioId}/history/backfill")
+public class HistoryBackfillController {
+
+    private static final Logger logger = LogManager.getLogger(HistoryBackfillController.class);
+
+    private final BackfillPortfolioHistoryUseCase backfillPortfolioHistoryUseCase;
+
+    public HistoryBackfillController(BackfillPortfolioHistoryUseCase backfillPortfolioHistoryUseCase) {
+        this.backfillPortfolioHistoryUseCase = backfillPortfolioHistoryUseCase;
+    }
+
+    @PostMapping
+    public ResponseEntity<BackfillResponse> backfill(@PathVariable UUID portfolioId,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        logger.info("Backfilling history of portfolio {} from {}", portfolioId, from);
+        BackfillResult result = backfillPortfolioHistoryUseCase.backfill(portfolioId, from);
+        return ResponseEntity.ok(new BackfillResponse(result.fromDate(), result.toDate(), result.points()));
+    }
+
+    record BackfillResponse(LocalDate fromDate, LocalDate toDate, int points) {}
+}
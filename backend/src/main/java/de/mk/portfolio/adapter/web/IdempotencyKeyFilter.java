@@ -0,0 +1,116 @@
+package de.mk.portfolio.adapter.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.mk.portfolio.domain.model.IdempotentResponse;
+import de.mk.portfolio.domain.port.in.HandleIdempotentRequestUseCase;
+import de.mk.portfolio.domain.port.in.HandleIdempotentRequestUseCase.Claim;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Makes POST and DELETE requests with an {@code Idempotency-Key} header safe to retry: the first
+ * request with a key runs and its response is recorded, later requests with the key get that response
+ * replayed (marked with {@code Idempotent-Replayed: true}). A retry that arrives while the first
+ * request is still running gets 409; a key reused for a different request, i.e. another method, target
+ * or body, gets 422. The body is compared by its hash, and a large one is spooled to a temporary file
+ * to take it. Server errors are not recorded, so the request can be retried with the same key.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyKeyFilter.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int BODY_MEMORY_LIMIT = 64 * 1024;
+
+    private final HandleIdempotentRequestUseCase handleIdempotentRequestUseCase;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyKeyFilter(HandleIdempotentRequestUseCase handleIdempotentRequestUseCase, ObjectMapper objectMapper) {
+        this.handleIdempotentRequestUseCase = handleIdempotentRequestUseCase;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY) == null
+                || !(HttpMethod.POST.matches(request.getMethod()) || HttpMethod.DELETE.matches(request.getMethod()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            sendError(response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        try (DigestedRequest digested = DigestedRequest.read(request, BODY_MEMORY_LIMIT)) {
+            switch (handleIdempotentRequestUseCase.claim(key, fingerprint(digested))) {
+                case Claim.Acquired acquired -> runAndRecord(key, digested, response, filterChain);
+                case Claim.Completed completed -> replay(completed.response(), response);
+                case Claim.InProgress inProgress ->
+                        sendError(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY + " is still in progress");
+                case Claim.Mismatch mismatch ->
+                        sendError(response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY + " was already used for a different request");
+            }
+        }
+    }
+
+    private void runAndRecord(String key, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, recorded);
+        } catch (ServletException | IOException | RuntimeException e) {
+            handleIdempotentRequestUseCase.release(key);
+            throw e;
+        }
+        if (recorded.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            handleIdempotentRequestUseCase.release(key);
+        } else {
+            handleIdempotentRequestUseCase.complete(key,
+                    new IdempotentResponse(recorded.getStatus(), recorded.getContentType(), recorded.getContentAsByteArray()));
+        }
+        recorded.copyBodyToResponse();
+    }
+
+    private static void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        logger.debug("Replaying recorded response with status {}", stored.status());
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void sendError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new RestExceptionHandler.ErrorResponse(message));
+    }
+
+    private static String fingerprint(DigestedRequest request) {
+        String query = request.getQueryString();
+        return request.getMethod() + " " + request.getRequestURI() + (query != null ? "?" + query : "")
+                + " sha256=" + request.digest();
+    }
+}
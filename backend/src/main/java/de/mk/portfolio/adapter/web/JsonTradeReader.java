@@ -0,0 +1,115 @@
+package de.mk.portfolio.adapter.web;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a JSON array of trade objects one element at a time. An element that is well-formed JSON but
+ * not a trade is skipped. A syntax error ends the reading, since the stream cannot be resynchronised
+ * after it; the trades before it are still imported and the error is reported with them.
+ */
+class JsonTradeReader implements TradeReader {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final int maxErrors;
+    private final List<String> errors = new ArrayList<>();
+    private int skipped;
+    private long elementNumber;
+    private Trade next;
+    private boolean finished;
+
+    JsonTradeReader(ObjectMapper objectMapper, InputStream body, int maxErrors) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(body);
+        this.maxErrors = maxErrors;
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Expected a JSON array of trades");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        while (!finished) {
+            JsonNode element;
+            try {
+                elementNumber++;
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY || token == null) {
+                    finished = true;
+                    return false;
+                }
+                element = objectMapper.readTree(parser);
+            } catch (JsonProcessingException e) {
+                return malformed(parser.currentLocation());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                next = new Trade(position(), objectMapper.treeToValue(element, AddStockCommand.class));
+                return true;
+            } catch (JsonProcessingException e) {
+                reject(e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Trade next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Trade trade = next;
+        next = null;
+        return trade;
+    }
+
+    @Override
+    public List<String> errors() {
+        return errors;
+    }
+
+    @Override
+    public int skipped() {
+        return skipped;
+    }
+
+    private boolean malformed(JsonLocation location) {
+        finished = true;
+        skipped++;
+        // Reported even past the error limit: it is the only hint that the rest of the file was not read
+        errors.add(position() + ": malformed JSON at line " + location.getLineNr() + ", column " + location.getColumnNr()
+                + "; the trades after it were not read");
+        return false;
+    }
+
+    private void reject(String reason) {
+        skipped++;
+        if (errors.size() < maxErrors) {
+            errors.add(position() + ": " + reason);
+        }
+    }
+
+    private String position() {
+        return "Trade " + elementNumber;
+    }
+}
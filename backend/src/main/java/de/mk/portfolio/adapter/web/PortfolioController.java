@@ -1,22 +1,42 @@
 package de.mk.portfolio.adapter.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.mk.portfolio.domain.model.Dashboard;
+import de.mk.portfolio.domain.model.HistoryRange;
 import de.mk.portfolio.domain.model.Holding;
 import de.mk.portfolio.domain.model.Portfolio;
 import de.mk.portfolio.domain.model.PortfolioHistory;
 import de.mk.portfolio.domain.port.in.AddStockUseCase;
+import de.mk.portfolio.domain.port.in.CreatePortfolioUseCase;
+import de.mk.portfolio.domain.port.in.GetDashboardUseCase;
 import de.mk.portfolio.domain.port.in.GetHoldingsUseCase;
 import de.mk.portfolio.domain.port.in.GetPortfolioHistoryUseCase;
 import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioVersionUseCase;
 import de.mk.portfolio.domain.port.in.SellStockUseCase;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,60 +45,234 @@ public class PortfolioController {
 
     private static final Logger logger = LogManager.getLogger(PortfolioController.class);
 
+    private final CreatePortfolioUseCase createPortfolioUseCase;
     private final GetPortfolioUseCase getPortfolioUseCase;
     private final GetHoldingsUseCase getHoldingsUseCase;
     private final GetPortfolioHistoryUseCase getPortfolioHistoryUseCase;
     private final AddStockUseCase addStockUseCase;
     private final SellStockUseCase sellStockUseCase;
+    private final GetDashboardUseCase getDashboardUseCase;
+    private final GetPortfolioVersionUseCase getPortfolioVersionUseCase;
+    private final RenderedResponseCache renderedResponseCache;
+    private final ObjectMapper objectMapper;
 
-    // For simplicity, we'll use a fixed portfolio ID for now
-    private final UUID FIXED_PORTFOLIO_ID = UUID.fromString("a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11");
-
-    public PortfolioController(GetPortfolioUseCase getPortfolioUseCase, GetHoldingsUseCase getHoldingsUseCase, GetPortfolioHistoryUseCase getPortfolioHistoryUseCase, AddStockUseCase addStockUseCase, SellStockUseCase sellStockUseCase) {
+    public PortfolioController(CreatePortfolioUseCase createPortfolioUseCase, GetPortfolioUseCase getPortfolioUseCase, GetHoldingsUseCase getHoldingsUseCase, GetPortfolioHistoryUseCase getPortfolioHistoryUseCase, AddStockUseCase addStockUseCase, SellStockUseCase sellStockUseCase, GetDashboardUseCase getDashboardUseCase, GetPortfolioVersionUseCase getPortfolioVersionUseCase, RenderedResponseCache renderedResponseCache, ObjectMapper objectMapper) {
+        this.createPortfolioUseCase = createPortfolioUseCase;
         this.getPortfolioUseCase = getPortfolioUseCase;
         this.getHoldingsUseCase = getHoldingsUseCase;
         this.getPortfolioHistoryUseCase = getPortfolioHistoryUseCase;
         this.addStockUseCase = addStockUseCase;
         this.sellStockUseCase = sellStockUseCase;
+        this.getDashboardUseCase = getDashboardUseCase;
+        this.getPortfolioVersionUseCase = getPortfolioVersionUseCase;
+        this.renderedResponseCache = renderedResponseCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping
+    public ResponseEntity<PortfolioResponse> createPortfolio() {
+        Portfolio portfolio = createPortfolioUseCase.createPortfolio();
+        logger.info("Created portfolio {}", portfolio.getId());
+        return ResponseEntity.created(URI.create("/api/portfolio/" + portfolio.getId()))
+                .body(mapToPortfolioResponse(portfolio));
+    }
+
+    @GetMapping("/{portfolioId}")
+    public ResponseEntity<byte[]> getPortfolio(@PathVariable UUID portfolioId, WebRequest request) {
+        logger.debug("Getting portfolio {}", portfolioId);
+        long version = getPortfolioVersionUseCase.getPortfolioVersion(portfolioId);
+        if (request.checkNotModified(versionTag(version))) {
+            return null;
+        }
+        return rendered(portfolioId, version, "portfolio",
+                () -> mapToPortfolioResponse(getPortfolioUseCase.getPortfolio(portfolioId)));
+    }
+
+    @GetMapping("/{portfolioId}/holdings")
+    public ResponseEntity<byte[]> getHoldings(@PathVariable UUID portfolioId, WebRequest request) {
+        logger.debug("Getting holdings of portfolio {}", portfolioId);
+        long version = getPortfolioVersionUseCase.getPortfolioVersion(portfolioId);
+        if (request.checkNotModified(versionTag(version))) {
+            return null;
+        }
+        return rendered(portfolioId, version, "holdings", () -> getHoldingsUseCase.getHoldings(portfolioId).stream()
+                .map(PortfolioController::mapToHoldingResponse)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/{portfolioId}/history")
+    public ResponseEntity<byte[]> getPortfolioHistory(@PathVariable UUID portfolioId,
+                                                      @RequestParam(defaultValue = "1M") String range,
+                                                      @RequestParam(required = false) Integer maxPoints,
+                                                      @RequestParam(defaultValue = "rows") String format,
+                                                      WebRequest request) {
+        logger.debug("Getting history of portfolio {} with range: {} and maxPoints: {}", portfolioId, range, maxPoints);
+        HistoryRange historyRange = HistoryRange.fromCode(range);
+        boolean columnar = isColumnar(format);
+        long version = getPortfolioVersionUseCase.getPortfolioVersion(portfolioId);
+        if (request.checkNotModified(datedVersionTag(version))) {
+            return null;
+        }
+        return rendered(portfolioId, version, datedView(columnar ? "history-columnar" : "history", historyRange, maxPoints), () -> {
+            List<PortfolioHistory> history = getPortfolioHistoryUseCase.getPortfolioHistory(portfolioId, historyRange, maxPoints);
+            return columnar
+                    ? mapToPortfolioHistoryColumns(history)
+                    : history.stream().map(PortfolioController::mapToPortfolioHistoryResponse).collect(Collectors.toList());
+        });
     }
 
-    @GetMapping
-    public ResponseEntity<PortfolioResponse> getPortfolio() {
-        logger.info("Getting portfolio");
-        Portfolio portfolio = getPortfolioUseCase.getPortfolio();
-        return ResponseEntity.ok(mapToPortfolioResponse(portfolio));
+    @GetMapping("/{portfolioId}/dashboard")
+    public ResponseEntity<byte[]> getDashboard(@PathVariable UUID portfolioId,
+                                               @RequestParam(defaultValue = "1M") String range,
+                                               @RequestParam(required = false) Integer maxPoints,
+                                               WebRequest request) {
+        logger.debug("Getting dashboard of portfolio {} with range: {} and maxPoints: {}", portfolioId, range, maxPoints);
+        HistoryRange historyRange = HistoryRange.fromCode(range);
+        long version = getPortfolioVersionUseCase.getPortfolioVersion(portfolioId);
+        if (request.checkNotModified(datedVersionTag(version))) {
+            return null;
+        }
+        return rendered(portfolioId, version, datedView("dashboard", historyRange, maxPoints), () -> {
+            Dashboard dashboard = getDashboardUseCase.getDashboard(portfolioId, historyRange, maxPoints);
+            return new DashboardResponse(
+                    mapToPortfolioResponse(dashboard.portfolio()),
+                    dashboard.holdings().stream().map(PortfolioController::mapToHoldingResponse).collect(Collectors.toList()),
+                    dashboard.history().stream().map(PortfolioController::mapToPortfolioHistoryResponse).collect(Collectors.toList()));
+        });
     }
 
-    @GetMapping("/holdings")
-    public ResponseEntity<List<HoldingResponse>> getHoldings() {
-        logger.info("Getting holdings");
-        List<Holding> holdings = getHoldingsUseCase.getHoldings(FIXED_PORTFOLIO_ID);
-        return ResponseEntity.ok(holdings.stream().map(this::mapToHoldingResponse).collect(Collectors.toList()));
+    @GetMapping(value = "/{portfolioId}/holdings", params = "stream=true")
+    public void streamHoldings(@PathVariable UUID portfolioId, WebRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("Streaming holdings of portfolio {}", portfolioId);
+        if (request.checkNotModified(versionTag(getPortfolioVersionUseCase.getPortfolioVersion(portfolioId)))) {
+            return;
+        }
+        try (JsonGenerator json = startStream(response)) {
+            json.writeStartArray();
+            writeEach(consumer -> getHoldingsUseCase.forEachHolding(portfolioId, consumer),
+                    (Holding holding) -> json.writeObject(mapToHoldingResponse(holding)));
+            json.writeEndArray();
+        }
     }
 
-    @GetMapping("/history")
-    public ResponseEntity<List<PortfolioHistoryResponse>> getPortfolioHistory(@RequestParam(defaultValue = "1M") String range) {
-        logger.info("Getting portfolio history with range: {}", range);
-        List<PortfolioHistory> history = getPortfolioHistoryUseCase.getPortfolioHistory(FIXED_PORTFOLIO_ID, range);
-        return ResponseEntity.ok(history.stream().map(this::mapToPortfolioHistoryResponse).collect(Collectors.toList()));
+    @GetMapping(value = "/{portfolioId}/history", params = "stream=true")
+    public void streamPortfolioHistory(@PathVariable UUID portfolioId,
+                                       @RequestParam(defaultValue = "1M") String range,
+                                       @RequestParam(required = false) Integer maxPoints,
+                                       @RequestParam(defaultValue = "rows") String format,
+                                       WebRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("Streaming history of portfolio {} with range: {}", portfolioId, range);
+        if (maxPoints != null) {
+            throw new IllegalArgumentException("maxPoints needs the whole series and cannot be streamed");
+        }
+        // The values column follows all dates, so it would have to be held or read a second time
+        if (isColumnar(format)) {
+            throw new IllegalArgumentException("The columnar format cannot be streamed; use format=rows or drop stream=true");
+        }
+        HistoryRange historyRange = HistoryRange.fromCode(range);
+        if (request.checkNotModified(datedVersionTag(getPortfolioVersionUseCase.getPortfolioVersion(portfolioId)))) {
+            return;
+        }
+        try (JsonGenerator json = startStream(response)) {
+            json.writeStartArray();
+            writeEach(consumer -> getPortfolioHistoryUseCase.forEachPortfolioHistory(portfolioId, historyRange, consumer),
+                    (PortfolioHistory point) -> json.writeObject(mapToPortfolioHistoryResponse(point)));
+            json.writeEndArray();
+        }
     }
 
-    @PostMapping("/holdings")
-    public ResponseEntity<HoldingResponse> addStock(@RequestBody AddStockUseCase.AddStockCommand request) {
-        logger.info("Adding stock: {}", request.symbol());
-        Holding holding = addStockUseCase.addStock(request);
+    @PostMapping("/{portfolioId}/holdings")
+    public ResponseEntity<HoldingResponse> addStock(@PathVariable UUID portfolioId, @RequestBody AddStockUseCase.AddStockCommand request) {
+        logger.debug("Adding stock {} to portfolio {}", request.symbol(), portfolioId);
+        Holding holding = addStockUseCase.addStock(portfolioId, request);
         return ResponseEntity.ok(mapToHoldingResponse(holding));
     }
 
-    @DeleteMapping("/holdings/{symbol}")
-    public ResponseEntity<Void> sellStock(@PathVariable String symbol, @RequestParam int quantity) {
-        logger.info("Selling stock: {} with quantity: {}", symbol, quantity);
-        sellStockUseCase.sellStock(FIXED_PORTFOLIO_ID, symbol, quantity);
+    @DeleteMapping("/{portfolioId}/holdings/{symbol}")
+    public ResponseEntity<Void> sellStock(@PathVariable UUID portfolioId, @PathVariable String symbol, @RequestParam int quantity) {
+        logger.debug("Selling stock {} with quantity {} from portfolio {}", symbol, quantity, portfolioId);
+        sellStockUseCase.sellStock(portfolioId, symbol, quantity);
         return ResponseEntity.noContent().build();
     }
 
+    // --- ETags ---
+    // The version is read before the data, so a concurrent write can only leave the tag older than the
+    // body (the next request then gets a 200), never newer. Live prices reach the version with the next
+    // price flush.
+    private static String versionTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // History ranges end today, so their content also moves with the date
+    private static String datedVersionTag(long version) {
+        return "\"" + version + "-" + LocalDate.now() + "\"";
+    }
+
+    // --- Rendered responses ---
+    // Bodies are cached under the version read for the ETag; for the same reason as above, a cached body
+    // can only be newer than its version.
+    private ResponseEntity<byte[]> rendered(UUID portfolioId, long version, String view, Supplier<?> response) {
+        byte[] body = renderedResponseCache.get(portfolioId, version, view);
+        if (body == null) {
+            try {
+                body = objectMapper.writeValueAsBytes(response.get());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not render " + view + " of portfolio " + portfolioId, e);
+            }
+            renderedResponseCache.put(portfolioId, version, view, body);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static String datedView(String view, HistoryRange range, Integer maxPoints) {
+        return view + "?" + range + "&" + maxPoints + "@" + LocalDate.now();
+    }
+
+    // --- Streamed responses ---
+    // Written on the request thread while the rows are read, so the replica routing of the request applies
+    // and no more than one fetch of rows and the response buffer are held. Not cached; the ETag still applies.
+    private JsonGenerator startStream(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        JsonGenerator json = objectMapper.createGenerator(response.getOutputStream());
+        // A failure after the first flushed bytes cannot change the status; the body must then stay
+        // incomplete, rather than being closed into valid JSON that looks like the whole series
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return json;
+    }
+
+    private static <T> void writeEach(Consumer<Consumer<T>> source, JsonWriter<T> writer) throws IOException {
+        try {
+            source.accept(element -> {
+                try {
+                    writer.write(element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter<T> {
+        void write(T element) throws IOException;
+    }
+
+    private static boolean isColumnar(String format) {
+        return switch (format.toLowerCase(Locale.ROOT)) {
+            case "rows" -> false;
+            case "columnar" -> true;
+            default -> throw new IllegalArgumentException("Unknown history format: " + format);
+        };
+    }
+
     // --- Mappers to DTOs ---
-    private PortfolioResponse mapToPortfolioResponse(Portfolio portfolio) {
+    static PortfolioResponse mapToPortfolioResponse(Portfolio portfolio) {
         return new PortfolioResponse(
                 portfolio.getId(),
                 portfolio.getTotalValue(),
@@ -89,7 +283,7 @@ public class PortfolioController {
         );
     }
 
-    private HoldingResponse mapToHoldingResponse(Holding holding) {
+    static HoldingResponse mapToHoldingResponse(Holding holding) {
         return new HoldingResponse(
                 holding.getId(),
                 holding.getName(),
@@ -106,13 +300,23 @@ public class PortfolioController {
         );
     }
 
-    private PortfolioHistoryResponse mapToPortfolioHistoryResponse(PortfolioHistory history) {
+    static PortfolioHistoryResponse mapToPortfolioHistoryResponse(PortfolioHistory history) {
         return new PortfolioHistoryResponse(
                 history.getDate(),
                 history.getValue()
         );
     }
 
+    static PortfolioHistoryColumnsResponse mapToPortfolioHistoryColumns(List<PortfolioHistory> history) {
+        List<LocalDate> dates = new ArrayList<>(history.size());
+        List<BigDecimal> values = new ArrayList<>(history.size());
+        for (PortfolioHistory point : history) {
+            dates.add(point.getDate());
+            values.add(point.getValue());
+        }
+        return new PortfolioHistoryColumnsResponse(dates, values);
+    }
+
     // --- DTOs ---
     record PortfolioResponse(
             UUID id,
@@ -142,4 +346,16 @@ public class PortfolioController {
             LocalDate date,
             BigDecimal value
     ) {}
+
+    // History as two parallel arrays, which spares the field names of every point
+    record PortfolioHistoryColumnsResponse(
+            List<LocalDate> dates,
+            List<BigDecimal> values
+    ) {}
+
+    record DashboardResponse(
+            PortfolioResponse portfolio,
+            List<HoldingResponse> holdings,
+            List<PortfolioHistoryResponse> history
+    ) {}
 }
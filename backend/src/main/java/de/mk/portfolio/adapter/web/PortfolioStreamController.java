@@ -0,0 +1,77 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.model.PortfolioUpdate;
+import de.mk.portfolio.domain.port.in.SubscribePortfolioUpdatesUseCase;
+import de.mk.portfolio.domain.port.in.SubscribePortfolioUpdatesUseCase.Subscription;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Live portfolio updates as server-sent events: a {@code snapshot} event with the full state first,
+ * then {@code delta} events with the changed holdings and portfolio values.
+ */
+@RestController
+@RequestMapping("/api/portfolio")
+public class PortfolioStreamController {
+
+    private static final Logger logger = LogManager.getLogger(PortfolioStreamController.class);
+
+    private final SubscribePortfolioUpdatesUseCase subscribePortfolioUpdatesUseCase;
+    private final Duration streamTimeout;
+
+    public PortfolioStreamController(SubscribePortfolioUpdatesUseCase subscribePortfolioUpdatesUseCase,
+                                     @Value("${portfolio.stream.timeout:PT30M}") Duration streamTimeout) {
+        this.subscribePortfolioUpdatesUseCase = subscribePortfolioUpdatesUseCase;
+        this.streamTimeout = streamTimeout;
+    }
+
+    @GetMapping(path = "/{portfolioId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPortfolio(@PathVariable UUID portfolioId) {
+        logger.info("Streaming updates of portfolio {}", portfolioId);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscription subscription = subscribePortfolioUpdatesUseCase.subscribe(portfolioId, update -> send(emitter, update));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        // Keeps reverse proxies from buffering the stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    private static void send(SseEmitter emitter, PortfolioUpdate update) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(update.snapshot() ? "snapshot" : "delta")
+                    .data(mapToUpdateResponse(update), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PortfolioUpdateResponse mapToUpdateResponse(PortfolioUpdate update) {
+        return new PortfolioUpdateResponse(
+                update.portfolio() != null ? PortfolioController.mapToPortfolioResponse(update.portfolio()) : null,
+                update.holdings().stream().map(PortfolioController::mapToHoldingResponse).toList(),
+                update.removedHoldingIds());
+    }
+
+    record PortfolioUpdateResponse(
+            PortfolioController.PortfolioResponse portfolio,
+            List<PortfolioController.HoldingResponse> holdings,
+            List<UUID> removedHoldingIds
+    ) {}
+}
@@ -0,0 +1,67 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.config.ReadRouting;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes on top of the read replica: a write (POST or DELETE) hands the client a short-lived
+ * cookie, and while the client sends it back its reads go to the primary, so it does not see the
+ * replica's older state right after its own buy or sell. The window should exceed the replica lag.
+ * The cookie is set before the write runs, because the response may be committed by the time it ends.
+ */
+@Component
+@ConditionalOnProperty("portfolio.datasource.replica.url")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String READ_PRIMARY_COOKIE = "portfolio-read-primary";
+
+    private final int windowSeconds;
+
+    public ReadYourWritesFilter(@Value("${portfolio.datasource.replica.read-your-writes:PT5S}") Duration window) {
+        this.windowSeconds = (int) Math.max(1, window.toSeconds());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (HttpMethod.POST.matches(request.getMethod()) || HttpMethod.DELETE.matches(request.getMethod())) {
+            Cookie cookie = new Cookie(READ_PRIMARY_COOKIE, "1");
+            cookie.setPath("/api");
+            cookie.setMaxAge(windowSeconds);
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        if (!hasReadPrimaryCookie(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (ReadRouting.Pin pin = ReadRouting.pinToPrimary()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static boolean hasReadPrimaryCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (READ_PRIMARY_COOKIE.equals(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
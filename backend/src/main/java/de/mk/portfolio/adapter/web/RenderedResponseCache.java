@@ -0,0 +1,82 @@
+package de.mk.portfolio.adapter.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.mk.portfolio.domain.port.in.WatchPortfolioChangesUseCase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serialized JSON of the read endpoints, per portfolio and version, so a request for an unchanged
+ * portfolio costs the version lookup only. Entries of a portfolio are dropped when its positions change
+ * on any instance; as the version is part of the key, a missed or late invalidation can only cost
+ * memory, never serve an outdated body. Bounded by the total size of the bodies held.
+ */
+@Component
+public class RenderedResponseCache {
+
+    private final Cache<UUID, RenderedResponses> responses;
+
+    public RenderedResponseCache(WatchPortfolioChangesUseCase watchPortfolioChangesUseCase,
+                                 @Value("${portfolio.response-cache.max-bytes:67108864}") long maxBytes,
+                                 @Value("${portfolio.response-cache.expire-after-access:PT10M}") Duration expireAfterAccess) {
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((UUID portfolioId, RenderedResponses rendered) -> rendered.weight())
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        watchPortfolioChangesUseCase.onPortfolioChanged(this::invalidate);
+    }
+
+    /**
+     * The body rendered for the view of the portfolio at the given version, or null.
+     */
+    public byte[] get(UUID portfolioId, long version, String view) {
+        RenderedResponses rendered = responses.getIfPresent(portfolioId);
+        return rendered != null && rendered.version() == version ? rendered.bodies().get(view) : null;
+    }
+
+    public void put(UUID portfolioId, long version, String view, byte[] body) {
+        // A body rendered from an older version than the cached ones is dropped, a newer one replaces them all
+        responses.asMap().compute(portfolioId, (id, current) -> {
+            if (current != null && current.version() > version) {
+                return current;
+            }
+            Map<String, byte[]> bodies = current != null && current.version() == version
+                    ? new HashMap<>(current.bodies())
+                    : new HashMap<>();
+            bodies.put(view, body);
+            return new RenderedResponses(version, bodies);
+        });
+    }
+
+    public void invalidate(UUID portfolioId) {
+        responses.invalidate(portfolioId);
+    }
+
+    boolean isCached(UUID portfolioId) {
+        return responses.getIfPresent(portfolioId) != null;
+    }
+
+    public CacheStats stats() {
+        return responses.stats();
+    }
+
+    public long size() {
+        return responses.estimatedSize();
+    }
+
+    private record RenderedResponses(long version, Map<String, byte[]> bodies) {
+        int weight() {
+            long bytes = bodies.values().stream().mapToLong(body -> body.length).sum();
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.mk.portfolio.adapter.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.ImportResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk import of trades from a broker export. The request body is parsed while it is read, so
+ * large files never sit in memory as a whole.
+ */
+@RestController
+@RequestMapping("/api/portfolio/{portfolioId}/holdings/import")
+public class TradeImportController {
+
+    private static final Logger logger = LogManager.getLogger(TradeImportController.class);
+
+    private static final int MAX_REPORTED_PARSE_ERRORS = 100;
+
+    private final ImportTradesUseCase importTradesUseCase;
+    private final ObjectMapper objectMapper;
+
+    public TradeImportController(ImportTradesUseCase importTradesUseCase, ObjectMapper objectMapper) {
+        this.importTradesUseCase = importTradesUseCase;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<ImportResponse> importCsv(@PathVariable UUID portfolioId, InputStream body) {
+        logger.info("Importing CSV trades into portfolio {}", portfolioId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return importTrades(portfolioId, new CsvTradeReader(reader, MAX_REPORTED_PARSE_ERRORS));
+    }
+
+    @PostMapping(consumes = "application/json")
+    public ResponseEntity<ImportResponse> importJson(@PathVariable UUID portfolioId, InputStream body) throws IOException {
+        logger.info("Importing JSON trades into portfolio {}", portfolioId);
+        return importTrades(portfolioId, new JsonTradeReader(objectMapper, body, MAX_REPORTED_PARSE_ERRORS));
+    }
+
+    private ResponseEntity<ImportResponse> importTrades(UUID portfolioId, TradeReader trades) {
+        ImportResult result = importTradesUseCase.importTrades(portfolioId, trades);
+        List<String> errors = new ArrayList<>(trades.errors());
+        errors.addAll(result.errors());
+        return ResponseEntity.ok(new ImportResponse(result.imported(), result.rejected() + trades.skipped(), errors));
+    }
+
+    record ImportResponse(int imported, int rejected, List<String> errors) {}
+}
@@ -0,0 +1,18 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lazily parses trades from an uploaded file. Rows that cannot be parsed are skipped and reported
+ * through {@link #errors()}; rows that parse are handed on for business validation. Both kinds of error
+ * name the row the same way, as the reader numbers it.
+ */
+interface TradeReader extends Iterator<Trade> {
+
+    List<String> errors();
+
+    int skipped();
+}
@@ -0,0 +1,61 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Dashboard;
+import de.mk.portfolio.domain.model.HistoryRange;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.port.in.GetDashboardUseCase;
+import de.mk.portfolio.domain.port.in.GetHoldingsUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioHistoryUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the three parts of the dashboard concurrently, so the response takes as long as the slowest
+ * read instead of the sum of all three.
+ */
+@Service
+public class DashboardService implements GetDashboardUseCase {
+
+    private final GetPortfolioUseCase getPortfolioUseCase;
+    private final GetHoldingsUseCase getHoldingsUseCase;
+    private final GetPortfolioHistoryUseCase getPortfolioHistoryUseCase;
+    private final Executor dashboardExecutor;
+
+    public DashboardService(GetPortfolioUseCase getPortfolioUseCase, GetHoldingsUseCase getHoldingsUseCase, GetPortfolioHistoryUseCase getPortfolioHistoryUseCase,
+                            @Qualifier("dashboardExecutor") Executor dashboardExecutor) {
+        this.getPortfolioUseCase = getPortfolioUseCase;
+        this.getHoldingsUseCase = getHoldingsUseCase;
+        this.getPortfolioHistoryUseCase = getPortfolioHistoryUseCase;
+        this.dashboardExecutor = dashboardExecutor;
+    }
+
+    @Override
+    public Dashboard getDashboard(UUID portfolioId, HistoryRange range, Integer maxPoints) {
+        CompletableFuture<List<Holding>> holdings = CompletableFuture.supplyAsync(
+                () -> getHoldingsUseCase.getHoldings(portfolioId), dashboardExecutor);
+        CompletableFuture<List<PortfolioHistory>> history = CompletableFuture.supplyAsync(
+                () -> getPortfolioHistoryUseCase.getPortfolioHistory(portfolioId, range, maxPoints), dashboardExecutor);
+        try {
+            // The summary is read on the request thread; it is the one that reports an unknown portfolio
+            Portfolio portfolio = getPortfolioUseCase.getPortfolio(portfolioId);
+            return new Dashboard(portfolio, holdings.join(), history.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            holdings.cancel(false);
+            history.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.port.in.TakeEndOfDaySnapshotUseCase;
+import de.mk.portfolio.domain.port.out.EndOfDaySnapshotPort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the daily closing value of every portfolio to its history.
+ * <p>
+ * Portfolios are split into partitions of their ID range, which are snapshotted in parallel on
+ * virtual threads, each in its own transaction together with its checkpoint. The parallelism
+ * bounds how many connections the job takes from the pool at once.
+ * <p>
+ * Every instance runs the schedule; the first one to claim the date takes the snapshot. The claim is a
+ * lease renewed before each partition, so when its owner dies, the next instance that looks for
+ * interrupted snapshots takes the date over once the lease has run out.
+ */
+@Service
+public class EndOfDaySnapshotService implements TakeEndOfDaySnapshotUseCase {
+
+    private static final Logger logger = LogManager.getLogger(EndOfDaySnapshotService.class);
+
+    private final EndOfDaySnapshotPort endOfDaySnapshotPort;
+    private final int partitionCount;
+    private final int parallelism;
+    private final Duration lease;
+    private final ZoneId zone;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public EndOfDaySnapshotService(EndOfDaySnapshotPort endOfDaySnapshotPort,
+                                   @Value("${portfolio.eod-snapshot.partitions:256}") int partitionCount,
+                                   @Value("${portfolio.eod-snapshot.parallelism:8}") int parallelism,
+                                   @Value("${portfolio.eod-snapshot.lease:PT5M}") Duration lease,
+                                   @Value("${portfolio.eod-snapshot.zone:}") String zone) {
+        if (partitionCount < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("EOD snapshot partitions and parallelism must be positive");
+        }
+        if (lease.isNegative() || lease.isZero()) {
+            throw new IllegalArgumentException("EOD snapshot lease must be positive");
+        }
+        this.endOfDaySnapshotPort = endOfDaySnapshotPort;
+        this.partitionCount = partitionCount;
+        this.parallelism = parallelism;
+        this.lease = lease;
+        // The zone the schedule fires in, so that the close is dated by the exchange's day, not the host's
+        this.zone = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+    }
+
+    @Scheduled(cron = "${portfolio.eod-snapshot.cron:0 30 22 * * MON-FRI}", zone = "${portfolio.eod-snapshot.zone:}")
+    public void takeScheduledSnapshot() {
+        takeSnapshot(LocalDate.now(zone));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${portfolio.eod-snapshot.resume-interval-ms:300000}",
+            initialDelayString = "${portfolio.eod-snapshot.resume-interval-ms:300000}")
+    public void resumeInterruptedSnapshot() {
+        endOfDaySnapshotPort.loadIncompleteSnapshotDate(partitionCount).ifPresent(date -> {
+            logger.info("Resuming interrupted end-of-day snapshot of {}", date);
+            takeSnapshot(date);
+        });
+    }
+
+    @Override
+    public synchronized SnapshotResult takeSnapshot(LocalDate date) {
+        long start = System.nanoTime();
+        if (!endOfDaySnapshotPort.claimSnapshot(date, partitionCount, instanceId, lease)) {
+            logger.info("End-of-day snapshot of {} is complete or being taken by another instance", date);
+            return new SnapshotResult(partitionCount, endOfDaySnapshotPort.loadCompletedPartitions(date, partitionCount).size(), 0);
+        }
+        Set<Integer> completed = endOfDaySnapshotPort.loadCompletedPartitions(date, partitionCount);
+        List<Future<Integer>> partitions = new ArrayList<>(partitionCount - completed.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().name("eod-snapshot-", 0).factory())) {
+            for (int partition = 0; partition < partitionCount; partition++) {
+                if (!completed.contains(partition)) {
+                    int current = partition;
+                    partitions.add(executor.submit(() -> {
+                        // A partition is only started while the claim holds
+                        if (!endOfDaySnapshotPort.renewSnapshotClaim(date, instanceId, lease)) {
+                            throw new IllegalStateException("Lost the claim on the end-of-day snapshot of " + date);
+                        }
+                        return endOfDaySnapshotPort.snapshotPartition(date, current, partitionCount);
+                    }));
+                }
+            }
+        }
+
+        int portfolios = 0;
+        int failed = 0;
+        for (Future<Integer> partition : partitions) {
+            try {
+                portfolios += partition.get();
+            } catch (ExecutionException e) {
+                failed++;
+                logger.error("End-of-day snapshot partition of {} failed", date, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while taking the end-of-day snapshot of " + date, e);
+            }
+        }
+        if (failed > 0) {
+            // The checkpoints of the other partitions stand; the next run or restart picks up the rest
+            throw new IllegalStateException(failed + " of " + partitions.size() + " end-of-day snapshot partitions of " + date + " failed");
+        }
+        endOfDaySnapshotPort.completeSnapshot(date, instanceId);
+        logger.info("End-of-day snapshot of {}: {} portfolios in {} partitions ({} already done) in {} ms",
+                date, portfolios, partitions.size(), completed.size(), (System.nanoTime() - start) / 1_000_000);
+        return new SnapshotResult(partitionCount, completed.size(), portfolios);
+    }
+}
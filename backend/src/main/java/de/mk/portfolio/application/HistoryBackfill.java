@@ -0,0 +1,83 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.ClosingPrice;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reconstructs the daily value series of a portfolio in one forward sweep over its position
+ * changes and the closing prices, both ordered by date.
+ * <p>
+ * The sweep keeps the running quantity and last close per symbol and the portfolio value as a
+ * running sum: a position change moves the value by quantity times the last close, a new close by
+ * the price move times the held quantity. No day re-sums the holdings, so the cost is linear in
+ * the number of changes and prices.
+ */
+final class HistoryBackfill {
+
+    private HistoryBackfill() {
+    }
+
+    /**
+     * Shares of a symbol entering ({@code quantity > 0}) or leaving the portfolio at the close of
+     * {@code date}.
+     */
+    record PositionChange(String symbol, LocalDate date, int quantity) {
+    }
+
+    /**
+     * One point per trading day, i.e. per date with at least one close, between {@code fromDate}
+     * and {@code toDate}. Changes and closes before {@code fromDate} only build up the starting
+     * positions and prices. A symbol counts from its first close on; until then its value is unknown.
+     */
+    static List<PortfolioHistory> sweep(UUID portfolioId, List<PositionChange> changes, List<ClosingPrice> closes,
+                                        LocalDate fromDate, LocalDate toDate) {
+        Map<String, Integer> quantities = new HashMap<>();
+        Map<String, BigDecimal> lastCloses = new HashMap<>();
+        BigDecimal value = BigDecimal.ZERO;
+        List<PortfolioHistory> history = new ArrayList<>();
+
+        int nextChange = 0;
+        int nextClose = 0;
+        while (nextClose < closes.size()) {
+            LocalDate day = closes.get(nextClose).date();
+            if (day.isAfter(toDate)) {
+                break;
+            }
+            // Trades of non-trading days take effect with the next close
+            for (; nextChange < changes.size() && !changes.get(nextChange).date().isAfter(day); nextChange++) {
+                PositionChange change = changes.get(nextChange);
+                quantities.merge(change.symbol(), change.quantity(), Integer::sum);
+                BigDecimal lastClose = lastCloses.get(change.symbol());
+                if (lastClose != null) {
+                    value = value.add(lastClose.multiply(BigDecimal.valueOf(change.quantity())));
+                }
+            }
+            for (; nextClose < closes.size() && closes.get(nextClose).date().equals(day); nextClose++) {
+                ClosingPrice close = closes.get(nextClose);
+                BigDecimal previous = lastCloses.put(close.symbol(), close.close());
+                int quantity = quantities.getOrDefault(close.symbol(), 0);
+                if (quantity != 0) {
+                    BigDecimal move = previous != null ? close.close().subtract(previous) : close.close();
+                    value = value.add(move.multiply(BigDecimal.valueOf(quantity)));
+                }
+            }
+            if (!day.isBefore(fromDate)) {
+                history.add(PortfolioHistory.builder()
+                        .portfolioId(portfolioId)
+                        .date(day)
+                        .value(value.setScale(PortfolioAggregator.SCALE, RoundingMode.HALF_UP))
+                        .build());
+            }
+        }
+        return history;
+    }
+}
@@ -0,0 +1,200 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.application.HistoryBackfill.PositionChange;
+import de.mk.portfolio.domain.event.BackdatedTradesImportedEvent;
+import de.mk.portfolio.domain.model.ClosingPrice;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.model.RealizedTrade;
+import de.mk.portfolio.domain.port.in.BackfillPortfolioHistoryUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.out.HistoricalPricePort;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import de.mk.portfolio.domain.port.out.LoadRealizedTradesPort;
+import de.mk.portfolio.domain.port.out.ReplacePortfolioHistoryPort;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rebuilds portfolio history from the trades of a portfolio and historical closing prices.
+ * <p>
+ * Current lots are held from their purchase date on; sold shares are taken from the realized
+ * trades, held from their purchase date until the sale date. Only days that can be valued in full
+ * are written: without closes for a symbol held, the stored history is left as it is. Backfills run
+ * one at a time, so two imports into the same portfolio cannot overwrite each other's result with
+ * an older one.
+ */
+@Service
+public class HistoryBackfillService implements BackfillPortfolioHistoryUseCase {
+
+    private static final Logger logger = LogManager.getLogger(HistoryBackfillService.class);
+
+    private final GetPortfolioUseCase getPortfolioUseCase;
+    private final LoadHoldingsPort loadHoldingsPort;
+    private final LoadRealizedTradesPort loadRealizedTradesPort;
+    private final HistoricalPricePort historicalPricePort;
+    private final ReplacePortfolioHistoryPort replacePortfolioHistoryPort;
+
+    private final ExecutorService backfills = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("history-backfill").factory());
+
+    public HistoryBackfillService(GetPortfolioUseCase getPortfolioUseCase, LoadHoldingsPort loadHoldingsPort, LoadRealizedTradesPort loadRealizedTradesPort, HistoricalPricePort historicalPricePort, ReplacePortfolioHistoryPort replacePortfolioHistoryPort) {
+        this.getPortfolioUseCase = getPortfolioUseCase;
+        this.loadHoldingsPort = loadHoldingsPort;
+        this.loadRealizedTradesPort = loadRealizedTradesPort;
+        this.historicalPricePort = historicalPricePort;
+        this.replacePortfolioHistoryPort = replacePortfolioHistoryPort;
+    }
+
+    @EventListener
+    public void onBackdatedTradesImported(BackdatedTradesImportedEvent event) {
+        backfills.execute(() -> {
+            try {
+                backfill(event.portfolioId(), event.earliestPurchaseDate());
+            } catch (RuntimeException e) {
+                logger.error("History backfill of portfolio {} failed", event.portfolioId(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        backfills.shutdownNow();
+    }
+
+    @Override
+    public synchronized BackfillResult backfill(UUID portfolioId, LocalDate fromDate) {
+        getPortfolioUseCase.getPortfolio(portfolioId);
+        long start = System.nanoTime();
+        // Today's value is written by the end-of-day snapshot
+        LocalDate toDate = LocalDate.now().minusDays(1);
+
+        List<PositionChange> changes = positionChanges(loadHoldingsPort.loadHoldings(portfolioId), loadRealizedTradesPort.loadRealizedTrades(portfolioId));
+        if (changes.isEmpty() || changes.get(0).date().isAfter(toDate)) {
+            return new BackfillResult(fromDate, toDate, 0);
+        }
+        LocalDate firstPurchase = changes.get(0).date();
+        LocalDate from = fromDate == null || fromDate.isBefore(firstPurchase) ? firstPurchase : fromDate;
+        if (from.isAfter(toDate)) {
+            return new BackfillResult(from, toDate, 0);
+        }
+
+        Set<String> symbols = new HashSet<>();
+        changes.forEach(change -> symbols.add(change.symbol()));
+        // Closes before the first emitted day are needed to value the positions carried into it
+        List<ClosingPrice> closes = historicalPricePort.loadClosingPrices(symbols, firstPurchase, toDate);
+        Optional<LocalDate> pricedFrom = firstFullyPricedDay(changes, closes);
+        if (pricedFrom.isEmpty()) {
+            logger.warn("Closing prices of portfolio {} are missing for symbols it held, history left unchanged", portfolioId);
+            return new BackfillResult(from, toDate, 0);
+        }
+        if (pricedFrom.get().isAfter(from)) {
+            logger.warn("Closing prices of portfolio {} start late for some symbols, history before {} left unchanged", portfolioId, pricedFrom.get());
+            from = pricedFrom.get();
+        }
+        List<PortfolioHistory> history = HistoryBackfill.sweep(portfolioId, changes, closes, from, toDate);
+        if (history.isEmpty()) {
+            return new BackfillResult(from, toDate, 0);
+        }
+        replacePortfolioHistoryPort.replacePortfolioHistory(portfolioId, history);
+
+        LocalDate rewrittenFrom = history.get(0).getDate();
+        LocalDate rewrittenTo = history.get(history.size() - 1).getDate();
+        logger.info("Backfilled {} history points of portfolio {} from {} to {} in {} ms",
+                history.size(), portfolioId, rewrittenFrom, rewrittenTo, (System.nanoTime() - start) / 1_000_000);
+        return new BackfillResult(rewrittenFrom, rewrittenTo, history.size());
+    }
+
+    /**
+     * The first trading day from which every symbol held has a close, or empty when a symbol held on
+     * some trading day has no close at all. A symbol whose closes start after it was bought would be
+     * missing from the value until its first close, so the days before it cannot be rebuilt.
+     */
+    static Optional<LocalDate> firstFullyPricedDay(List<PositionChange> changes, List<ClosingPrice> closes) {
+        if (closes.isEmpty()) {
+            return Optional.empty();
+        }
+        TreeSet<LocalDate> tradingDays = new TreeSet<>();
+        Map<String, LocalDate> firstCloses = new HashMap<>();
+        for (ClosingPrice close : closes) {
+            tradingDays.add(close.date());
+            firstCloses.merge(close.symbol(), close.date(), HistoryBackfillService::earlier);
+        }
+        Map<String, LocalDate> firstHeld = new HashMap<>();
+        Map<String, LocalDate> lastChanges = new HashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (PositionChange change : changes) {
+            firstHeld.putIfAbsent(change.symbol(), change.date());
+            lastChanges.put(change.symbol(), change.date());
+            quantities.merge(change.symbol(), change.quantity(), Integer::sum);
+        }
+
+        LocalDate pricedFrom = tradingDays.first();
+        for (Map.Entry<String, LocalDate> entry : firstHeld.entrySet()) {
+            String symbol = entry.getKey();
+            // Trades take effect at the close, so the first day the symbol is valued is the first
+            // trading day on or after its first purchase
+            LocalDate firstValued = tradingDays.ceiling(entry.getValue());
+            boolean soldOut = quantities.get(symbol) == 0;
+            if (firstValued == null || soldOut && !firstValued.isBefore(lastChanges.get(symbol))) {
+                continue;
+            }
+            LocalDate firstClose = firstCloses.get(symbol);
+            if (firstClose == null) {
+                return Optional.empty();
+            }
+            if (firstClose.isAfter(firstValued) && firstClose.isAfter(pricedFrom)) {
+                pricedFrom = firstClose;
+            }
+        }
+        return Optional.of(pricedFrom);
+    }
+
+    /**
+     * The buys and sells behind the current lots and the realized trades, ordered by date.
+     */
+    static List<PositionChange> positionChanges(List<Holding> holdings, List<RealizedTrade> realizedTrades) {
+        List<PositionChange> changes = new ArrayList<>(holdings.size() + 2 * realizedTrades.size());
+        Map<String, LocalDate> firstPurchases = new HashMap<>();
+        for (Holding lot : holdings) {
+            changes.add(new PositionChange(lot.getSymbol(), lot.getPurchaseDate(), lot.getQuantity()));
+            firstPurchases.merge(lot.getSymbol(), lot.getPurchaseDate(), HistoryBackfillService::earlier);
+        }
+        for (RealizedTrade trade : realizedTrades) {
+            if (trade.purchaseDate() != null) {
+                firstPurchases.merge(trade.symbol(), trade.purchaseDate(), HistoryBackfillService::earlier);
+            }
+        }
+        for (RealizedTrade trade : realizedTrades) {
+            // An average-cost sale does not record the lots it came from; its shares are taken as
+            // held since the first purchase of the symbol
+            LocalDate purchaseDate = trade.purchaseDate() != null
+                    ? trade.purchaseDate()
+                    : earlier(firstPurchases.getOrDefault(trade.symbol(), trade.saleDate()), trade.saleDate());
+            changes.add(new PositionChange(trade.symbol(), purchaseDate, trade.quantity()));
+            changes.add(new PositionChange(trade.symbol(), trade.saleDate(), -trade.quantity()));
+        }
+        changes.sort(Comparator.comparing(PositionChange::date));
+        return changes;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
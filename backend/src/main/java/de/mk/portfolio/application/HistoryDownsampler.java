@@ -0,0 +1,82 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces a portfolio history series to a bounded number of points using
+ * Largest-Triangle-Three-Buckets, which keeps the visual shape (peaks and dips) of the chart.
+ */
+final class HistoryDownsampler {
+
+    static final int MIN_POINTS = 3;
+
+    private HistoryDownsampler() {
+    }
+
+    /**
+     * Returns at most {@code maxPoints} points of the given date-ordered series. The first and last
+     * point are always kept; returned elements are taken from the input, not copied.
+     */
+    static List<PortfolioHistory> downsample(List<PortfolioHistory> history, int maxPoints) {
+        if (maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + MIN_POINTS);
+        }
+        int size = history.size();
+        if (size <= maxPoints) {
+            return history;
+        }
+
+        List<PortfolioHistory> sampled = new ArrayList<>(maxPoints);
+        sampled.add(history.get(0));
+
+        // The inner points are split into (maxPoints - 2) buckets; each bucket contributes the point
+        // spanning the largest triangle with the previously selected point and the next bucket's average.
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        int selected = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int bucketStart = (int) (bucket * bucketSize) + 1;
+            int bucketEnd = (int) ((bucket + 1) * bucketSize) + 1;
+
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x(history.get(i));
+                avgY += y(history.get(i));
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double selectedX = x(history.get(selected));
+            double selectedY = y(history.get(selected));
+            double maxArea = -1;
+            int maxIndex = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                double area = Math.abs((selectedX - avgX) * (y(history.get(i)) - selectedY)
+                        - (selectedX - x(history.get(i))) * (avgY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            sampled.add(history.get(maxIndex));
+            selected = maxIndex;
+        }
+
+        sampled.add(history.get(size - 1));
+        return sampled;
+    }
+
+    private static double x(PortfolioHistory point) {
+        return point.getDate().toEpochDay();
+    }
+
+    private static double y(PortfolioHistory point) {
+        return point.getValue().doubleValue();
+    }
+}
@@ -0,0 +1,98 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort;
+import de.mk.portfolio.domain.port.out.PortfolioHistoryPartitionPort.HistoryPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the partitions of the portfolio history in shape: monthly partitions are created ahead of
+ * the days they hold, old months are merged into one partition per year, and optionally partitions
+ * past a retention period are detached.
+ */
+@Service
+public class HistoryPartitionMaintenanceService {
+
+    private static final Logger logger = LogManager.getLogger(HistoryPartitionMaintenanceService.class);
+
+    private final PortfolioHistoryPartitionPort portfolioHistoryPartitionPort;
+    private final int monthsAhead;
+    private final int compactAfterMonths;
+    private final int detachAfterMonths;
+
+    public HistoryPartitionMaintenanceService(PortfolioHistoryPartitionPort portfolioHistoryPartitionPort,
+                                              @Value("${portfolio.history.partitions.months-ahead:3}") int monthsAhead,
+                                              @Value("${portfolio.history.partitions.compact-after-months:24}") int compactAfterMonths,
+                                              @Value("${portfolio.history.partitions.detach-after-months:0}") int detachAfterMonths) {
+        if (monthsAhead < 0 || compactAfterMonths < 0 || detachAfterMonths < 0) {
+            throw new IllegalArgumentException("History partition months must not be negative");
+        }
+        this.portfolioHistoryPartitionPort = portfolioHistoryPartitionPort;
+        this.monthsAhead = monthsAhead;
+        this.compactAfterMonths = compactAfterMonths;
+        this.detachAfterMonths = detachAfterMonths;
+    }
+
+    /**
+     * Only creates the partitions ahead on startup. Merging copies whole years and is left to the
+     * scheduled run, so it never holds up a starting application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createUpcomingPartitions() {
+        createUpcomingPartitions(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${portfolio.history.partitions.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(LocalDate.now());
+    }
+
+    synchronized void createUpcomingPartitions(LocalDate today) {
+        LocalDate currentMonth = today.withDayOfMonth(1);
+        portfolioHistoryPartitionPort.createPartitions(currentMonth, currentMonth.plusMonths(monthsAhead + 1L).minusDays(1));
+    }
+
+    synchronized void maintainPartitions(LocalDate today) {
+        LocalDate currentMonth = today.withDayOfMonth(1);
+        createUpcomingPartitions(today);
+
+        if (detachAfterMonths > 0) {
+            LocalDate cutoff = currentMonth.minusMonths(detachAfterMonths);
+            for (HistoryPartition partition : portfolioHistoryPartitionPort.loadPartitions()) {
+                if (!partition.toDate().isAfter(cutoff)) {
+                    portfolioHistoryPartitionPort.detachPartition(partition);
+                }
+            }
+        }
+
+        if (compactAfterMonths > 0) {
+            // Only whole years that ended before the cutoff, so a year is merged once and never reopened
+            LocalDate cutoff = currentMonth.minusMonths(compactAfterMonths);
+            Map<Integer, List<HistoryPartition>> partitionsByYear = new TreeMap<>();
+            for (HistoryPartition partition : portfolioHistoryPartitionPort.loadPartitions()) {
+                int year = partition.fromDate().getYear();
+                LocalDate yearEnd = LocalDate.of(year + 1, 1, 1);
+                if (!yearEnd.isAfter(cutoff) && !partition.toDate().isAfter(yearEnd)) {
+                    partitionsByYear.computeIfAbsent(year, y -> new ArrayList<>()).add(partition);
+                }
+            }
+            partitionsByYear.forEach((year, partitions) -> {
+                if (partitions.size() > 1) {
+                    portfolioHistoryPartitionPort.mergePartitions(partitions, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+                }
+            });
+        }
+        logger.info("Maintained history partitions up to {}", currentMonth.plusMonths(monthsAhead));
+    }
+}
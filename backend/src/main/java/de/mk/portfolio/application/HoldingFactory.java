@@ -0,0 +1,50 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Quote;
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Turns a buy into a new holding (lot), valued at the latest known market price.
+ */
+@Component
+public class HoldingFactory {
+
+    private final QuoteCache quoteCache;
+
+    public HoldingFactory(QuoteCache quoteCache) {
+        this.quoteCache = quoteCache;
+    }
+
+    public Holding newLot(UUID portfolioId, AddStockCommand command) {
+        // Prices are kept at the stored scale, otherwise the portfolio's running sums drift from the rows
+        BigDecimal purchasePrice = command.purchasePrice().setScale(PortfolioAggregator.SCALE, RoundingMode.HALF_UP);
+        // Until the feed has seen the symbol, the purchase price is the best guess for the current price
+        BigDecimal price = quoteCache.get(command.symbol())
+                .map(Quote::price)
+                .orElse(purchasePrice)
+                .setScale(PortfolioAggregator.SCALE, RoundingMode.HALF_UP);
+
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(portfolioId)
+                .name(command.symbol() + " Company") // Dummy name for now
+                .symbol(command.symbol())
+                .quantity(command.quantity().intValue()) // Assuming quantity is int for Holding model
+                .price(price)
+                .purchasePrice(purchasePrice)
+                .purchaseDate(command.purchaseDate())
+                .dailyChangeValue(BigDecimal.ZERO)
+                .dailyChangePercent(BigDecimal.ZERO)
+                .totalChangeValue(BigDecimal.ZERO)
+                .totalChangePercent(BigDecimal.ZERO)
+                .logoUrl("https://logo.clearbit.com/" + command.symbol().toLowerCase(Locale.ROOT) + ".com")
+                .build();
+    }
+}
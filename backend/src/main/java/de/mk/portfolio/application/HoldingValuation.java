@@ -0,0 +1,107 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Revalues a holding at a live price.
+ * <p>
+ * Prices and change values are stored with two decimals, so the arithmetic runs on {@code long}
+ * cents and only the results are turned back into {@link BigDecimal}. Values that do not fit
+ * (more decimals than stored, or an overflow) take the equivalent {@code BigDecimal} path.
+ */
+final class HoldingValuation {
+
+    private static final int SCALE = PortfolioAggregator.SCALE;
+    private static final BigDecimal ZERO_PERCENT = BigDecimal.ZERO.setScale(SCALE);
+    // Percentages are kept in hundredths of a percent: change * 100 (percent) * 100 (two decimals)
+    private static final long PERCENT_FACTOR = 10_000L;
+    private static final long NOT_CENTS = Long.MIN_VALUE;
+
+    private HoldingValuation() {
+    }
+
+    /**
+     * @param livePrice the latest quote, or {@code null} to keep the stored price
+     */
+    static Holding revalue(Holding holding, BigDecimal livePrice) {
+        BigDecimal price = livePrice != null ? livePrice : holding.getPrice();
+        long priceCents = toCents(price);
+        long storedPriceCents = toCents(holding.getPrice());
+        long purchasePriceCents = toCents(holding.getPurchasePrice());
+        long dailyChangeCents = toCents(holding.getDailyChangeValue());
+        if (priceCents == NOT_CENTS || storedPriceCents == NOT_CENTS
+                || purchasePriceCents == NOT_CENTS || dailyChangeCents == NOT_CENTS) {
+            return revalueExact(holding, price);
+        }
+        try {
+            return revalueCents(holding, price, priceCents, storedPriceCents, purchasePriceCents, dailyChangeCents);
+        } catch (ArithmeticException overflow) {
+            return revalueExact(holding, price);
+        }
+    }
+
+    private static Holding revalueCents(Holding holding, BigDecimal price, long priceCents, long storedPriceCents,
+                                        long purchasePriceCents, long dailyChangeCents) {
+        long quantity = holding.getQuantity();
+        BigDecimal dailyChangeValue = holding.getDailyChangeValue();
+        BigDecimal dailyChangePercent = holding.getDailyChangePercent();
+        if (priceCents != storedPriceCents) {
+            // The stored daily change is relative to the stored price; the previous close is what both share
+            long previousCloseCents = Math.subtractExact(Math.multiplyExact(storedPriceCents, quantity), dailyChangeCents);
+            long newDailyChangeCents = Math.addExact(dailyChangeCents,
+                    Math.multiplyExact(Math.subtractExact(priceCents, storedPriceCents), quantity));
+            dailyChangeValue = BigDecimal.valueOf(newDailyChangeCents, SCALE);
+            dailyChangePercent = percent(newDailyChangeCents, previousCloseCents);
+        }
+        long priceGainCents = Math.subtractExact(priceCents, purchasePriceCents);
+        // The percentage gain of a lot does not depend on its size
+        return holding.withValuation(price,
+                dailyChangeValue,
+                dailyChangePercent,
+                BigDecimal.valueOf(Math.multiplyExact(priceGainCents, quantity), SCALE),
+                percent(priceGainCents, purchasePriceCents));
+    }
+
+    private static Holding revalueExact(Holding holding, BigDecimal price) {
+        BigDecimal quantity = BigDecimal.valueOf(holding.getQuantity());
+        BigDecimal dailyChangeValue = holding.getDailyChangeValue();
+        BigDecimal dailyChangePercent = holding.getDailyChangePercent();
+        if (price.compareTo(holding.getPrice()) != 0) {
+            BigDecimal previousCloseValue = holding.getPrice().multiply(quantity).subtract(dailyChangeValue);
+            dailyChangeValue = dailyChangeValue.add(price.subtract(holding.getPrice()).multiply(quantity));
+            dailyChangePercent = PortfolioAggregator.percent(dailyChangeValue, previousCloseValue);
+        }
+        BigDecimal priceGain = price.subtract(holding.getPurchasePrice());
+        return holding.withValuation(price,
+                dailyChangeValue,
+                dailyChangePercent,
+                priceGain.multiply(quantity),
+                PortfolioAggregator.percent(priceGain, holding.getPurchasePrice()));
+    }
+
+    private static BigDecimal percent(long changeCents, long baseCents) {
+        if (baseCents == 0) {
+            return ZERO_PERCENT;
+        }
+        return BigDecimal.valueOf(divideHalfUp(Math.multiplyExact(changeCents, PERCENT_FACTOR), baseCents), SCALE);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    private static long toCents(BigDecimal value) {
+        if (value.scale() > SCALE || value.precision() - value.scale() > 16) {
+            return NOT_CENTS;
+        }
+        return value.movePointRight(SCALE).longValue();
+    }
+}
@@ -0,0 +1,123 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.IdempotentResponse;
+import de.mk.portfolio.domain.port.in.HandleIdempotentRequestUseCase;
+import de.mk.portfolio.domain.port.out.IdempotencyKeyPort;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency keys of write requests.
+ * <p>
+ * A claimed key is held for the lock timeout and renewed every third of it while its request runs,
+ * so that a long trade import keeps its key but a crashed instance does not block it until the TTL.
+ * Once the response is recorded the key is kept for the TTL, and expired keys are purged
+ * periodically; until then an expired key is simply claimed anew.
+ */
+@Service
+public class IdempotencyService implements HandleIdempotentRequestUseCase {
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyService.class);
+
+    private final IdempotencyKeyPort idempotencyKeyPort;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("idempotency-lock-renewal").factory());
+    private final Map<String, ScheduledFuture<?>> renewalsByKey = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyPort idempotencyKeyPort,
+                              @Value("${portfolio.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${portfolio.idempotency.lock-timeout:PT1M}") Duration lockTimeout) {
+        if (lockTimeout.toMillis() < 3) {
+            throw new IllegalArgumentException("Idempotency lock timeout must be at least 3 ms");
+        }
+        this.idempotencyKeyPort = idempotencyKeyPort;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewals.shutdownNow();
+    }
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        Instant now = Instant.now();
+        if (idempotencyKeyPort.insertKey(key, fingerprint, now.plus(lockTimeout))) {
+            return acquired(key);
+        }
+        // Lost the insert: either the key is taken, or it expired and is reclaimed once
+        if (idempotencyKeyPort.deleteKeyIfExpired(key, now)
+                && idempotencyKeyPort.insertKey(key, fingerprint, now.plus(lockTimeout))) {
+            return acquired(key);
+        }
+        return idempotencyKeyPort.loadKey(key)
+                .<Claim>map(stored -> {
+                    if (!stored.fingerprint().equals(fingerprint)) {
+                        return new Claim.Mismatch();
+                    }
+                    return stored.response() != null ? new Claim.Completed(stored.response()) : new Claim.InProgress();
+                })
+                // Deleted between insert and load; the client may retry right away
+                .orElseGet(Claim.InProgress::new);
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        stopRenewal(key);
+        idempotencyKeyPort.saveResponse(key, response, Instant.now().plus(ttl));
+    }
+
+    @Override
+    public void release(String key) {
+        stopRenewal(key);
+        idempotencyKeyPort.deleteKey(key);
+    }
+
+    private Claim acquired(String key) {
+        long interval = lockTimeout.toMillis() / 3;
+        renewalsByKey.put(key, renewals.scheduleAtFixedRate(() -> renew(key), interval, interval, TimeUnit.MILLISECONDS));
+        return new Claim.Acquired();
+    }
+
+    private void renew(String key) {
+        try {
+            if (!idempotencyKeyPort.extendKey(key, Instant.now().plus(lockTimeout))) {
+                stopRenewal(key);
+            }
+        } catch (RuntimeException e) {
+            // A missed renewal leaves two more before the key expires
+            logger.warn("Failed to renew idempotency key {}", key, e);
+        }
+    }
+
+    private void stopRenewal(String key) {
+        ScheduledFuture<?> renewal = renewalsByKey.remove(key);
+        if (renewal != null) {
+            renewal.cancel(false);
+        }
+    }
+
+    @Scheduled(cron = "${portfolio.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpiredKeys() {
+        int purged = idempotencyKeyPort.deleteExpiredKeys(Instant.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
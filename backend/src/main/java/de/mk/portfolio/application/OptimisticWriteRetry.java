@@ -0,0 +1,73 @@
+package de.mk.portfolio.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write of a portfolio in its own transaction and starts it over when the portfolio
+ * was changed concurrently, so the write is recomputed from the new state instead of overwriting it.
+ * <p>
+ * The work must read everything it writes from inside the transaction. Attempts are bounded and
+ * separated by a short random pause, so writers that collided do not collide again in lockstep; the
+ * last conflict is passed on to the caller.
+ */
+@Component
+public class OptimisticWriteRetry {
+
+    private static final Logger logger = LogManager.getLogger(OptimisticWriteRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticWriteRetry(TransactionTemplate transactionTemplate,
+                                @Value("${portfolio.write.max-attempts:5}") int maxAttempts,
+                                @Value("${portfolio.write.retry-backoff-ms:10}") long backoffMs) {
+        if (maxAttempts < 1 || backoffMs < 0) {
+            throw new IllegalArgumentException("Write attempts must be positive and the backoff not negative");
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == maxAttempts) {
+                    throw e;
+                }
+                logger.debug("Concurrent modification, retrying (attempt {} of {}): {}", attempt, maxAttempts, e.getMessage());
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    public void executeWithoutResult(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        if (backoffMs == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Keeps the valuation fields of a {@link Portfolio} in step with its positions.
+ * <p>
+ * A portfolio carries three running sums: market value ({@code totalValue}), cost basis and the
+ * market value at the start of the day. Every buy or sell is applied as a delta to those sums and the
+ * change fields are derived from them, so no operation has to look at the other holdings of the
+ * portfolio. Price ticks and the day rollover touch many portfolios at once and are applied in SQL
+ * ({@code HoldingJdbcAdapter}, {@code EndOfDaySnapshotJdbcAdapter}) with the same derivation of the
+ * change fields.
+ */
+@Component
+public class PortfolioAggregator {
+
+    static final int SCALE = 2;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    public Portfolio applyBuy(Portfolio portfolio, Holding lot) {
+        BigDecimal quantity = BigDecimal.valueOf(lot.getQuantity());
+        BigDecimal marketValue = lot.getPrice().multiply(quantity);
+        return revalue(portfolio,
+                portfolio.getTotalValue().add(marketValue),
+                portfolio.getCostBasis().add(lot.getPurchasePrice().multiply(quantity)),
+                portfolio.getDayOpenValue().add(marketValue.subtract(lot.getDailyChangeValue())));
+    }
+
+    /**
+     * Applies a batch of new lots with a single revaluation of the portfolio.
+     */
+    public Portfolio applyBuys(Portfolio portfolio, List<Holding> lots) {
+        BigDecimal marketValue = portfolio.getTotalValue();
+        BigDecimal costBasis = portfolio.getCostBasis();
+        BigDecimal dayOpenValue = portfolio.getDayOpenValue();
+        for (Holding lot : lots) {
+            BigDecimal quantity = BigDecimal.valueOf(lot.getQuantity());
+            BigDecimal lotValue = lot.getPrice().multiply(quantity);
+            marketValue = marketValue.add(lotValue);
+            costBasis = costBasis.add(lot.getPurchasePrice().multiply(quantity));
+            dayOpenValue = dayOpenValue.add(lotValue.subtract(lot.getDailyChangeValue()));
+        }
+        return revalue(portfolio, marketValue, costBasis, dayOpenValue);
+    }
+
+    /**
+     * Removes {@code quantity} shares of the given lot from the portfolio's running sums.
+     */
+    public Portfolio applySell(Portfolio portfolio, Holding lot, int quantity) {
+        BigDecimal soldQuantity = BigDecimal.valueOf(quantity);
+        BigDecimal marketValue = lot.getPrice().multiply(soldQuantity);
+        return revalue(portfolio,
+                portfolio.getTotalValue().subtract(marketValue),
+                portfolio.getCostBasis().subtract(lot.getPurchasePrice().multiply(soldQuantity)),
+                portfolio.getDayOpenValue().subtract(marketValue.subtract(dailyChangeShare(lot, quantity))));
+    }
+
+    /**
+     * The part of a lot's daily change that belongs to {@code quantity} of its shares, rounded the
+     * same way it is stored so that the sold and the remaining part always add up to the lot's value.
+     */
+    static BigDecimal dailyChangeShare(Holding lot, int quantity) {
+        if (quantity == lot.getQuantity()) {
+            return lot.getDailyChangeValue();
+        }
+        return lot.getDailyChangeValue()
+                .multiply(BigDecimal.valueOf(quantity))
+                .divide(BigDecimal.valueOf(lot.getQuantity()), SCALE, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal percent(BigDecimal change, BigDecimal base) {
+        if (base.signum() == 0) {
+            return BigDecimal.ZERO.setScale(SCALE);
+        }
+        return change.multiply(HUNDRED).divide(base, SCALE, RoundingMode.HALF_UP);
+    }
+
+    private Portfolio revalue(Portfolio portfolio, BigDecimal marketValue, BigDecimal costBasis, BigDecimal dayOpenValue) {
+        BigDecimal dailyChange = marketValue.subtract(dayOpenValue);
+        BigDecimal totalChange = marketValue.subtract(costBasis);
+        return Portfolio.builder()
+                .id(portfolio.getId())
+                .totalValue(marketValue)
+                .dailyChangeValue(dailyChange)
+                .dailyChangePercent(percent(dailyChange, dayOpenValue))
+                .totalChangeValue(totalChange)
+                .totalChangePercent(percent(totalChange, costBasis))
+                .costBasis(costBasis)
+                .dayOpenValue(dayOpenValue)
+                .holdings(portfolio.getHoldings())
+                .history(portfolio.getHistory())
+                .version(portfolio.getVersion())
+                .build();
+    }
+}
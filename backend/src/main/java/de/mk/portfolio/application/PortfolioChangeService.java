@@ -0,0 +1,64 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.port.in.WatchPortfolioChangesUseCase;
+import de.mk.portfolio.domain.port.out.PortfolioChangeChannelPort;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Fans committed position changes (buys, sells, imports) out over the change channel, so that every
+ * instance can drop what it derived from the old state.
+ */
+@Service
+public class PortfolioChangeService implements WatchPortfolioChangesUseCase {
+
+    private static final Logger logger = LogManager.getLogger(PortfolioChangeService.class);
+
+    private final PortfolioChangeChannelPort portfolioChangeChannelPort;
+    private final List<Consumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+
+    public PortfolioChangeService(PortfolioChangeChannelPort portfolioChangeChannelPort) {
+        this.portfolioChangeChannelPort = portfolioChangeChannelPort;
+    }
+
+    @Override
+    public void onPortfolioChanged(Consumer<UUID> listener) {
+        listeners.add(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startChannel() {
+        portfolioChangeChannelPort.start(this::deliver);
+    }
+
+    @PreDestroy
+    public void stopChannel() {
+        portfolioChangeChannelPort.stop();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(PositionsChangedEvent event) {
+        portfolioChangeChannelPort.publish(event.portfolioId());
+    }
+
+    private void deliver(UUID portfolioId) {
+        for (Consumer<UUID> listener : listeners) {
+            try {
+                listener.accept(portfolioId);
+            } catch (RuntimeException e) {
+                logger.error("Portfolio change listener failed for portfolio {}", portfolioId, e);
+            }
+        }
+    }
+}
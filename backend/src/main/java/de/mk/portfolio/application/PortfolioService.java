@@ -1,139 +1,182 @@
 package de.mk.portfolio.application;
 
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.exception.PortfolioNotFoundException;
+import de.mk.portfolio.domain.model.HistoryRange;
+import de.mk.portfolio.domain.model.HistoryResolution;
 import de.mk.portfolio.domain.model.Holding;
 import de.mk.portfolio.domain.model.Portfolio;
 import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.model.Quote;
 import de.mk.portfolio.domain.port.in.*;
 import de.mk.portfolio.domain.port.out.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.math.RoundingMode;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.Random;
 
 @Service
 public class PortfolioService implements
+        CreatePortfolioUseCase,
         GetPortfolioUseCase,
+        GetPortfolioVersionUseCase,
         GetHoldingsUseCase,
         GetPortfolioHistoryUseCase,
-        AddStockUseCase,
-        SellStockUseCase {
+        AddStockUseCase {
+
+    private static final List<HistoryResolution> COARSEST_FIRST =
+            List.of(HistoryResolution.MONTHLY, HistoryResolution.WEEKLY, HistoryResolution.DAILY);
 
     private final LoadPortfolioPort loadPortfolioPort;
     private final LoadHoldingsPort loadHoldingsPort;
     private final LoadPortfolioHistoryPort loadPortfolioHistoryPort;
     private final SavePortfolioPort savePortfolioPort;
     private final SaveHoldingPort saveHoldingPort;
-    private final DeleteHoldingPort deleteHoldingPort;
-
-    // For simplicity, we'll use a fixed portfolio ID for now
-    private final UUID FIXED_PORTFOLIO_ID = UUID.fromString("a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11");
+    private final PortfolioAggregator portfolioAggregator;
+    private final QuoteCache quoteCache;
+    private final HoldingFactory holdingFactory;
+    private final OptimisticWriteRetry optimisticWriteRetry;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PortfolioService(LoadPortfolioPort loadPortfolioPort, LoadHoldingsPort loadHoldingsPort, LoadPortfolioHistoryPort loadPortfolioHistoryPort, SavePortfolioPort savePortfolioPort, SaveHoldingPort saveHoldingPort, DeleteHoldingPort deleteHoldingPort) {
+    public PortfolioService(LoadPortfolioPort loadPortfolioPort, LoadHoldingsPort loadHoldingsPort, LoadPortfolioHistoryPort loadPortfolioHistoryPort, SavePortfolioPort savePortfolioPort, SaveHoldingPort saveHoldingPort, PortfolioAggregator portfolioAggregator, QuoteCache quoteCache, HoldingFactory holdingFactory, OptimisticWriteRetry optimisticWriteRetry, ApplicationEventPublisher eventPublisher) {
         this.loadPortfolioPort = loadPortfolioPort;
         this.loadHoldingsPort = loadHoldingsPort;
         this.loadPortfolioHistoryPort = loadPortfolioHistoryPort;
         this.savePortfolioPort = savePortfolioPort;
         this.saveHoldingPort = saveHoldingPort;
-        this.deleteHoldingPort = deleteHoldingPort;
+        this.portfolioAggregator = portfolioAggregator;
+        this.quoteCache = quoteCache;
+        this.holdingFactory = holdingFactory;
+        this.optimisticWriteRetry = optimisticWriteRetry;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public Portfolio getPortfolio() {
-        Optional<Portfolio> portfolio = loadPortfolioPort.loadPortfolio(FIXED_PORTFOLIO_ID);
-        if (portfolio.isEmpty()) {
-            // Create a dummy portfolio if none exists
-            return savePortfolioPort.savePortfolio(Portfolio.builder()
-                    .id(FIXED_PORTFOLIO_ID)
-                    .totalValue(new BigDecimal("0.00"))
-                    .dailyChangeValue(new BigDecimal("0.00"))
-                    .dailyChangePercent(new BigDecimal("0.00"))
-                    .totalChangeValue(new BigDecimal("0.00"))
-                    .totalChangePercent(new BigDecimal("0.00"))
-                    .history(List.of())
-                    .build());
-        }
-        return portfolio.get();
+    public Portfolio createPortfolio() {
+        return savePortfolioPort.savePortfolio(Portfolio.builder()
+                .id(UUID.randomUUID())
+                .totalValue(new BigDecimal("0.00"))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .totalChangePercent(new BigDecimal("0.00"))
+                .costBasis(new BigDecimal("0.00"))
+                .dayOpenValue(new BigDecimal("0.00"))
+                .history(List.of())
+                .build());
+    }
+
+    @Override
+    public Portfolio getPortfolio(UUID portfolioId) {
+        return loadPortfolioPort.loadPortfolio(portfolioId)
+                .orElseThrow(() -> new PortfolioNotFoundException(portfolioId));
+    }
+
+    @Override
+    public long getPortfolioVersion(UUID portfolioId) {
+        return loadPortfolioPort.loadPortfolioVersion(portfolioId)
+                .orElseThrow(() -> new PortfolioNotFoundException(portfolioId));
     }
 
     @Override
     public List<Holding> getHoldings(UUID portfolioId) {
         List<Holding> holdings = loadHoldingsPort.loadHoldings(portfolioId);
-        return holdings.stream().map(holding -> {
-            BigDecimal totalChangeValue = (holding.getPrice().subtract(holding.getPurchasePrice())).multiply(new BigDecimal(holding.getQuantity()));
-            BigDecimal totalChangePercent = BigDecimal.ZERO;
-            if (holding.getPurchasePrice().multiply(new BigDecimal(holding.getQuantity())).compareTo(BigDecimal.ZERO) != 0) {
-                totalChangePercent = totalChangeValue.divide(holding.getPurchasePrice().multiply(new BigDecimal(holding.getQuantity())), 4, RoundingMode.HALF_UP).multiply(new BigDecimal(100));
-            }
-            return Holding.builder()
-                    .id(holding.getId())
-                    .portfolioId(holding.getPortfolioId())
-                    .name(holding.getName())
-                    .symbol(holding.getSymbol())
-                    .quantity(holding.getQuantity())
-                    .price(holding.getPrice())
-                    .purchasePrice(holding.getPurchasePrice())
-                    .purchaseDate(holding.getPurchaseDate())
-                    .dailyChangeValue(holding.getDailyChangeValue())
-                    .dailyChangePercent(holding.getDailyChangePercent())
-                    .totalChangeValue(totalChangeValue)
-                    .totalChangePercent(totalChangePercent)
-                    .logoUrl(holding.getLogoUrl())
-                    .build();
-        }).collect(Collectors.toList());
+        if (holdings.isEmpty()) {
+            requireExists(portfolioId);
+        }
+        // Live prices come from the quote cache; the price stored with the holding is the fallback on a miss
+        Map<String, Quote> quotes = quoteCache.getAll(holdings.stream().map(Holding::getSymbol).collect(Collectors.toSet()));
+        List<Holding> valued = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings) {
+            Quote quote = quotes.get(holding.getSymbol());
+            valued.add(HoldingValuation.revalue(holding, quote != null ? quote.price() : null));
+        }
+        return valued;
     }
 
     @Override
-    public List<PortfolioHistory> getPortfolioHistory(UUID portfolioId, String range) {
-        return loadPortfolioHistoryPort.loadPortfolioHistory(portfolioId, range);
+    public void forEachHolding(UUID portfolioId, Consumer<Holding> action) {
+        // Valued one by one, as the symbols are not known before the lots are read
+        AtomicBoolean found = new AtomicBoolean();
+        loadHoldingsPort.forEachHolding(portfolioId, holding -> {
+            found.set(true);
+            action.accept(HoldingValuation.revalue(holding, quoteCache.get(holding.getSymbol()).map(Quote::price).orElse(null)));
+        });
+        if (!found.get()) {
+            requireExists(portfolioId);
+        }
     }
 
     @Override
-    public Holding addStock(AddStockCommand command) {
-        Portfolio portfolio = getPortfolio(); // This will create a dummy portfolio if none exists
+    public List<PortfolioHistory> getPortfolioHistory(UUID portfolioId, HistoryRange range, Integer maxPoints) {
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = range.startDate(today);
+        if (maxPoints == null) {
+            return requireExistsIfEmpty(portfolioId,
+                    loadPortfolioHistoryPort.loadPortfolioHistory(portfolioId, fromDate, HistoryResolution.DAILY));
+        }
+        // The coarsest series that still fills the point budget; a portfolio younger than the range
+        // yields fewer points than estimated, so a short series falls through to the next finer one
+        for (HistoryResolution resolution : COARSEST_FIRST) {
+            if (resolution != HistoryResolution.DAILY && resolution.maxPoints(fromDate, today) < maxPoints) {
+                continue;
+            }
+            List<PortfolioHistory> history = loadPortfolioHistoryPort.loadPortfolioHistory(portfolioId, fromDate, resolution);
+            if (resolution == HistoryResolution.DAILY || history.size() >= maxPoints) {
+                return HistoryDownsampler.downsample(requireExistsIfEmpty(portfolioId, history), maxPoints);
+            }
+        }
+        throw new IllegalStateException("No history resolution left for portfolio " + portfolioId);
+    }
 
-        // Simulate a random price change
-        BigDecimal purchasePrice = command.purchasePrice();
-        double percentageChange = (new Random().nextDouble() * 0.2) - 0.1; // -0.1 to 0.1
-        BigDecimal price = purchasePrice.multiply(BigDecimal.ONE.add(new BigDecimal(percentageChange)));
+    @Override
+    public void forEachPortfolioHistory(UUID portfolioId, HistoryRange range, Consumer<PortfolioHistory> action) {
+        AtomicBoolean found = new AtomicBoolean();
+        loadPortfolioHistoryPort.forEachPortfolioHistory(portfolioId, range.startDate(LocalDate.now()), point -> {
+            found.set(true);
+            action.accept(point);
+        });
+        if (!found.get()) {
+            requireExists(portfolioId);
+        }
+    }
 
-        Holding newHolding = Holding.builder()
-                .id(UUID.randomUUID())
-                .portfolioId(portfolio.getId())
-                .name(command.symbol() + " Company") // Dummy name for now
-                .symbol(command.symbol())
-                .quantity(command.quantity().intValue()) // Assuming quantity is int for Holding model
-                .price(price) // Set current price with random change
-                .purchasePrice(purchasePrice)
-                .purchaseDate(command.purchaseDate())
-                .dailyChangeValue(BigDecimal.ZERO)
-                .dailyChangePercent(BigDecimal.ZERO)
-                .totalChangeValue(BigDecimal.ZERO)
-                .totalChangePercent(BigDecimal.ZERO)
-                .logoUrl("https://logo.clearbit.com/" + command.symbol().toLowerCase() + ".com")
-                .build();
-
-        Holding savedHolding = saveHoldingPort.saveHolding(newHolding);
-
-        // Update portfolio total value (simplified for now)
-        BigDecimal newTotalValue = portfolio.getTotalValue().add(price.multiply(command.quantity()));
-        portfolio = portfolio.withTotalValue(newTotalValue);
-        savePortfolioPort.savePortfolio(portfolio);
-
-        return savedHolding;
+    // Reads of a portfolio's rows cannot tell an empty portfolio from a missing one; only an empty
+    // result costs the extra lookup
+    private <T> List<T> requireExistsIfEmpty(UUID portfolioId, List<T> rows) {
+        if (rows.isEmpty()) {
+            requireExists(portfolioId);
+        }
+        return rows;
+    }
+
+    private void requireExists(UUID portfolioId) {
+        if (loadPortfolioPort.loadPortfolioVersion(portfolioId).isEmpty()) {
+            throw new PortfolioNotFoundException(portfolioId);
+        }
     }
 
     @Override
-    public void sellStock(UUID portfolioId, String symbol, int quantity) {
-        // In a real application, you would find the holding and update its quantity or delete it
-        // For simplicity, we'll just delete it for now
-        loadHoldingsPort.loadHoldings(portfolioId).stream()
-                .filter(h -> h.getSymbol().equals(symbol))
-                .findFirst()
-                .ifPresent(holding -> deleteHoldingPort.deleteHolding(holding.getId()));
+    public Holding addStock(UUID portfolioId, AddStockCommand command) {
+        return optimisticWriteRetry.execute(() -> {
+            Portfolio portfolio = getPortfolio(portfolioId);
+
+            Holding newHolding = holdingFactory.newLot(portfolio.getId(), command);
+
+            Holding savedHolding = saveHoldingPort.saveHolding(newHolding);
+
+            savePortfolioPort.savePortfolio(portfolioAggregator.applyBuy(portfolio, savedHolding));
+            eventPublisher.publishEvent(new PositionsChangedEvent(portfolioId));
+
+            return savedHolding;
+        });
     }
 }
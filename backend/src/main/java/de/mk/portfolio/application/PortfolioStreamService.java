@@ -0,0 +1,266 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.event.PricesChangedEvent;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.model.PortfolioUpdate;
+import de.mk.portfolio.domain.port.in.GetHoldingsUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.SubscribePortfolioUpdatesUseCase;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Fans portfolio changes out to live subscribers.
+ * <p>
+ * Change events only mark the affected portfolios dirty. Each publish cycle loads every dirty
+ * portfolio once, however many clients watch it, diffs it against the state of the previous cycle
+ * and offers the delta to the subscribers. The dirty portfolios of a cycle are loaded in parallel, a
+ * bounded number at a time. Every subscriber sends on its own virtual thread, one
+ * update at a time; what arrives meanwhile is conflated into a single pending update.
+ */
+@Service
+public class PortfolioStreamService implements SubscribePortfolioUpdatesUseCase {
+
+    private static final Logger logger = LogManager.getLogger(PortfolioStreamService.class);
+
+    private final GetPortfolioUseCase getPortfolioUseCase;
+    private final GetHoldingsUseCase getHoldingsUseCase;
+    private final int publishParallelism;
+
+    private final Map<UUID, Topic> topics = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("portfolio-stream-", 0).factory());
+
+    public PortfolioStreamService(GetPortfolioUseCase getPortfolioUseCase, GetHoldingsUseCase getHoldingsUseCase,
+                                  @Value("${portfolio.stream.publish-parallelism:8}") int publishParallelism) {
+        if (publishParallelism < 1) {
+            throw new IllegalArgumentException("Stream publish parallelism must be positive");
+        }
+        this.getPortfolioUseCase = getPortfolioUseCase;
+        this.getHoldingsUseCase = getHoldingsUseCase;
+        this.publishParallelism = publishParallelism;
+    }
+
+    @Override
+    public Subscription subscribe(UUID portfolioId, Consumer<PortfolioUpdate> listener) {
+        Portfolio portfolio = getPortfolioUseCase.getPortfolio(portfolioId);
+        List<Holding> holdings = getHoldingsUseCase.getHoldings(portfolioId);
+        Subscriber subscriber = new Subscriber(portfolioId, listener);
+        // Queued before the subscriber can receive deltas, so they are merged into the snapshot and not the other way round
+        subscriber.offer(new PortfolioUpdate(portfolioId, true, portfolio, holdings, List.of()));
+        // Added inside compute: unsubscribe drops a topic once it is empty, which must not happen between
+        // looking the topic up and adding to it
+        topics.compute(portfolioId, (id, topic) -> {
+            if (subscriber.closed) {
+                return topic;
+            }
+            Topic current = topic != null ? topic : new Topic(id);
+            current.subscribers.add(subscriber);
+            return current;
+        });
+        return subscriber;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(PositionsChangedEvent event) {
+        Topic topic = topics.get(event.portfolioId());
+        if (topic != null) {
+            topic.dirty.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(PricesChangedEvent event) {
+        for (Topic topic : topics.values()) {
+            if (topic.holdsAnyOf(event.symbols())) {
+                topic.dirty.set(true);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.stream.publish-interval-ms:500}")
+    public void publish() {
+        // Closing the pool waits for the cycle, so a topic is never advanced by two cycles at once
+        try (ExecutorService loaders = Executors.newFixedThreadPool(publishParallelism, Thread.ofVirtual().name("portfolio-publish-", 0).factory())) {
+            for (Topic topic : topics.values()) {
+                if (topic.dirty.getAndSet(false)) {
+                    loaders.execute(() -> publish(topic));
+                }
+            }
+        }
+    }
+
+    private void publish(Topic topic) {
+        try {
+            PortfolioUpdate delta = topic.advance(
+                    getPortfolioUseCase.getPortfolio(topic.portfolioId),
+                    getHoldingsUseCase.getHoldings(topic.portfolioId));
+            if (!delta.isEmpty()) {
+                topic.subscribers.forEach(subscriber -> subscriber.offer(delta));
+            }
+        } catch (RuntimeException e) {
+            topic.dirty.set(true);
+            logger.error("Failed to publish update of portfolio {}", topic.portfolioId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        topics.computeIfPresent(subscriber.portfolioId, (id, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    /**
+     * Subscribers of one portfolio and the state they were last sent. Only the publish cycle reads or
+     * replaces the state.
+     */
+    private static final class Topic {
+
+        private final UUID portfolioId;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // A new topic has no state to diff against yet; its first cycle sends the full state as a delta
+        private final AtomicBoolean dirty = new AtomicBoolean(true);
+        private volatile Set<String> symbols = Set.of();
+        private Portfolio portfolio;
+        private Map<UUID, Holding> holdings = Map.of();
+
+        private Topic(UUID portfolioId) {
+            this.portfolioId = portfolioId;
+        }
+
+        private boolean holdsAnyOf(Set<String> changedSymbols) {
+            Set<String> held = symbols;
+            for (String symbol : changedSymbols) {
+                if (held.contains(symbol)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private PortfolioUpdate advance(Portfolio currentPortfolio, List<Holding> currentHoldings) {
+            Map<UUID, Holding> current = new HashMap<>(currentHoldings.size() * 2);
+            Set<String> currentSymbols = new HashSet<>();
+            List<Holding> changed = new ArrayList<>();
+            for (Holding holding : currentHoldings) {
+                current.put(holding.getId(), holding);
+                currentSymbols.add(holding.getSymbol());
+                if (!sameValuation(holdings.get(holding.getId()), holding)) {
+                    changed.add(holding);
+                }
+            }
+            List<UUID> removed = new ArrayList<>();
+            for (UUID id : holdings.keySet()) {
+                if (!current.containsKey(id)) {
+                    removed.add(id);
+                }
+            }
+            Portfolio changedPortfolio = sameValuation(portfolio, currentPortfolio) ? null : currentPortfolio;
+
+            portfolio = currentPortfolio;
+            holdings = current;
+            symbols = currentSymbols;
+            return new PortfolioUpdate(portfolioId, false, changedPortfolio, changed, removed);
+        }
+
+        private static boolean sameValuation(Holding previous, Holding current) {
+            return previous != null
+                    && Objects.equals(previous.getQuantity(), current.getQuantity())
+                    && sameAmount(previous.getPrice(), current.getPrice())
+                    && sameAmount(previous.getDailyChangeValue(), current.getDailyChangeValue())
+                    && sameAmount(previous.getTotalChangeValue(), current.getTotalChangeValue());
+        }
+
+        private static boolean sameValuation(Portfolio previous, Portfolio current) {
+            return previous != null
+                    && sameAmount(previous.getTotalValue(), current.getTotalValue())
+                    && sameAmount(previous.getDailyChangeValue(), current.getDailyChangeValue())
+                    && sameAmount(previous.getTotalChangeValue(), current.getTotalChangeValue());
+        }
+
+        private static boolean sameAmount(BigDecimal previous, BigDecimal current) {
+            return previous == null ? current == null : current != null && previous.compareTo(current) == 0;
+        }
+    }
+
+    private final class Subscriber implements Subscription {
+
+        private final UUID portfolioId;
+        private final Consumer<PortfolioUpdate> listener;
+        private final AtomicReference<PortfolioUpdate> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(UUID portfolioId, Consumer<PortfolioUpdate> listener) {
+            this.portfolioId = portfolioId;
+            this.listener = listener;
+        }
+
+        private void offer(PortfolioUpdate update) {
+            if (closed) {
+                return;
+            }
+            pending.accumulateAndGet(update, (queued, next) -> queued == null ? next : queued.mergedWith(next));
+            scheduleSend();
+        }
+
+        private void scheduleSend() {
+            if (pending.get() != null && sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                PortfolioUpdate update;
+                while (!closed && (update = pending.getAndSet(null)) != null) {
+                    listener.accept(update);
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Dropping subscriber of portfolio {}: {}", portfolioId, e.getMessage());
+                close();
+            } finally {
+                sending.set(false);
+            }
+            // An offer may have come in between the last poll and releasing the flag
+            if (!closed) {
+                scheduleSend();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            pending.set(null);
+            unsubscribe(this);
+        }
+    }
+}
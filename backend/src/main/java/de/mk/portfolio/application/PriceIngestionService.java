@@ -0,0 +1,94 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PricesChangedEvent;
+import de.mk.portfolio.domain.model.PriceTick;
+import de.mk.portfolio.domain.model.Quote;
+import de.mk.portfolio.domain.port.out.PriceFeedPort;
+import de.mk.portfolio.domain.port.out.RevalueHoldingsPort;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Receives market price ticks and revalues holdings in periodic batches.
+ * <p>
+ * Ticks are coalesced per symbol in memory, only the most recent one survives until the next flush.
+ * The database work per flush therefore depends on the number of symbols that moved, not on the
+ * tick rate.
+ */
+@Service
+public class PriceIngestionService {
+
+    private static final Logger logger = LogManager.getLogger(PriceIngestionService.class);
+
+    private final ObjectProvider<PriceFeedPort> priceFeedPort;
+    private final RevalueHoldingsPort revalueHoldingsPort;
+    private final QuoteCache quoteCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, PriceTick> pendingTicks = new ConcurrentHashMap<>();
+
+    public PriceIngestionService(ObjectProvider<PriceFeedPort> priceFeedPort, RevalueHoldingsPort revalueHoldingsPort, QuoteCache quoteCache, ApplicationEventPublisher eventPublisher) {
+        this.priceFeedPort = priceFeedPort;
+        this.revalueHoldingsPort = revalueHoldingsPort;
+        this.quoteCache = quoteCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFeed() {
+        priceFeedPort.ifAvailable(feed -> feed.start(this::ingest));
+    }
+
+    @PreDestroy
+    public void stopFeed() {
+        priceFeedPort.ifAvailable(PriceFeedPort::stop);
+    }
+
+    public void ingest(PriceTick tick) {
+        PriceTick rounded = new PriceTick(tick.symbol(), tick.price().setScale(PortfolioAggregator.SCALE, RoundingMode.HALF_UP), tick.timestamp());
+        pendingTicks.merge(rounded.symbol(), rounded, PriceIngestionService::newer);
+        // Readers see the new price right away, the holding rows catch up with the next flush
+        quoteCache.put(new Quote(rounded.symbol(), rounded.price(), rounded.timestamp()));
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.price-feed.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingTicks.isEmpty()) {
+            return;
+        }
+        List<PriceTick> batch = new ArrayList<>(pendingTicks.size());
+        for (String symbol : pendingTicks.keySet()) {
+            PriceTick tick = pendingTicks.remove(symbol);
+            if (tick != null) {
+                batch.add(tick);
+            }
+        }
+        try {
+            revalueHoldingsPort.revalueHoldings(batch);
+            logger.debug("Revalued holdings for {} symbols", batch.size());
+            eventPublisher.publishEvent(new PricesChangedEvent(batch.stream().map(PriceTick::symbol).collect(Collectors.toSet())));
+        } catch (RuntimeException e) {
+            // Put the batch back unless a newer tick arrived meanwhile, the next flush retries it
+            batch.forEach(tick -> pendingTicks.merge(tick.symbol(), tick, PriceIngestionService::newer));
+            logger.error("Failed to revalue holdings for {} symbols", batch.size(), e);
+        }
+    }
+
+    private static PriceTick newer(PriceTick current, PriceTick candidate) {
+        return candidate.timestamp().isBefore(current.timestamp()) ? current : candidate;
+    }
+}
@@ -0,0 +1,57 @@
+package de.mk.portfolio.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.mk.portfolio.domain.model.Quote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Live quotes keyed by symbol. Bounded in size (Caffeine's W-TinyLFU eviction) and in age: a quote
+ * that has not been refreshed by the price feed within the configured staleness is dropped, and
+ * readers fall back to the price stored with the holding.
+ */
+@Component
+public class QuoteCache {
+
+    private final Cache<String, Quote> quotes;
+
+    public QuoteCache(@Value("${portfolio.quote-cache.max-size:10000}") long maxSize,
+                      @Value("${portfolio.quote-cache.max-staleness:PT5M}") Duration maxStaleness) {
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxStaleness)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Quote> get(String symbol) {
+        return Optional.ofNullable(quotes.getIfPresent(symbol));
+    }
+
+    /**
+     * Looks up several symbols at once; symbols without a fresh quote are absent from the result.
+     */
+    public Map<String, Quote> getAll(Iterable<String> symbols) {
+        return quotes.getAllPresent(symbols);
+    }
+
+    public void put(Quote quote) {
+        // Ticks may arrive out of order, an older quote never replaces a newer one
+        quotes.asMap().merge(quote.symbol(), quote,
+                (current, candidate) -> candidate.asOf().isBefore(current.asOf()) ? current : candidate);
+    }
+
+    public CacheStats stats() {
+        return quotes.stats();
+    }
+
+    public long size() {
+        return quotes.estimatedSize();
+    }
+}
@@ -0,0 +1,193 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.exception.InsufficientQuantityException;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.LotMatchingMethod;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.model.Quote;
+import de.mk.portfolio.domain.model.RealizedTrade;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.SellStockUseCase;
+import de.mk.portfolio.domain.port.out.DeleteHoldingPort;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import de.mk.portfolio.domain.port.out.SaveRealizedTradesPort;
+import de.mk.portfolio.domain.port.out.SavePortfolioPort;
+import de.mk.portfolio.domain.port.out.UpdateHoldingPort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sells shares out of the lots of a symbol.
+ * <p>
+ * FIFO and LIFO consume whole lots and reduce the last one touched; every consumed lot is recorded as
+ * a realized trade at its own purchase price. Average cost consumes lots oldest first as well, but
+ * prices the sale at the average purchase price of all lots and moves the remaining lots to that
+ * price, so later sells see the same average.
+ */
+@Service
+public class SellStockService implements SellStockUseCase {
+
+    private final GetPortfolioUseCase getPortfolioUseCase;
+    private final LoadHoldingsPort loadHoldingsPort;
+    private final UpdateHoldingPort updateHoldingPort;
+    private final DeleteHoldingPort deleteHoldingPort;
+    private final SavePortfolioPort savePortfolioPort;
+    private final SaveRealizedTradesPort saveRealizedTradesPort;
+    private final PortfolioAggregator portfolioAggregator;
+    private final QuoteCache quoteCache;
+    private final OptimisticWriteRetry optimisticWriteRetry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LotMatchingMethod lotMatchingMethod;
+
+    public SellStockService(GetPortfolioUseCase getPortfolioUseCase, LoadHoldingsPort loadHoldingsPort, UpdateHoldingPort updateHoldingPort, DeleteHoldingPort deleteHoldingPort, SavePortfolioPort savePortfolioPort, SaveRealizedTradesPort saveRealizedTradesPort, PortfolioAggregator portfolioAggregator, QuoteCache quoteCache, OptimisticWriteRetry optimisticWriteRetry, ApplicationEventPublisher eventPublisher,
+                            @Value("${portfolio.lot-matching:FIFO}") LotMatchingMethod lotMatchingMethod) {
+        this.getPortfolioUseCase = getPortfolioUseCase;
+        this.loadHoldingsPort = loadHoldingsPort;
+        this.updateHoldingPort = updateHoldingPort;
+        this.deleteHoldingPort = deleteHoldingPort;
+        this.savePortfolioPort = savePortfolioPort;
+        this.saveRealizedTradesPort = saveRealizedTradesPort;
+        this.portfolioAggregator = portfolioAggregator;
+        this.quoteCache = quoteCache;
+        this.optimisticWriteRetry = optimisticWriteRetry;
+        this.eventPublisher = eventPublisher;
+        this.lotMatchingMethod = lotMatchingMethod;
+    }
+
+    @Override
+    public void sellStock(UUID portfolioId, String symbol, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        optimisticWriteRetry.executeWithoutResult(() -> sell(portfolioId, symbol, quantity));
+    }
+
+    private void sell(UUID portfolioId, String symbol, int quantity) {
+        Portfolio portfolio = getPortfolioUseCase.getPortfolio(portfolioId);
+        List<Holding> lots = new ArrayList<>(loadHoldingsPort.loadHoldings(portfolioId, symbol));
+        int held = lots.stream().mapToInt(Holding::getQuantity).sum();
+        if (held < quantity) {
+            throw new InsufficientQuantityException(symbol, quantity, held);
+        }
+        if (lotMatchingMethod == LotMatchingMethod.LIFO) {
+            lots = lots.reversed();
+        }
+        BigDecimal salePrice = quoteCache.get(symbol)
+                .map(Quote::price)
+                .orElse(lots.get(0).getPrice())
+                .setScale(PortfolioAggregator.SCALE, RoundingMode.HALF_UP);
+        LocalDate saleDate = LocalDate.now();
+        BigDecimal costBasisBefore = costBasis(lots);
+
+        List<RealizedTrade> realizedTrades = new ArrayList<>();
+        List<Holding> remainingLots = new ArrayList<>();
+        int toSell = quantity;
+        for (Holding lot : lots) {
+            if (toSell == 0) {
+                remainingLots.add(lot);
+                continue;
+            }
+            int sold = Math.min(toSell, lot.getQuantity());
+            toSell -= sold;
+            portfolio = portfolioAggregator.applySell(portfolio, lot, sold);
+            if (sold == lot.getQuantity()) {
+                deleteHoldingPort.deleteHolding(lot.getId());
+            } else {
+                Holding reduced = reduce(lot, sold);
+                updateHoldingPort.updateHolding(reduced);
+                remainingLots.add(reduced);
+            }
+            if (lotMatchingMethod != LotMatchingMethod.AVERAGE_COST) {
+                BigDecimal soldQuantity = BigDecimal.valueOf(sold);
+                realizedTrades.add(realizedTrade(portfolioId, symbol, sold, lot.getPurchaseDate(), saleDate,
+                        lot.getPurchasePrice().multiply(soldQuantity), salePrice.multiply(soldQuantity)));
+            }
+        }
+
+        if (lotMatchingMethod == LotMatchingMethod.AVERAGE_COST) {
+            int remainingQuantity = held - quantity;
+            BigDecimal averagePrice = costBasisBefore.divide(BigDecimal.valueOf(held), PortfolioAggregator.SCALE, RoundingMode.HALF_UP);
+            for (Holding lot : remainingLots) {
+                if (lot.getPurchasePrice().compareTo(averagePrice) != 0) {
+                    Holding repriced = reprice(lot, averagePrice);
+                    portfolio = portfolioAggregator.applyBuy(portfolioAggregator.applySell(portfolio, lot, lot.getQuantity()), repriced);
+                    updateHoldingPort.updateHolding(repriced);
+                }
+            }
+            // What the remaining shares carry at the average price stays, the rest of the cost is released
+            BigDecimal releasedCost = costBasisBefore.subtract(averagePrice.multiply(BigDecimal.valueOf(remainingQuantity)));
+            realizedTrades.add(realizedTrade(portfolioId, symbol, quantity, null, saleDate,
+                    releasedCost, salePrice.multiply(BigDecimal.valueOf(quantity))));
+        }
+
+        saveRealizedTradesPort.saveRealizedTrades(realizedTrades);
+        savePortfolioPort.savePortfolio(portfolio);
+        eventPublisher.publishEvent(new PositionsChangedEvent(portfolioId));
+    }
+
+    private RealizedTrade realizedTrade(UUID portfolioId, String symbol, int quantity, LocalDate purchaseDate, LocalDate saleDate,
+                                        BigDecimal costBasis, BigDecimal proceeds) {
+        return new RealizedTrade(UUID.randomUUID(), portfolioId, symbol, quantity, purchaseDate, saleDate,
+                costBasis, proceeds, proceeds.subtract(costBasis), lotMatchingMethod);
+    }
+
+    private static BigDecimal costBasis(List<Holding> lots) {
+        BigDecimal costBasis = BigDecimal.ZERO;
+        for (Holding lot : lots) {
+            costBasis = costBasis.add(lot.getPurchasePrice().multiply(BigDecimal.valueOf(lot.getQuantity())));
+        }
+        return costBasis;
+    }
+
+    /**
+     * The part of a lot that is left after selling {@code sold} of its shares. The daily change is
+     * split the way {@link PortfolioAggregator#applySell} splits it, so lot and portfolio stay in step.
+     */
+    private static Holding reduce(Holding lot, int sold) {
+        int remaining = lot.getQuantity() - sold;
+        BigDecimal remainingQuantity = BigDecimal.valueOf(remaining);
+        return Holding.builder()
+                .id(lot.getId())
+                .portfolioId(lot.getPortfolioId())
+                .name(lot.getName())
+                .symbol(lot.getSymbol())
+                .quantity(remaining)
+                .price(lot.getPrice())
+                .purchasePrice(lot.getPurchasePrice())
+                .purchaseDate(lot.getPurchaseDate())
+                .dailyChangeValue(lot.getDailyChangeValue().subtract(PortfolioAggregator.dailyChangeShare(lot, sold)))
+                .dailyChangePercent(lot.getDailyChangePercent())
+                .totalChangeValue(lot.getPrice().subtract(lot.getPurchasePrice()).multiply(remainingQuantity))
+                .totalChangePercent(lot.getTotalChangePercent())
+                .logoUrl(lot.getLogoUrl())
+                .build();
+    }
+
+    private static Holding reprice(Holding lot, BigDecimal purchasePrice) {
+        BigDecimal priceGain = lot.getPrice().subtract(purchasePrice);
+        return Holding.builder()
+                .id(lot.getId())
+                .portfolioId(lot.getPortfolioId())
+                .name(lot.getName())
+                .symbol(lot.getSymbol())
+                .quantity(lot.getQuantity())
+                .price(lot.getPrice())
+                .purchasePrice(purchasePrice)
+                .purchaseDate(lot.getPurchaseDate())
+                .dailyChangeValue(lot.getDailyChangeValue())
+                .dailyChangePercent(lot.getDailyChangePercent())
+                .totalChangeValue(priceGain.multiply(BigDecimal.valueOf(lot.getQuantity())))
+                .totalChangePercent(PortfolioAggregator.percent(priceGain, purchasePrice))
+                .logoUrl(lot.getLogoUrl())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.BackdatedTradesImportedEvent;
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+import de.mk.portfolio.domain.port.out.SaveHoldingsPort;
+import de.mk.portfolio.domain.port.out.SavePortfolioPort;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk import of buy trades, e.g. from a broker export.
+ * <p>
+ * Trades are pulled from the iterator one batch at a time, so memory stays bounded by the batch size.
+ * Each batch is inserted with one batched statement and moves the portfolio aggregate once; a batch
+ * that collides with a concurrent change of the portfolio is written again against the new state. Trades
+ * bought before today leave a gap in the history, which is backfilled once the import is done.
+ */
+@Service
+public class TradeImportService implements ImportTradesUseCase {
+
+    private static final Logger logger = LogManager.getLogger(TradeImportService.class);
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_SYMBOL_LENGTH = 10;
+
+    private final GetPortfolioUseCase getPortfolioUseCase;
+    private final SaveHoldingsPort saveHoldingsPort;
+    private final SavePortfolioPort savePortfolioPort;
+    private final PortfolioAggregator portfolioAggregator;
+    private final HoldingFactory holdingFactory;
+    private final OptimisticWriteRetry optimisticWriteRetry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public TradeImportService(GetPortfolioUseCase getPortfolioUseCase, SaveHoldingsPort saveHoldingsPort, SavePortfolioPort savePortfolioPort, PortfolioAggregator portfolioAggregator, HoldingFactory holdingFactory, OptimisticWriteRetry optimisticWriteRetry, ApplicationEventPublisher eventPublisher,
+                              @Value("${portfolio.import.batch-size:1000}") int batchSize) {
+        this.getPortfolioUseCase = getPortfolioUseCase;
+        this.saveHoldingsPort = saveHoldingsPort;
+        this.savePortfolioPort = savePortfolioPort;
+        this.portfolioAggregator = portfolioAggregator;
+        this.holdingFactory = holdingFactory;
+        this.optimisticWriteRetry = optimisticWriteRetry;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ImportResult importTrades(UUID portfolioId, Iterator<Trade> trades) {
+        getPortfolioUseCase.getPortfolio(portfolioId);
+        LocalDate today = LocalDate.now();
+        List<Holding> batch = new ArrayList<>(batchSize);
+        List<String> errors = new ArrayList<>();
+        int imported = 0;
+        int rejected = 0;
+        LocalDate earliestPurchaseDate = today;
+
+        while (trades.hasNext()) {
+            Trade next = trades.next();
+            AddStockCommand trade = next.command();
+            String error = validate(trade, today);
+            if (error != null) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(next.position() + ": " + error);
+                }
+                continue;
+            }
+            batch.add(holdingFactory.newLot(portfolioId, trade));
+            if (trade.purchaseDate().isBefore(earliestPurchaseDate)) {
+                earliestPurchaseDate = trade.purchaseDate();
+            }
+            if (batch.size() == batchSize) {
+                writeBatch(portfolioId, batch);
+                imported += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(portfolioId, batch);
+            imported += batch.size();
+        }
+
+        if (earliestPurchaseDate.isBefore(today)) {
+            eventPublisher.publishEvent(new BackdatedTradesImportedEvent(portfolioId, earliestPurchaseDate));
+        }
+        logger.info("Imported {} trades into portfolio {}, rejected {}", imported, portfolioId, rejected);
+        return new ImportResult(imported, rejected, List.copyOf(errors));
+    }
+
+    private void writeBatch(UUID portfolioId, List<Holding> batch) {
+        // The portfolio is read inside the transaction: prices move it between batches anyway
+        optimisticWriteRetry.executeWithoutResult(() -> {
+            Portfolio portfolio = getPortfolioUseCase.getPortfolio(portfolioId);
+            saveHoldingsPort.saveHoldings(batch);
+            savePortfolioPort.savePortfolio(portfolioAggregator.applyBuys(portfolio, batch));
+            eventPublisher.publishEvent(new PositionsChangedEvent(portfolioId));
+        });
+    }
+
+    private static String validate(AddStockCommand trade, LocalDate today) {
+        if (trade.symbol() == null || trade.symbol().isBlank()) {
+            return "symbol is missing";
+        }
+        if (trade.symbol().length() > MAX_SYMBOL_LENGTH) {
+            return "symbol is longer than " + MAX_SYMBOL_LENGTH + " characters";
+        }
+        if (trade.quantity() == null || trade.quantity().signum() <= 0) {
+            return "quantity must be positive";
+        }
+        if (trade.quantity().stripTrailingZeros().scale() > 0
+                || trade.quantity().compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0) {
+            return "quantity must be a whole number of shares";
+        }
+        if (trade.purchasePrice() == null || trade.purchasePrice().signum() < 0) {
+            return "purchase price must not be negative";
+        }
+        if (trade.purchaseDate() == null) {
+            return "purchase date is missing";
+        }
+        if (trade.purchaseDate().isAfter(today)) {
+            return "purchase date is in the future";
+        }
+        return null;
+    }
+}
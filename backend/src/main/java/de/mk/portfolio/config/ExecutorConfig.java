@@ -0,0 +1,35 @@
+package de.mk.portfolio.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs the parallel reads of a dashboard request. Bounded so that a burst of dashboard requests
+     * cannot claim more concurrent database work than the pool allows; when it is saturated the
+     * request thread runs the read itself instead of queueing without limit. Reads keep the replica
+     * routing of the request.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor(@Value("${portfolio.dashboard.fan-out-threads:16}") int threads,
+                                                    @Value("${portfolio.dashboard.fan-out-queue-capacity:256}") int queueCapacity,
+                                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(ReadRouting::propagate);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("dashboard-", 0).factory());
+        }
+        return executor;
+    }
+}
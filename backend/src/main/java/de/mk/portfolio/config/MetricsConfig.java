@@ -0,0 +1,58 @@
+package de.mk.portfolio.config;
+
+import de.mk.portfolio.adapter.web.RenderedResponseCache;
+import de.mk.portfolio.application.QuoteCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Hits, misses, evictions and size of the quote cache, under the names Micrometer uses for its
+     * cache binders ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}). A miss means the
+     * holding was valued at its stored price.
+     */
+    @Bean
+    public MeterBinder quoteCacheMetrics(QuoteCache quoteCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", quoteCache, cache -> cache.stats().hitCount())
+                    .tags("cache", "quotes", "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", quoteCache, cache -> cache.stats().missCount())
+                    .tags("cache", "quotes", "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", quoteCache, cache -> cache.stats().evictionCount())
+                    .tags("cache", "quotes")
+                    .register(registry);
+            Gauge.builder("cache.size", quoteCache, QuoteCache::size)
+                    .tags("cache", "quotes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * The same meters for the rendered response cache. A hit means a read was answered with the version
+     * lookup only.
+     */
+    @Bean
+    public MeterBinder renderedResponseCacheMetrics(RenderedResponseCache responseCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", responseCache, cache -> cache.stats().hitCount())
+                    .tags("cache", "responses", "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", responseCache, cache -> cache.stats().missCount())
+                    .tags("cache", "responses", "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", responseCache, cache -> cache.stats().evictionCount())
+                    .tags("cache", "responses")
+                    .register(registry);
+            Gauge.builder("cache.size", responseCache, RenderedResponseCache::size)
+                    .tags("cache", "responses")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package de.mk.portfolio.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Times every call through a port: use cases (in-ports) as {@code portfolio.use.case}, adapters
+ * (out-ports) as {@code portfolio.port}, tagged with the implementing class, the method and the
+ * exception thrown, if any. Timers publish percentile histograms, so latency quantiles can be
+ * aggregated across instances. Calls that return a collection also record its size, e.g. the
+ * holdings loaded or the history points returned per request.
+ * <p>
+ * Calls within one class do not pass the proxy and are covered by the timer of the outer call.
+ */
+@Aspect
+@Component
+public class PortMetricsAspect {
+
+    static final String USE_CASE_TIMER = "portfolio.use.case";
+    static final String PORT_TIMER = "portfolio.port";
+
+    private final MeterRegistry meterRegistry;
+
+    public PortMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* de.mk.portfolio.domain.port.in..*.*(..))")
+    public Object timeUseCase(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(USE_CASE_TIMER, joinPoint);
+    }
+
+    @Around("execution(* de.mk.portfolio.domain.port.out..*.*(..))")
+    public Object timePort(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(PORT_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        String exception = "none";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Collection<?> collection) {
+                DistributionSummary.builder(name + ".results")
+                        .description("Number of elements returned per call")
+                        .tags("class", className, "method", method)
+                        .register(meterRegistry)
+                        .record(collection.size());
+            }
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tags("class", className, "method", method, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
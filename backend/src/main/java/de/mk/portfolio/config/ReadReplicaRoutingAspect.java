@@ -0,0 +1,40 @@
+package de.mk.portfolio.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes the portfolio read use cases to the replica. A read called from within a write transaction,
+ * e.g. the portfolio a sell starts from, stays on the primary together with the transaction.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty("portfolio.datasource.replica.url")
+public class ReadReplicaRoutingAspect {
+
+    @Around("execution(* de.mk.portfolio.domain.port.in.GetPortfolioUseCase.*(..))"
+            + " || execution(* de.mk.portfolio.domain.port.in.GetPortfolioVersionUseCase.*(..))"
+            + " || execution(* de.mk.portfolio.domain.port.in.GetHoldingsUseCase.*(..))"
+            + " || execution(* de.mk.portfolio.domain.port.in.GetPortfolioHistoryUseCase.*(..))")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        return ReadRouting.onReplica(() -> proceed(joinPoint));
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // Use cases declare no checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+}
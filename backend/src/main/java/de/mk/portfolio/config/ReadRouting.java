@@ -0,0 +1,81 @@
+package de.mk.portfolio.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Which database the reads of the current thread go to, for {@link ReplicaRoutingDataSource}.
+ * <p>
+ * Reads marked with {@link #onReplica} use the replica, unless the thread is pinned to the primary
+ * because the client has just written and must read its own writes. Work handed to another thread
+ * carries the routing along via {@link #propagate}.
+ */
+public final class ReadRouting {
+
+    private enum Route {REPLICA, PRIMARY}
+
+    private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    static boolean isReplicaRead() {
+        return ROUTE.get() == Route.REPLICA;
+    }
+
+    /**
+     * Runs the reads on the replica, unless the thread is pinned to the primary.
+     */
+    public static <T> T onReplica(Supplier<T> reads) {
+        Route previous = ROUTE.get();
+        if (previous == Route.PRIMARY) {
+            return reads.get();
+        }
+        ROUTE.set(Route.REPLICA);
+        try {
+            return reads.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Keeps every read of the thread on the primary until the returned pin is closed.
+     */
+    public static Pin pinToPrimary() {
+        Route previous = ROUTE.get();
+        ROUTE.set(Route.PRIMARY);
+        return () -> restore(previous);
+    }
+
+    /**
+     * Wraps a task so that it runs with the routing of the thread that submits it.
+     */
+    public static Runnable propagate(Runnable task) {
+        Route route = ROUTE.get();
+        if (route == null) {
+            return task;
+        }
+        return () -> {
+            Route previous = ROUTE.get();
+            ROUTE.set(route);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Route previous) {
+        if (previous == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(previous);
+        }
+    }
+
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,11 @@
+package de.mk.portfolio.domain.event;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Trades bought before today were imported, so the history of the portfolio is missing their value
+ * from {@code earliestPurchaseDate} on.
+ */
+public record BackdatedTradesImportedEvent(UUID portfolioId, LocalDate earliestPurchaseDate) {
+}
@@ -0,0 +1,9 @@
+package de.mk.portfolio.domain.event;
+
+import java.util.UUID;
+
+/**
+ * Holdings of a portfolio were bought, sold or imported.
+ */
+public record PositionsChangedEvent(UUID portfolioId) {
+}
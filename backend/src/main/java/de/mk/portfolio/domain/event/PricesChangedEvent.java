@@ -0,0 +1,9 @@
+package de.mk.portfolio.domain.event;
+
+import java.util.Set;
+
+/**
+ * Holdings and portfolio values of the given symbols were revalued at new market prices.
+ */
+public record PricesChangedEvent(Set<String> symbols) {
+}
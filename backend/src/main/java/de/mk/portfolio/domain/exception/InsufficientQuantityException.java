@@ -0,0 +1,27 @@
+package de.mk.portfolio.domain.exception;
+
+public class InsufficientQuantityException extends RuntimeException {
+
+    private final String symbol;
+    private final int requested;
+    private final int held;
+
+    public InsufficientQuantityException(String symbol, int requested, int held) {
+        super("Cannot sell " + requested + " shares of " + symbol + ", only " + held + " held");
+        this.symbol = symbol;
+        this.requested = requested;
+        this.held = held;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getHeld() {
+        return held;
+    }
+}
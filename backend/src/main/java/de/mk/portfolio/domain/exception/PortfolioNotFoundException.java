@@ -0,0 +1,17 @@
+package de.mk.portfolio.domain.exception;
+
+import java.util.UUID;
+
+public class PortfolioNotFoundException extends RuntimeException {
+
+    private final UUID portfolioId;
+
+    public PortfolioNotFoundException(UUID portfolioId) {
+        super("Portfolio not found: " + portfolioId);
+        this.portfolioId = portfolioId;
+    }
+
+    public UUID getPortfolioId() {
+        return portfolioId;
+    }
+}
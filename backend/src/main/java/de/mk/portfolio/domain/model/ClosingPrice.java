@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The closing price of a symbol on a trading day.
+ */
+public record ClosingPrice(
+        String symbol,
+        LocalDate date,
+        BigDecimal close
+) {
+}
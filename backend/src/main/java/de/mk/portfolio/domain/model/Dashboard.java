@@ -0,0 +1,13 @@
+package de.mk.portfolio.domain.model;
+
+import java.util.List;
+
+/**
+ * Everything the dashboard page shows for one portfolio.
+ */
+public record Dashboard(
+        Portfolio portfolio,
+        List<Holding> holdings,
+        List<PortfolioHistory> history
+) {
+}
@@ -0,0 +1,51 @@
+package de.mk.portfolio.domain.model;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Locale;
+
+/**
+ * Time window of a portfolio history request, as sent by the chart ("1W", "1M", ..., "ALL").
+ */
+public enum HistoryRange {
+    ONE_WEEK("1W", Period.ofWeeks(1)),
+    ONE_MONTH("1M", Period.ofMonths(1)),
+    THREE_MONTHS("3M", Period.ofMonths(3)),
+    SIX_MONTHS("6M", Period.ofMonths(6)),
+    ONE_YEAR("1Y", Period.ofYears(1)),
+    FIVE_YEARS("5Y", Period.ofYears(5)),
+    ALL("ALL", null);
+
+    private final String code;
+    private final Period period;
+
+    HistoryRange(String code, Period period) {
+        this.code = code;
+        this.period = period;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * First date (inclusive) covered by this range. {@link #ALL} starts at {@link LocalDate#EPOCH},
+     * so every range maps onto the same date-bounded query.
+     */
+    public LocalDate startDate(LocalDate today) {
+        return period == null ? LocalDate.EPOCH : today.minus(period);
+    }
+
+    public static HistoryRange fromCode(String code) {
+        String normalized = code.trim().toUpperCase(Locale.ROOT);
+        if (normalized.equals("MAX")) {
+            return ALL;
+        }
+        for (HistoryRange range : values()) {
+            if (range.code.equals(normalized)) {
+                return range;
+            }
+        }
+        throw new IllegalArgumentException("Unknown history range: " + code);
+    }
+}
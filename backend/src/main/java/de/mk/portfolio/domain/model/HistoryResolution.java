@@ -0,0 +1,40 @@
+package de.mk.portfolio.domain.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Granularity of a stored portfolio history series: one point per day, or the close of each week
+ * (starting Monday) or month.
+ */
+public enum HistoryResolution {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * First day of the period that contains {@code date}.
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAILY -> date;
+            case WEEKLY -> date.with(DayOfWeek.MONDAY);
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Upper bound for the number of points between both dates, assuming a value on every day.
+     */
+    public long maxPoints(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.isAfter(toDate)) {
+            return 0;
+        }
+        return switch (this) {
+            case DAILY -> ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+            case WEEKLY -> ChronoUnit.WEEKS.between(periodStart(fromDate), periodStart(toDate)) + 1;
+            case MONTHLY -> ChronoUnit.MONTHS.between(periodStart(fromDate), periodStart(toDate)) + 1;
+        };
+    }
+}
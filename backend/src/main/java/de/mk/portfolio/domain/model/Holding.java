@@ -87,6 +87,13 @@ public class Holding {
         return logoUrl;
     }
 
+    /**
+     * A copy valued at {@code price}; identity, position and purchase fields are shared with this holding.
+     */
+    public Holding withValuation(BigDecimal price, BigDecimal dailyChangeValue, BigDecimal dailyChangePercent, BigDecimal totalChangeValue, BigDecimal totalChangePercent) {
+        return new Holding(id, portfolioId, name, symbol, quantity, price, purchasePrice, purchaseDate, dailyChangeValue, dailyChangePercent, totalChangeValue, totalChangePercent, logoUrl);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,12 @@
+package de.mk.portfolio.domain.model;
+
+/**
+ * The response to a write request, kept under its idempotency key so that retries of the request get
+ * the same answer instead of repeating the write.
+ */
+public record IdempotentResponse(
+        int status,
+        String contentType,
+        byte[] body
+) {
+}
@@ -0,0 +1,13 @@
+package de.mk.portfolio.domain.model;
+
+/**
+ * Which lots a sell consumes, and at what cost basis.
+ */
+public enum LotMatchingMethod {
+    /** Oldest lots first. */
+    FIFO,
+    /** Newest lots first. */
+    LIFO,
+    /** The remaining lots of the symbol share one average purchase price after a sell. */
+    AVERAGE_COST
+}
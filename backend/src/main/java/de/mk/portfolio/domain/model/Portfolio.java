@@ -11,18 +11,24 @@ public class Portfolio {
     private final BigDecimal dailyChangePercent;
     private final BigDecimal totalChangeValue;
     private final BigDecimal totalChangePercent;
+    private final BigDecimal costBasis;
+    private final BigDecimal dayOpenValue;
     private final List<Holding> holdings;
     private final List<PortfolioHistory> history;
+    private final Long version;
 
-    public Portfolio(UUID id, BigDecimal totalValue, BigDecimal dailyChangeValue, BigDecimal dailyChangePercent, BigDecimal totalChangeValue, BigDecimal totalChangePercent, List<Holding> holdings, List<PortfolioHistory> history) {
+    public Portfolio(UUID id, BigDecimal totalValue, BigDecimal dailyChangeValue, BigDecimal dailyChangePercent, BigDecimal totalChangeValue, BigDecimal totalChangePercent, BigDecimal costBasis, BigDecimal dayOpenValue, List<Holding> holdings, List<PortfolioHistory> history, Long version) {
         this.id = id;
         this.totalValue = totalValue;
         this.dailyChangeValue = dailyChangeValue;
         this.dailyChangePercent = dailyChangePercent;
         this.totalChangeValue = totalChangeValue;
         this.totalChangePercent = totalChangePercent;
+        this.costBasis = costBasis;
+        this.dayOpenValue = dayOpenValue;
         this.holdings = holdings;
         this.history = history;
+        this.version = version;
     }
 
     public UUID getId() {
@@ -49,6 +55,20 @@ public class Portfolio {
         return totalChangePercent;
     }
 
+    /**
+     * Sum of purchase price times quantity over all open positions.
+     */
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    /**
+     * Market value of the open positions at the start of the trading day, the base of the daily change.
+     */
+    public BigDecimal getDayOpenValue() {
+        return dayOpenValue;
+    }
+
     public List<Holding> getHoldings() {
         return holdings;
     }
@@ -57,8 +77,12 @@ public class Portfolio {
         return history;
     }
 
-    public Portfolio withTotalValue(BigDecimal newTotalValue) {
-        return new Portfolio(this.id, newTotalValue, this.dailyChangeValue, this.dailyChangePercent, this.totalChangeValue, this.totalChangePercent, this.holdings, this.history);
+    /**
+     * Version of the stored row this state was derived from, or {@code null} for a portfolio that has
+     * not been saved yet. Saving fails if the row has moved on since.
+     */
+    public Long getVersion() {
+        return version;
     }
 
     public static Builder builder() {
@@ -72,8 +96,11 @@ public class Portfolio {
         private BigDecimal dailyChangePercent;
         private BigDecimal totalChangeValue;
         private BigDecimal totalChangePercent;
+        private BigDecimal costBasis;
+        private BigDecimal dayOpenValue;
         private List<Holding> holdings;
         private List<PortfolioHistory> history;
+        private Long version;
 
         public Builder id(UUID id) {
             this.id = id;
@@ -105,6 +132,16 @@ public class Portfolio {
             return this;
         }
 
+        public Builder costBasis(BigDecimal costBasis) {
+            this.costBasis = costBasis;
+            return this;
+        }
+
+        public Builder dayOpenValue(BigDecimal dayOpenValue) {
+            this.dayOpenValue = dayOpenValue;
+            return this;
+        }
+
         public Builder holdings(List<Holding> holdings) {
             this.holdings = holdings;
             return this;
@@ -115,8 +152,13 @@ public class Portfolio {
             return this;
         }
 
+        public Builder version(Long version) {
+            this.version = version;
+            return this;
+        }
+
         public Portfolio build() {
-            return new Portfolio(id, totalValue, dailyChangeValue, dailyChangePercent, totalChangeValue, totalChangePercent, holdings, history);
+            return new Portfolio(id, totalValue, dailyChangeValue, dailyChangePercent, totalChangeValue, totalChangePercent, costBasis, dayOpenValue, holdings, history, version);
         }
     }
 }
@@ -4,23 +4,20 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 
+/**
+ * The closing value of a portfolio on a day; a portfolio has at most one point per date.
+ */
 public class PortfolioHistory {
-    private final UUID id;
     private final UUID portfolioId;
     private final LocalDate date;
     private final BigDecimal value;
 
-    public PortfolioHistory(UUID id, UUID portfolioId, LocalDate date, BigDecimal value) {
-        this.id = id;
+    public PortfolioHistory(UUID portfolioId, LocalDate date, BigDecimal value) {
         this.portfolioId = portfolioId;
         this.date = date;
         this.value = value;
     }
 
-    public UUID getId() {
-        return id;
-    }
-
     public UUID getPortfolioId() {
         return portfolioId;
     }
@@ -38,16 +35,10 @@ public class PortfolioHistory {
     }
 
     public static class Builder {
-        private UUID id;
         private UUID portfolioId;
         private LocalDate date;
         private BigDecimal value;
 
-        public Builder id(UUID id) {
-            this.id = id;
-            return this;
-        }
-
         public Builder portfolioId(UUID portfolioId) {
             this.portfolioId = portfolioId;
             return this;
@@ -64,7 +55,7 @@ public class PortfolioHistory {
         }
 
         public PortfolioHistory build() {
-            return new PortfolioHistory(id, portfolioId, date, value);
+            return new PortfolioHistory(portfolioId, date, value);
         }
     }
 }
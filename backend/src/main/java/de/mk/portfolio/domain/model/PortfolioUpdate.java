@@ -0,0 +1,49 @@
+package de.mk.portfolio.domain.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A change of a portfolio as pushed to live subscribers. A snapshot carries the full state; a delta
+ * only the holdings that changed or were removed, and the portfolio values if they changed
+ * ({@code portfolio} is {@code null} otherwise).
+ */
+public record PortfolioUpdate(
+        UUID portfolioId,
+        boolean snapshot,
+        Portfolio portfolio,
+        List<Holding> holdings,
+        List<UUID> removedHoldingIds
+) {
+
+    public boolean isEmpty() {
+        return !snapshot && portfolio == null && holdings.isEmpty() && removedHoldingIds.isEmpty();
+    }
+
+    /**
+     * Conflates this update with a later one into a single update with the same end state.
+     */
+    public PortfolioUpdate mergedWith(PortfolioUpdate later) {
+        Map<UUID, Holding> mergedHoldings = new LinkedHashMap<>();
+        holdings.forEach(holding -> mergedHoldings.put(holding.getId(), holding));
+        later.holdings.forEach(holding -> mergedHoldings.put(holding.getId(), holding));
+        Set<UUID> removed = new LinkedHashSet<>(removedHoldingIds);
+        removed.addAll(later.removedHoldingIds);
+        removed.forEach(mergedHoldings::remove);
+        if (snapshot) {
+            // A removal is already reflected by leaving the holding out of the snapshot
+            removed.clear();
+        }
+        return new PortfolioUpdate(
+                portfolioId,
+                snapshot,
+                later.portfolio != null ? later.portfolio : portfolio,
+                new ArrayList<>(mergedHoldings.values()),
+                new ArrayList<>(removed));
+    }
+}
@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A single market price observation for a symbol.
+ */
+public record PriceTick(
+        String symbol,
+        BigDecimal price,
+        Instant timestamp
+) {
+}
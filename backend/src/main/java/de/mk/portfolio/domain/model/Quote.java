@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Latest known market price of a symbol, shared by every portfolio holding it.
+ */
+public record Quote(
+        String symbol,
+        BigDecimal price,
+        Instant asOf
+) {
+}
@@ -0,0 +1,26 @@
+package de.mk.portfolio.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Shares sold out of a portfolio and the gain realized on them.
+ *
+ * @param purchaseDate date of the consumed lot, {@code null} for an average-cost sale spanning lots
+ * @param costBasis    purchase cost released by the sale
+ * @param proceeds     sale price times quantity
+ */
+public record RealizedTrade(
+        UUID id,
+        UUID portfolioId,
+        String symbol,
+        int quantity,
+        LocalDate purchaseDate,
+        LocalDate saleDate,
+        BigDecimal costBasis,
+        BigDecimal proceeds,
+        BigDecimal realizedGain,
+        LotMatchingMethod lotMatchingMethod
+) {
+}
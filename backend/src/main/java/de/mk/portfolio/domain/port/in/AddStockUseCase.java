@@ -4,10 +4,11 @@ import de.mk.portfolio.domain.model.Holding;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.UUID;
 
 public interface AddStockUseCase {
 
-    Holding addStock(AddStockCommand command);
+    Holding addStock(UUID portfolioId, AddStockCommand command);
 
     record AddStockCommand(
             String symbol,
@@ -16,4 +17,4 @@ public interface AddStockUseCase {
             LocalDate purchaseDate
     ) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package de.mk.portfolio.domain.port.in;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface BackfillPortfolioHistoryUseCase {
+
+    /**
+     * Rebuilds the daily values of a portfolio from its trades and historical closing prices, from
+     * {@code fromDate} (or the first purchase when {@code null}) up to yesterday, and overwrites the
+     * stored points of the rebuilt days. Days without closes keep their stored points; when a symbol
+     * held has no closes at all, nothing is written. The result carries the span actually rewritten.
+     */
+    BackfillResult backfill(UUID portfolioId, LocalDate fromDate);
+
+    record BackfillResult(
+            LocalDate fromDate,
+            LocalDate toDate,
+            int points
+    ) {
+    }
+}
@@ -0,0 +1,7 @@
+package de.mk.portfolio.domain.port.in;
+
+import de.mk.portfolio.domain.model.Portfolio;
+
+public interface CreatePortfolioUseCase {
+    Portfolio createPortfolio();
+}
@@ -0,0 +1,13 @@
+package de.mk.portfolio.domain.port.in;
+
+import de.mk.portfolio.domain.model.Dashboard;
+import de.mk.portfolio.domain.model.HistoryRange;
+
+import java.util.UUID;
+
+public interface GetDashboardUseCase {
+    /**
+     * @param maxPoints upper bound for the number of history points, or {@code null} for the full series
+     */
+    Dashboard getDashboard(UUID portfolioId, HistoryRange range, Integer maxPoints);
+}
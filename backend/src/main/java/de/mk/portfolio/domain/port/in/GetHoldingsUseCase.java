@@ -1,10 +1,23 @@
 package de.mk.portfolio.domain.port.in;
 
+import de.mk.portfolio.domain.exception.PortfolioNotFoundException;
 import de.mk.portfolio.domain.model.Holding;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface GetHoldingsUseCase {
+    /**
+     * The lots of the portfolio, valued at the latest quotes.
+     *
+     * @throws PortfolioNotFoundException if there is no such portfolio
+     */
     List<Holding> getHoldings(UUID portfolioId);
+
+    /**
+     * The holdings of {@link #getHoldings}, passed to {@code action} one by one as they are read, for
+     * responses written while the portfolio is still being loaded.
+     */
+    void forEachHolding(UUID portfolioId, Consumer<Holding> action);
 }
@@ -1,10 +1,22 @@
 package de.mk.portfolio.domain.port.in;
 
+import de.mk.portfolio.domain.exception.PortfolioNotFoundException;
+import de.mk.portfolio.domain.model.HistoryRange;
 import de.mk.portfolio.domain.model.PortfolioHistory;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface GetPortfolioHistoryUseCase {
-    List<PortfolioHistory> getPortfolioHistory(UUID portfolioId, String range);
+    /**
+     * @param maxPoints upper bound for the number of returned points, or {@code null} for the full series
+     * @throws PortfolioNotFoundException if there is no such portfolio
+     */
+    List<PortfolioHistory> getPortfolioHistory(UUID portfolioId, HistoryRange range, Integer maxPoints);
+
+    /**
+     * The full daily series of the range, passed to {@code action} point by point as it is read.
+     */
+    void forEachPortfolioHistory(UUID portfolioId, HistoryRange range, Consumer<PortfolioHistory> action);
 }
@@ -2,6 +2,8 @@ package de.mk.portfolio.domain.port.in;
 
 import de.mk.portfolio.domain.model.Portfolio;
 
+import java.util.UUID;
+
 public interface GetPortfolioUseCase {
-    Portfolio getPortfolio();
+    Portfolio getPortfolio(UUID portfolioId);
 }
@@ -0,0 +1,11 @@
+package de.mk.portfolio.domain.port.in;
+
+import java.util.UUID;
+
+public interface GetPortfolioVersionUseCase {
+    /**
+     * A number that changes whenever anything the read endpoints return for the portfolio changes,
+     * read without loading the portfolio itself.
+     */
+    long getPortfolioVersion(UUID portfolioId);
+}
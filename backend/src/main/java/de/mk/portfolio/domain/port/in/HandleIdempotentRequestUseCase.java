@@ -0,0 +1,52 @@
+package de.mk.portfolio.domain.port.in;
+
+import de.mk.portfolio.domain.model.IdempotentResponse;
+
+/**
+ * Runs each write request sent with an idempotency key at most once: the first request claims the
+ * key, and retries of it get the recorded response instead of writing again.
+ */
+public interface HandleIdempotentRequestUseCase {
+
+    /**
+     * Claims the key for a request identified by {@code fingerprint} (method, target and body hash).
+     * An acquired claim is kept alive until the request is completed or released.
+     */
+    Claim claim(String key, String fingerprint);
+
+    /**
+     * Records the response of a request that claimed the key; retries replay it until the key expires.
+     */
+    void complete(String key, IdempotentResponse response);
+
+    /**
+     * Gives up a claim without a response, e.g. after a server error, so that a retry runs the request.
+     */
+    void release(String key);
+
+    sealed interface Claim {
+        /**
+         * The key is new: the request runs and must be completed or released.
+         */
+        record Acquired() implements Claim {
+        }
+
+        /**
+         * The request already ran; its response is to be replayed.
+         */
+        record Completed(IdempotentResponse response) implements Claim {
+        }
+
+        /**
+         * The first request with this key is still running.
+         */
+        record InProgress() implements Claim {
+        }
+
+        /**
+         * The key was used for a different request.
+         */
+        record Mismatch() implements Claim {
+        }
+    }
+}
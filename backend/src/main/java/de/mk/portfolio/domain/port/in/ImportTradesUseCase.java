@@ -0,0 +1,31 @@
+package de.mk.portfolio.domain.port.in;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+public interface ImportTradesUseCase {
+
+    /**
+     * Imports buy trades as new holdings. The trades are consumed lazily and written in batches, each
+     * batch in its own transaction; invalid trades are skipped and reported.
+     */
+    ImportResult importTrades(UUID portfolioId, Iterator<Trade> trades);
+
+    /**
+     * A trade of the import file, with where it was found (e.g. {@code "Line 12"}), so that errors point
+     * at the same place whether the file could not be parsed there or the trade was invalid.
+     */
+    record Trade(
+            String position,
+            AddStockUseCase.AddStockCommand command
+    ) {
+    }
+
+    record ImportResult(
+            int imported,
+            int rejected,
+            List<String> errors
+    ) {
+    }
+}
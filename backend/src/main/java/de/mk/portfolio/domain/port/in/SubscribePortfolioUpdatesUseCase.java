@@ -0,0 +1,21 @@
+package de.mk.portfolio.domain.port.in;
+
+import de.mk.portfolio.domain.model.PortfolioUpdate;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface SubscribePortfolioUpdatesUseCase {
+    /**
+     * Delivers a snapshot of the portfolio first and deltas afterwards. Updates are delivered one at
+     * a time per subscriber; updates that arrive while the listener is busy are conflated, so a slow
+     * listener receives the latest state rather than every intermediate one. A listener that throws
+     * is unsubscribed.
+     */
+    Subscription subscribe(UUID portfolioId, Consumer<PortfolioUpdate> listener);
+
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,21 @@
+package de.mk.portfolio.domain.port.in;
+
+import java.time.LocalDate;
+
+public interface TakeEndOfDaySnapshotUseCase {
+
+    /**
+     * Records every portfolio's closing value for {@code date} in its history and makes it the base
+     * of the next day's change. Work already checkpointed for that date is skipped, so a run that was
+     * interrupted resumes where it stopped; running it twice for a date is harmless. While another
+     * instance holds the date, or once it is complete, nothing is snapshotted.
+     */
+    SnapshotResult takeSnapshot(LocalDate date);
+
+    record SnapshotResult(
+            int partitions,
+            int resumedPartitions,
+            int portfolios
+    ) {
+    }
+}
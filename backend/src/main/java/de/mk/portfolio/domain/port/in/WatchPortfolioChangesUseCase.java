@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.port.in;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface WatchPortfolioChangesUseCase {
+
+    /**
+     * Registers a listener that is called with the ID of every portfolio whose positions were changed
+     * on any instance, after the change is committed. Delivery is at most once; listeners must not rely
+     * on it for correctness, only to drop state early.
+     */
+    void onPortfolioChanged(Consumer<UUID> listener);
+}
@@ -0,0 +1,41 @@
+package de.mk.portfolio.domain.port.out;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Snapshots portfolios in partitions of their ID range. Each partition is written together with its
+ * checkpoint, atomically. A run claims its date before the first partition; the claim is a lease that
+ * the owner renews as it goes, so another instance only takes the date over once the owner is gone.
+ */
+public interface EndOfDaySnapshotPort {
+
+    /**
+     * Records the run of {@code date} as started by {@code owner}.
+     *
+     * @return {@code false} if the date is complete or another owner holds an unexpired claim on it
+     */
+    boolean claimSnapshot(LocalDate date, int partitionCount, String owner, Duration lease);
+
+    /**
+     * @return {@code false} if the claim was lost to another owner meanwhile
+     */
+    boolean renewSnapshotClaim(LocalDate date, String owner, Duration lease);
+
+    void completeSnapshot(LocalDate date, String owner);
+
+    Set<Integer> loadCompletedPartitions(LocalDate date, int partitionCount);
+
+    /**
+     * The most recent snapshot date that was started but not completed, whether or not any of its
+     * partitions were checkpointed.
+     */
+    Optional<LocalDate> loadIncompleteSnapshotDate(int partitionCount);
+
+    /**
+     * @return the number of portfolios in the partition
+     */
+    int snapshotPartition(LocalDate date, int partition, int partitionCount);
+}
@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.ClosingPrice;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+public interface HistoricalPricePort {
+    /**
+     * The closing prices of the given symbols between both dates (inclusive), ordered by date.
+     */
+    List<ClosingPrice> loadClosingPrices(Set<String> symbols, LocalDate fromDate, LocalDate toDate);
+}
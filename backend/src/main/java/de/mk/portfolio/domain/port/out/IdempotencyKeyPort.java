@@ -0,0 +1,57 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.IdempotentResponse;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Store of the idempotency keys of write requests and the responses recorded for them.
+ */
+public interface IdempotencyKeyPort {
+
+    /**
+     * Records the key for a request that is about to run, unless the key is already stored.
+     *
+     * @return {@code false} if the key was already stored
+     */
+    boolean insertKey(String key, String fingerprint, Instant expiresAt);
+
+    Optional<StoredKey> loadKey(String key);
+
+    /**
+     * Records the response of the request that inserted the key and moves its expiry.
+     */
+    void saveResponse(String key, IdempotentResponse response, Instant expiresAt);
+
+    /**
+     * Moves the expiry of a key whose request is still running.
+     *
+     * @return {@code false} if the key is gone or its response was already recorded
+     */
+    boolean extendKey(String key, Instant expiresAt);
+
+    void deleteKey(String key);
+
+    /**
+     * Deletes the key only if it has expired by {@code now}, so that it can be inserted again.
+     *
+     * @return whether the key was deleted
+     */
+    boolean deleteKeyIfExpired(String key, Instant now);
+
+    /**
+     * @return the number of expired keys deleted
+     */
+    int deleteExpiredKeys(Instant now);
+
+    /**
+     * @param response {@code null} while the request is still running
+     */
+    record StoredKey(
+            String fingerprint,
+            IdempotentResponse response,
+            Instant expiresAt
+    ) {
+    }
+}
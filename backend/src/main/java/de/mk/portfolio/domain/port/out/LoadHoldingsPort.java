@@ -4,7 +4,20 @@ import de.mk.portfolio.domain.model.Holding;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface LoadHoldingsPort {
     List<Holding> loadHoldings(UUID portfolioId);
+
+    /**
+     * Passes the lots of the portfolio to {@code action} while they are read from the database; no
+     * more than one fetch of lots is held at a time.
+     */
+    void forEachHolding(UUID portfolioId, Consumer<Holding> action);
+
+    /**
+     * The lots of one symbol, oldest purchase first, locked against concurrent sells until the
+     * surrounding transaction ends.
+     */
+    List<Holding> loadHoldings(UUID portfolioId, String symbol);
 }
@@ -1,10 +1,24 @@
 package de.mk.portfolio.domain.port.out;
 
+import de.mk.portfolio.domain.model.HistoryResolution;
 import de.mk.portfolio.domain.model.PortfolioHistory;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface LoadPortfolioHistoryPort {
-    List<PortfolioHistory> loadPortfolioHistory(UUID portfolioId, String range);
+    /**
+     * The series from {@code fromDate} on, ordered by date. For {@link HistoryResolution#WEEKLY} and
+     * {@link HistoryResolution#MONTHLY} each point is the close of its period, dated on the last day
+     * with a value.
+     */
+    List<PortfolioHistory> loadPortfolioHistory(UUID portfolioId, LocalDate fromDate, HistoryResolution resolution);
+
+    /**
+     * Passes the daily series from {@code fromDate} on to {@code action}, ordered by date, while it is
+     * read from the database; no more than one fetch of points is held at a time.
+     */
+    void forEachPortfolioHistory(UUID portfolioId, LocalDate fromDate, Consumer<PortfolioHistory> action);
 }
@@ -7,4 +7,11 @@ import java.util.UUID;
 
 public interface LoadPortfolioPort {
     Optional<Portfolio> loadPortfolio(UUID portfolioId);
+
+    /**
+     * The version of the portfolio, which changes with every write to it, its holdings or its
+     * history. Holdings are only ever written together with the portfolio's valuation, which is
+     * where the version is bumped.
+     */
+    Optional<Long> loadPortfolioVersion(UUID portfolioId);
 }
@@ -0,0 +1,10 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.RealizedTrade;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface LoadRealizedTradesPort {
+    List<RealizedTrade> loadRealizedTrades(UUID portfolioId);
+}
@@ -0,0 +1,20 @@
+package de.mk.portfolio.domain.port.out;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Tells every backend instance, this one included, that a portfolio has changed.
+ */
+public interface PortfolioChangeChannelPort {
+
+    void publish(UUID portfolioId);
+
+    /**
+     * Starts delivering the changes published by any instance to the listener until {@link #stop()}
+     * is called. The listener may be invoked from a channel thread and must not block.
+     */
+    void start(Consumer<UUID> listener);
+
+    void stop();
+}
@@ -0,0 +1,45 @@
+package de.mk.portfolio.domain.port.out;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Maintenance of the date range partitions of the portfolio history. Where the history is not
+ * partitioned (e.g. on H2) there are no partitions and every operation is a no-op.
+ */
+public interface PortfolioHistoryPartitionPort {
+
+    /**
+     * Creates monthly partitions for the days between both dates (inclusive) that no partition
+     * covers yet, so that history rows for these days can be written.
+     */
+    void createPartitions(LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * The attached partitions, ordered by date.
+     */
+    List<HistoryPartition> loadPartitions();
+
+    /**
+     * Replaces the given partitions, which must all lie within {@code fromDate} (inclusive) and
+     * {@code toDate} (exclusive), with a single partition for that range.
+     */
+    void mergePartitions(List<HistoryPartition> partitions, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Detaches the partition from the history; its rows are no longer read but stay in a table of
+     * their own for archiving.
+     */
+    void detachPartition(HistoryPartition partition);
+
+    /**
+     * @param fromDate first day of the partition
+     * @param toDate   first day after the partition
+     */
+    record HistoryPartition(
+            String name,
+            LocalDate fromDate,
+            LocalDate toDate
+    ) {
+    }
+}
@@ -0,0 +1,15 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.PriceTick;
+
+import java.util.function.Consumer;
+
+public interface PriceFeedPort {
+    /**
+     * Starts delivering ticks to the listener until {@link #stop()} is called. The listener may be
+     * invoked from a feed thread and must not block.
+     */
+    void start(Consumer<PriceTick> listener);
+
+    void stop();
+}
@@ -0,0 +1,14 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ReplacePortfolioHistoryPort {
+    /**
+     * Writes the given points, ordered by date, over the stored points of the same dates in one
+     * transaction. Stored points of other dates are kept; an empty list changes nothing.
+     */
+    void replacePortfolioHistory(UUID portfolioId, List<PortfolioHistory> history);
+}
@@ -0,0 +1,13 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.PriceTick;
+
+import java.util.Collection;
+
+public interface RevalueHoldingsPort {
+    /**
+     * Applies the latest price of each symbol to all holdings of that symbol and to the valuation of
+     * the portfolios containing them. Expects at most one tick per symbol.
+     */
+    void revalueHoldings(Collection<PriceTick> latestTicks);
+}
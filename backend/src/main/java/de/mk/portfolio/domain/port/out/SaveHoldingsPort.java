@@ -0,0 +1,12 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.Holding;
+
+import java.util.List;
+
+public interface SaveHoldingsPort {
+    /**
+     * Inserts new holdings in one batch.
+     */
+    void saveHoldings(List<Holding> holdings);
+}
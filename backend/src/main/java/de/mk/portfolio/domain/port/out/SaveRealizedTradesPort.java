@@ -0,0 +1,9 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.RealizedTrade;
+
+import java.util.List;
+
+public interface SaveRealizedTradesPort {
+    void saveRealizedTrades(List<RealizedTrade> trades);
+}
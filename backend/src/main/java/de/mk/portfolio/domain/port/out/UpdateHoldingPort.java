@@ -0,0 +1,10 @@
+package de.mk.portfolio.domain.port.out;
+
+import de.mk.portfolio.domain.model.Holding;
+
+public interface UpdateHoldingPort {
+    /**
+     * Writes the quantity, purchase price and change values of an existing holding.
+     */
+    void updateHolding(Holding holding);
+}
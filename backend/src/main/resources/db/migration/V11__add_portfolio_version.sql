@@ -0,0 +1,2 @@
+-- Bumped with every write to a portfolio, its holdings or its history; backs the ETags of the read endpoints
+ALTER TABLE portfolio ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
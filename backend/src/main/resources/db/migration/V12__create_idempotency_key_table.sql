@@ -0,0 +1,13 @@
+-- One row per Idempotency-Key sent with a write request. The response columns stay NULL while the first
+-- request is running; expires_at is the lock timeout until then and the replay TTL afterwards
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    fingerprint VARCHAR(1024) NOT NULL,
+    response_status INTEGER,
+    response_content_type VARCHAR(255),
+    response_body BYTEA,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires_at ON idempotency_key (expires_at);
@@ -0,0 +1,11 @@
+-- One row per end-of-day snapshot date, written before the first partition. It marks the date as started,
+-- so a run that dies before its first checkpoint is resumed as well, and it is the lease that keeps a second
+-- instance from snapshotting the same date while the owner is still at it
+CREATE TABLE IF NOT EXISTS eod_snapshot_run (
+    snapshot_date DATE PRIMARY KEY,
+    partition_count INTEGER NOT NULL,
+    owner VARCHAR(255) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    lease_until TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
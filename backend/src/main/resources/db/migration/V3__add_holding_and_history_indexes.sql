@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_holding_portfolio_symbol ON holding (portfolio_id, symbol);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_portfolio_history_portfolio_date ON portfolio_history (portfolio_id, date);
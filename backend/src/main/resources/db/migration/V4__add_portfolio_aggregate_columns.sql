@@ -0,0 +1,18 @@
+ALTER TABLE portfolio ADD COLUMN IF NOT EXISTS cost_basis NUMERIC(19, 2) NOT NULL DEFAULT 0;
+ALTER TABLE portfolio ADD COLUMN IF NOT EXISTS day_open_value NUMERIC(19, 2) NOT NULL DEFAULT 0;
+
+-- Percentages of a long-held position easily exceed 999.99
+ALTER TABLE portfolio ALTER COLUMN daily_change_percent SET DATA TYPE NUMERIC(9, 2);
+ALTER TABLE portfolio ALTER COLUMN total_change_percent SET DATA TYPE NUMERIC(9, 2);
+
+-- Seed the running sums from the existing holdings; from here on they are maintained incrementally
+UPDATE portfolio SET
+    total_value = COALESCE((SELECT SUM(h.price * h.quantity) FROM holding h WHERE h.portfolio_id = portfolio.id), 0),
+    cost_basis = COALESCE((SELECT SUM(h.purchase_price * h.quantity) FROM holding h WHERE h.portfolio_id = portfolio.id), 0),
+    day_open_value = COALESCE((SELECT SUM(h.price * h.quantity - h.daily_change_value) FROM holding h WHERE h.portfolio_id = portfolio.id), 0);
+
+UPDATE portfolio SET
+    daily_change_value = total_value - day_open_value,
+    daily_change_percent = CASE WHEN day_open_value = 0 THEN 0 ELSE ROUND((total_value - day_open_value) * 100 / day_open_value, 2) END,
+    total_change_value = total_value - cost_basis,
+    total_change_percent = CASE WHEN cost_basis = 0 THEN 0 ELSE ROUND((total_value - cost_basis) * 100 / cost_basis, 2) END;
@@ -0,0 +1,5 @@
+-- Price revaluation updates all holdings of a symbol across portfolios
+CREATE INDEX IF NOT EXISTS idx_holding_symbol ON holding (symbol);
+
+ALTER TABLE holding ALTER COLUMN daily_change_percent SET DATA TYPE NUMERIC(9, 2);
+ALTER TABLE holding ALTER COLUMN total_change_percent SET DATA TYPE NUMERIC(9, 2);
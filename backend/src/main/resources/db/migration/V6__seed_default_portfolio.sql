@@ -0,0 +1,4 @@
+-- The portfolio every request used to be pinned to; keeps existing clients working now that IDs are routed
+INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value, total_change_percent, cost_basis, day_open_value)
+SELECT CAST('a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11' AS UUID), 0, 0, 0, 0, 0, 0, 0
+WHERE NOT EXISTS (SELECT 1 FROM portfolio WHERE id = CAST('a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11' AS UUID));
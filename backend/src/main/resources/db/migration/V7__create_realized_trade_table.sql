@@ -0,0 +1,16 @@
+-- One row per lot consumed by a sell (FIFO/LIFO), or per sell under average cost (purchase_date NULL)
+CREATE TABLE IF NOT EXISTS realized_trade (
+    id UUID PRIMARY KEY,
+    portfolio_id UUID NOT NULL,
+    symbol VARCHAR(10) NOT NULL,
+    quantity INTEGER NOT NULL,
+    purchase_date DATE,
+    sale_date DATE NOT NULL,
+    cost_basis NUMERIC(19, 2) NOT NULL,
+    proceeds NUMERIC(19, 2) NOT NULL,
+    realized_gain NUMERIC(19, 2) NOT NULL,
+    lot_matching VARCHAR(16) NOT NULL,
+    FOREIGN KEY (portfolio_id) REFERENCES portfolio(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_realized_trade_portfolio_sale_date ON realized_trade (portfolio_id, sale_date);
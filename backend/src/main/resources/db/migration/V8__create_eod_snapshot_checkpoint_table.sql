@@ -0,0 +1,10 @@
+-- One row per snapshotted partition of the portfolio ID range; written in the same transaction as the
+-- partition's history rows, so an interrupted snapshot resumes with the partitions that are missing
+CREATE TABLE IF NOT EXISTS eod_snapshot_checkpoint (
+    snapshot_date DATE NOT NULL,
+    partition_no INTEGER NOT NULL,
+    partition_count INTEGER NOT NULL,
+    portfolio_count INTEGER NOT NULL,
+    completed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (snapshot_date, partition_count, partition_no)
+);
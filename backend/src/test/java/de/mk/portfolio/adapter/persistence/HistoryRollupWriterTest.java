@@ -0,0 +1,148 @@
+package de.mk.portfolio.adapter.persistence;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the rollup SQL on an in-memory H2 database with the H2 migrations of the {@code dev} profile.
+ */
+class HistoryRollupWriterTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    // Thursday and Friday of the week starting 2024-02-26, in different months
+    private static final LocalDate THURSDAY = LocalDate.of(2024, 2, 29);
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 1);
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+
+    private JdbcTemplate jdbcTemplate;
+    private HistoryRollupWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // VALUE is a keyword in H2 2.x; the history column is named so
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.update("INSERT INTO portfolio (id, total_value, daily_change_value, daily_change_percent, total_change_value, total_change_percent, cost_basis, day_open_value) "
+                + "VALUES (?, 0, 0, 0, 0, 0, 0, 0)", PORTFOLIO_ID);
+        writer = new HistoryRollupWriter(jdbcTemplate);
+    }
+
+    @Test
+    void aFirstCloseOpensItsWeekAndMonth() {
+        writer.applyDailyCloses(List.of(close(MONDAY, "100.00")));
+
+        assertThat(week(MONDAY)).containsEntry("LAST_DATE", MONDAY).containsEntry("CLOSE_VALUE", new BigDecimal("100.00"));
+        assertThat(month(FRIDAY)).containsEntry("FIRST_DATE", MONDAY).containsEntry("LAST_DATE", MONDAY)
+                .containsEntry("OPEN_VALUE", new BigDecimal("100.00")).containsEntry("HIGH_VALUE", new BigDecimal("100.00"))
+                .containsEntry("LOW_VALUE", new BigDecimal("100.00")).containsEntry("CLOSE_VALUE", new BigDecimal("100.00"));
+    }
+
+    @Test
+    void laterClosesMoveTheCloseAndTheRange() {
+        writer.applyDailyCloses(List.of(close(FRIDAY, "100.00")));
+        writer.applyDailyCloses(List.of(close(MONDAY, "120.00")));
+        writer.applyDailyCloses(List.of(close(TUESDAY, "90.00")));
+
+        assertThat(week(MONDAY)).containsEntry("LAST_DATE", TUESDAY).containsEntry("CLOSE_VALUE", new BigDecimal("90.00"));
+        assertThat(month(FRIDAY)).containsEntry("FIRST_DATE", FRIDAY).containsEntry("LAST_DATE", TUESDAY)
+                .containsEntry("OPEN_VALUE", new BigDecimal("100.00")).containsEntry("HIGH_VALUE", new BigDecimal("120.00"))
+                .containsEntry("LOW_VALUE", new BigDecimal("90.00")).containsEntry("CLOSE_VALUE", new BigDecimal("90.00"));
+    }
+
+    @Test
+    void anOlderCloseMovesOnlyTheOpen() {
+        writer.applyDailyCloses(List.of(close(TUESDAY, "110.00")));
+        writer.applyDailyCloses(List.of(close(MONDAY, "100.00")));
+
+        assertThat(week(MONDAY)).containsEntry("LAST_DATE", TUESDAY).containsEntry("CLOSE_VALUE", new BigDecimal("110.00"));
+        assertThat(month(MONDAY)).containsEntry("FIRST_DATE", MONDAY).containsEntry("LAST_DATE", TUESDAY)
+                .containsEntry("OPEN_VALUE", new BigDecimal("100.00")).containsEntry("CLOSE_VALUE", new BigDecimal("110.00"));
+    }
+
+    @Test
+    void aWeekAcrossAMonthEndFoldsIntoBothMonths() {
+        writer.applyDailyCloses(List.of(close(THURSDAY, "100.00")));
+        writer.applyDailyCloses(List.of(close(FRIDAY, "105.00")));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history_weekly", Integer.class)).isEqualTo(1);
+        assertThat(week(THURSDAY)).containsEntry("LAST_DATE", FRIDAY).containsEntry("CLOSE_VALUE", new BigDecimal("105.00"));
+        assertThat(month(THURSDAY)).containsEntry("LAST_DATE", THURSDAY).containsEntry("CLOSE_VALUE", new BigDecimal("100.00"));
+        assertThat(month(FRIDAY)).containsEntry("FIRST_DATE", FRIDAY).containsEntry("OPEN_VALUE", new BigDecimal("105.00"));
+    }
+
+    @Test
+    void rebuildReaggregatesTheTouchedPeriodsFromTheDailyRows() {
+        writer.applyDailyCloses(List.of(close(THURSDAY, "100.00")));
+        writer.applyDailyCloses(List.of(close(FRIDAY, "105.00")));
+        writer.applyDailyCloses(List.of(close(MONDAY, "110.00")));
+        insertDaily(THURSDAY, "100.00");
+        insertDaily(FRIDAY, "80.00");
+        insertDaily(MONDAY, "130.00");
+        insertDaily(TUESDAY, "125.00");
+
+        writer.rebuild(PORTFOLIO_ID, FRIDAY, TUESDAY);
+
+        // The week of Friday reaches back into February, so that month is rebuilt as well
+        assertThat(week(FRIDAY)).containsEntry("LAST_DATE", FRIDAY).containsEntry("CLOSE_VALUE", new BigDecimal("80.00"));
+        assertThat(week(MONDAY)).containsEntry("LAST_DATE", TUESDAY).containsEntry("CLOSE_VALUE", new BigDecimal("125.00"));
+        assertThat(month(THURSDAY)).containsEntry("FIRST_DATE", THURSDAY).containsEntry("CLOSE_VALUE", new BigDecimal("100.00"));
+        assertThat(month(FRIDAY)).containsEntry("FIRST_DATE", FRIDAY).containsEntry("LAST_DATE", TUESDAY)
+                .containsEntry("OPEN_VALUE", new BigDecimal("80.00")).containsEntry("HIGH_VALUE", new BigDecimal("130.00"))
+                .containsEntry("LOW_VALUE", new BigDecimal("80.00")).containsEntry("CLOSE_VALUE", new BigDecimal("125.00"));
+    }
+
+    @Test
+    void rebuildDropsPeriodsWithoutDailyRows() {
+        writer.applyDailyCloses(List.of(close(MONDAY, "110.00")));
+
+        writer.rebuild(PORTFOLIO_ID, MONDAY, MONDAY);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history_weekly", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM portfolio_history_monthly", Integer.class)).isZero();
+    }
+
+    private void insertDaily(LocalDate date, String value) {
+        jdbcTemplate.update("INSERT INTO portfolio_history (portfolio_id, date, value) VALUES (?, ?, ?)", PORTFOLIO_ID, date, new BigDecimal(value));
+    }
+
+    private Map<String, Object> week(LocalDate date) {
+        return period("SELECT last_date, close_value FROM portfolio_history_weekly WHERE portfolio_id = ? AND period_start = ?",
+                date.with(DayOfWeek.MONDAY));
+    }
+
+    private Map<String, Object> month(LocalDate date) {
+        return period("SELECT first_date, last_date, open_value, high_value, low_value, close_value FROM portfolio_history_monthly "
+                + "WHERE portfolio_id = ? AND period_start = ?", date.withDayOfMonth(1));
+    }
+
+    private Map<String, Object> period(String sql, LocalDate periodStart) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(sql, PORTFOLIO_ID, periodStart);
+        // Dates come back as java.sql.Date
+        row.replaceAll((column, value) -> value instanceof Date date ? date.toLocalDate() : value);
+        return row;
+    }
+
+    private static PortfolioHistory close(LocalDate date, String value) {
+        return new PortfolioHistory(PORTFOLIO_ID, date, new BigDecimal(value));
+    }
+}
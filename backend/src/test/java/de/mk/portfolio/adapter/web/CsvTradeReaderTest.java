@@ -0,0 +1,87 @@
+package de.mk.portfolio.adapter.web;
+
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CsvTradeReaderTest {
+
+    @Test
+    void readsTradesAndSkipsTheHeaderAndBlankLines() {
+        CsvTradeReader reader = reader("""
+                Symbol,Quantity,PurchasePrice,PurchaseDate
+                AAPL,10,150.25,2024-01-02
+
+                MSFT, 5 , 400 ,2024-02-01
+                """, 10);
+
+        assertThat(readAll(reader)).containsExactly(
+                new Trade("Line 2", new AddStockCommand("AAPL", new BigDecimal("10"), new BigDecimal("150.25"), LocalDate.of(2024, 1, 2))),
+                new Trade("Line 4", new AddStockCommand("MSFT", new BigDecimal("5"), new BigDecimal("400"), LocalDate.of(2024, 2, 1))));
+        assertThat(reader.skipped()).isZero();
+        assertThat(reader.errors()).isEmpty();
+    }
+
+    @Test
+    void recognisesTheHeaderInAnyLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            CsvTradeReader reader = reader("SYMBOL,QUANTITY,PURCHASEPRICE,PURCHASEDATE\nAAPL,1,1,2024-01-02\n", 10);
+
+            assertThat(readAll(reader)).extracting(Trade::position).containsExactly("Line 2");
+            assertThat(reader.errors()).isEmpty();
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void skipsRowsThatDoNotParseAndNamesTheirLine() {
+        CsvTradeReader reader = reader("""
+                AAPL,10,150.25,2024-01-02
+                MSFT,5,400
+                GOOG,ten,100,2024-01-02
+                AMZN,1,100,02.01.2024
+                NVDA,2,500,2024-03-01
+                """, 10);
+
+        assertThat(readAll(reader)).extracting(Trade::position, trade -> trade.command().symbol())
+                .containsExactly(tuple("Line 1", "AAPL"), tuple("Line 5", "NVDA"));
+        assertThat(reader.skipped()).isEqualTo(3);
+        assertThat(reader.errors()).hasSize(3);
+        assertThat(reader.errors().get(0)).isEqualTo("Line 2: expected 4 fields but found 3");
+        assertThat(reader.errors().get(1)).startsWith("Line 3: ");
+        assertThat(reader.errors().get(2)).startsWith("Line 4: ");
+    }
+
+    @Test
+    void reportsNoMoreErrorsThanTheLimitButCountsEverySkippedRow() {
+        CsvTradeReader reader = reader("a\nb\nc\nd\n", 2);
+
+        assertThat(readAll(reader)).isEmpty();
+        assertThat(reader.skipped()).isEqualTo(4);
+        assertThat(reader.errors()).hasSize(2);
+    }
+
+    private static CsvTradeReader reader(String csv, int maxErrors) {
+        return new CsvTradeReader(new BufferedReader(new StringReader(csv)), maxErrors);
+    }
+
+    private static List<Trade> readAll(TradeReader reader) {
+        List<Trade> trades = new ArrayList<>();
+        reader.forEachRemaining(trades::add);
+        return trades;
+    }
+}
@@ -0,0 +1,59 @@
+package de.mk.portfolio.adapter.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DigestedRequestTest {
+
+    @Test
+    void hashesAndReplaysASmallBody() throws IOException {
+        try (DigestedRequest request = DigestedRequest.read(request("{\"symbol\": \"AAPL\"}"), 1024)) {
+            assertThat(request.digest()).isEqualTo(DigestedRequest.read(request("{\"symbol\": \"AAPL\"}"), 1024).digest());
+            assertThat(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"symbol\": \"AAPL\"}");
+        }
+    }
+
+    @Test
+    void differentBodiesHaveDifferentHashes() throws IOException {
+        assertThat(DigestedRequest.read(request("{\"quantity\": 10}"), 1024).digest())
+                .isNotEqualTo(DigestedRequest.read(request("{\"quantity\": 11}"), 1024).digest());
+        assertThat(DigestedRequest.read(request(""), 1024).digest())
+                .isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+    }
+
+    @Test
+    void spoolsABodyOverTheMemoryLimitAndHashesItTheSame() throws IOException {
+        char[] line = new char[100_000];
+        Arrays.fill(line, 'x');
+        String body = new String(line);
+
+        DigestedRequest spooled = DigestedRequest.read(request(body), 1024);
+        try (spooled; InputStream in = spooled.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+            assertThat(spooled.digest()).isEqualTo(DigestedRequest.read(request(body), body.length()).digest());
+        }
+    }
+
+    @Test
+    void servesTheBodyAsReaderWithTheRequestEncoding() throws IOException {
+        MockHttpServletRequest request = request("symbol,quantity\nÄPFEL,1");
+        request.setCharacterEncoding("UTF-8");
+
+        try (DigestedRequest digested = DigestedRequest.read(request, 4)) {
+            assertThat(digested.getReader().lines()).containsExactly("symbol,quantity", "ÄPFEL,1");
+        }
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/portfolio/1/holdings");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
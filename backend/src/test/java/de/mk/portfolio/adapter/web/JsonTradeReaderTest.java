@@ -0,0 +1,108 @@
+package de.mk.portfolio.adapter.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JsonTradeReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void readsTheElementsOfTheArray() throws IOException {
+        JsonTradeReader reader = reader("""
+                [{"symbol": "AAPL", "quantity": 10, "purchasePrice": 150.25, "purchaseDate": "2024-01-02"},
+                 {"symbol": "MSFT", "quantity": 5, "purchasePrice": 400, "purchaseDate": "2024-02-01"}]
+                """, 10);
+
+        assertThat(readAll(reader)).containsExactly(
+                new Trade("Trade 1", new AddStockCommand("AAPL", new BigDecimal("10"), new BigDecimal("150.25"), LocalDate.of(2024, 1, 2))),
+                new Trade("Trade 2", new AddStockCommand("MSFT", new BigDecimal("5"), new BigDecimal("400"), LocalDate.of(2024, 2, 1))));
+        assertThat(reader.skipped()).isZero();
+        assertThat(reader.errors()).isEmpty();
+    }
+
+    @Test
+    void skipsElementsThatAreNotTradesAndReadsOn() throws IOException {
+        JsonTradeReader reader = reader("""
+                [{"symbol": "AAPL", "quantity": 10, "purchasePrice": 150, "purchaseDate": "2024-01-02"},
+                 {"symbol": "MSFT", "quantity": "ten", "purchasePrice": 400, "purchaseDate": "2024-02-01"},
+                 42,
+                 {"symbol": "GOOG", "quantity": 1, "purchasePrice": 100, "purchaseDate": "2 Jan 2024"},
+                 {"symbol": "NVDA", "quantity": 2, "purchasePrice": 500, "purchaseDate": "2024-03-01"}]
+                """, 10);
+
+        assertThat(readAll(reader)).extracting(Trade::position, trade -> trade.command().symbol())
+                .containsExactly(tuple("Trade 1", "AAPL"), tuple("Trade 5", "NVDA"));
+        assertThat(reader.skipped()).isEqualTo(3);
+        assertThat(reader.errors()).hasSize(3);
+        assertThat(reader.errors().get(0)).startsWith("Trade 2: ");
+        assertThat(reader.errors().get(1)).startsWith("Trade 3: ");
+        assertThat(reader.errors().get(2)).startsWith("Trade 4: ");
+    }
+
+    @Test
+    void syntaxErrorEndsTheReadingButKeepsTheTradesBeforeIt() throws IOException {
+        JsonTradeReader reader = reader("""
+                [{"symbol": "AAPL", "quantity": 10, "purchasePrice": 150, "purchaseDate": "2024-01-02"},
+                 {"symbol": "MSFT", "quantity": 5 "purchasePrice": 400},
+                 {"symbol": "NVDA", "quantity": 2, "purchasePrice": 500, "purchaseDate": "2024-03-01"}]
+                """, 10);
+
+        assertThat(readAll(reader)).extracting(Trade::position).containsExactly("Trade 1");
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.skipped()).isEqualTo(1);
+        assertThat(reader.errors()).singleElement().asString()
+                .startsWith("Trade 2: malformed JSON at line 2")
+                .endsWith("the trades after it were not read");
+    }
+
+    @Test
+    void truncatedFileIsReportedAsMalformed() throws IOException {
+        JsonTradeReader reader = reader("""
+                [{"symbol": "AAPL", "quantity": 10, "purchasePrice": 150, "purchaseDate": "2024-01-02"},
+                """, 10);
+
+        assertThat(readAll(reader)).hasSize(1);
+        assertThat(reader.errors()).singleElement().asString().startsWith("Trade 2: malformed JSON");
+    }
+
+    @Test
+    void syntaxErrorIsReportedEvenPastTheErrorLimit() throws IOException {
+        JsonTradeReader reader = reader("[1, 2, {]", 2);
+
+        assertThat(readAll(reader)).isEmpty();
+        assertThat(reader.skipped()).isEqualTo(3);
+        assertThat(reader.errors()).hasSize(3);
+        assertThat(reader.errors().get(2)).startsWith("Trade 3: malformed JSON");
+    }
+
+    @Test
+    void rejectsABodyThatIsNotAnArray() {
+        assertThatThrownBy(() -> reader("{\"symbol\": \"AAPL\"}", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JsonTradeReader reader(String json, int maxErrors) throws IOException {
+        return new JsonTradeReader(objectMapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), maxErrors);
+    }
+
+    private static List<Trade> readAll(TradeReader reader) {
+        List<Trade> trades = new ArrayList<>();
+        reader.forEachRemaining(trades::add);
+        return trades;
+    }
+}
@@ -0,0 +1,120 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.port.in.TakeEndOfDaySnapshotUseCase.SnapshotResult;
+import de.mk.portfolio.domain.port.out.EndOfDaySnapshotPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EndOfDaySnapshotServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+    private static final int PARTITIONS = 4;
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Mock
+    private EndOfDaySnapshotPort endOfDaySnapshotPort;
+
+    private EndOfDaySnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EndOfDaySnapshotService(endOfDaySnapshotPort, PARTITIONS, 2, LEASE, "");
+    }
+
+    @Test
+    void snapshotsTheMissingPartitionsOfAClaimedDateAndCompletesIt() {
+        when(endOfDaySnapshotPort.claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(true);
+        when(endOfDaySnapshotPort.loadCompletedPartitions(DATE, PARTITIONS)).thenReturn(Set.of(1));
+        when(endOfDaySnapshotPort.renewSnapshotClaim(eq(DATE), anyString(), eq(LEASE))).thenReturn(true);
+        when(endOfDaySnapshotPort.snapshotPartition(eq(DATE), anyInt(), eq(PARTITIONS))).thenReturn(10);
+
+        SnapshotResult result = service.takeSnapshot(DATE);
+
+        assertThat(result).isEqualTo(new SnapshotResult(PARTITIONS, 1, 30));
+        verify(endOfDaySnapshotPort, never()).snapshotPartition(DATE, 1, PARTITIONS);
+        verify(endOfDaySnapshotPort, times(3)).renewSnapshotClaim(eq(DATE), anyString(), eq(LEASE));
+        verify(endOfDaySnapshotPort).completeSnapshot(eq(DATE), anyString());
+    }
+
+    @Test
+    void theScheduledSnapshotIsDatedInTheConfiguredZone() {
+        // 25 hours apart, so the two zones never share a date
+        for (String zone : new String[]{"Pacific/Kiritimati", "Pacific/Pago_Pago"}) {
+            EndOfDaySnapshotService zoned = new EndOfDaySnapshotService(endOfDaySnapshotPort, PARTITIONS, 2, LEASE, zone);
+            LocalDate today = LocalDate.now(ZoneId.of(zone));
+            when(endOfDaySnapshotPort.claimSnapshot(any(), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(false);
+
+            zoned.takeScheduledSnapshot();
+
+            verify(endOfDaySnapshotPort).claimSnapshot(eq(today), eq(PARTITIONS), anyString(), eq(LEASE));
+        }
+    }
+
+    @Test
+    void leavesADateClaimedElsewhereAlone() {
+        when(endOfDaySnapshotPort.claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(false);
+        when(endOfDaySnapshotPort.loadCompletedPartitions(DATE, PARTITIONS)).thenReturn(Set.of(0, 1));
+
+        SnapshotResult result = service.takeSnapshot(DATE);
+
+        assertThat(result).isEqualTo(new SnapshotResult(PARTITIONS, 2, 0));
+        verify(endOfDaySnapshotPort, never()).snapshotPartition(any(), anyInt(), anyInt());
+        verify(endOfDaySnapshotPort, never()).completeSnapshot(any(), anyString());
+    }
+
+    @Test
+    void stopsTakingPartitionsOnceTheClaimIsLost() {
+        when(endOfDaySnapshotPort.claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(true);
+        when(endOfDaySnapshotPort.loadCompletedPartitions(DATE, PARTITIONS)).thenReturn(Set.of());
+        when(endOfDaySnapshotPort.renewSnapshotClaim(eq(DATE), anyString(), eq(LEASE))).thenReturn(false);
+
+        assertThatThrownBy(() -> service.takeSnapshot(DATE)).isInstanceOf(IllegalStateException.class);
+
+        verify(endOfDaySnapshotPort, never()).snapshotPartition(any(), anyInt(), anyInt());
+        verify(endOfDaySnapshotPort, never()).completeSnapshot(any(), anyString());
+    }
+
+    @Test
+    void failedPartitionLeavesTheDateIncomplete() {
+        when(endOfDaySnapshotPort.claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(true);
+        when(endOfDaySnapshotPort.loadCompletedPartitions(DATE, PARTITIONS)).thenReturn(Set.of());
+        when(endOfDaySnapshotPort.renewSnapshotClaim(eq(DATE), anyString(), eq(LEASE))).thenReturn(true);
+        when(endOfDaySnapshotPort.snapshotPartition(eq(DATE), anyInt(), eq(PARTITIONS))).thenReturn(10);
+        when(endOfDaySnapshotPort.snapshotPartition(DATE, 2, PARTITIONS)).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThatThrownBy(() -> service.takeSnapshot(DATE)).hasMessageContaining("1 of 4");
+
+        verify(endOfDaySnapshotPort, never()).completeSnapshot(any(), anyString());
+    }
+
+    @Test
+    void resumesTheIncompleteDate() {
+        when(endOfDaySnapshotPort.loadIncompleteSnapshotDate(PARTITIONS)).thenReturn(Optional.of(DATE));
+        when(endOfDaySnapshotPort.claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE))).thenReturn(false);
+
+        service.resumeInterruptedSnapshot();
+
+        verify(endOfDaySnapshotPort).claimSnapshot(eq(DATE), eq(PARTITIONS), anyString(), eq(LEASE));
+    }
+}
@@ -0,0 +1,246 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.application.HistoryBackfill.PositionChange;
+import de.mk.portfolio.domain.model.ClosingPrice;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.LotMatchingMethod;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.model.RealizedTrade;
+import de.mk.portfolio.domain.port.in.BackfillPortfolioHistoryUseCase.BackfillResult;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.out.HistoricalPricePort;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import de.mk.portfolio.domain.port.out.LoadRealizedTradesPort;
+import de.mk.portfolio.domain.port.out.ReplacePortfolioHistoryPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryBackfillServiceTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 1);
+    private static final LocalDate SATURDAY = LocalDate.of(2024, 3, 2);
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2024, 3, 6);
+
+    @Mock
+    private GetPortfolioUseCase getPortfolioUseCase;
+    @Mock
+    private LoadHoldingsPort loadHoldingsPort;
+    @Mock
+    private LoadRealizedTradesPort loadRealizedTradesPort;
+    @Mock
+    private HistoricalPricePort historicalPricePort;
+    @Mock
+    private ReplacePortfolioHistoryPort replacePortfolioHistoryPort;
+    @Captor
+    private ArgumentCaptor<List<PortfolioHistory>> history;
+
+    private HistoryBackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new HistoryBackfillService(getPortfolioUseCase, loadHoldingsPort, loadRealizedTradesPort,
+                historicalPricePort, replacePortfolioHistoryPort);
+    }
+
+    @Test
+    void lotsAreHeldFromTheirPurchaseAndRealizedTradesUntilTheirSale() {
+        List<PositionChange> changes = HistoryBackfillService.positionChanges(
+                List.of(holding("AAPL", 6, TUESDAY)),
+                List.of(sale("MSFT", 3, FRIDAY, WEDNESDAY, LotMatchingMethod.FIFO)));
+
+        assertThat(changes).containsExactly(
+                new PositionChange("MSFT", FRIDAY, 3),
+                new PositionChange("AAPL", TUESDAY, 6),
+                new PositionChange("MSFT", WEDNESDAY, -3));
+    }
+
+    @Test
+    void anAverageCostSaleIsHeldSinceTheFirstPurchaseOfItsSymbol() {
+        List<PositionChange> changes = HistoryBackfillService.positionChanges(
+                List.of(holding("AAPL", 6, MONDAY)),
+                List.of(sale("AAPL", 4, FRIDAY, TUESDAY, LotMatchingMethod.FIFO),
+                        sale("AAPL", 2, null, WEDNESDAY, LotMatchingMethod.AVERAGE_COST)));
+
+        assertThat(changes).containsExactlyInAnyOrder(
+                new PositionChange("AAPL", FRIDAY, 4),
+                new PositionChange("AAPL", FRIDAY, 2),
+                new PositionChange("AAPL", MONDAY, 6),
+                new PositionChange("AAPL", TUESDAY, -4),
+                new PositionChange("AAPL", WEDNESDAY, -2));
+        assertThat(changes).extracting(PositionChange::date).isSorted();
+    }
+
+    @Test
+    void anAverageCostSaleWithoutAnyKnownPurchaseIsHeldOnItsSaleDateOnly() {
+        List<PositionChange> changes = HistoryBackfillService.positionChanges(
+                List.of(), List.of(sale("AAPL", 2, null, WEDNESDAY, LotMatchingMethod.AVERAGE_COST)));
+
+        assertThat(changes).containsExactly(
+                new PositionChange("AAPL", WEDNESDAY, 2),
+                new PositionChange("AAPL", WEDNESDAY, -2));
+    }
+
+    @Test
+    void everyDayIsPricedWhenAllSymbolsHaveClosesFromTheirPurchaseOn() {
+        List<PositionChange> changes = List.of(new PositionChange("AAPL", SATURDAY, 10));
+        List<ClosingPrice> closes = List.of(close("MSFT", FRIDAY, "400.00"), close("AAPL", MONDAY, "100.00"));
+
+        assertThat(HistoryBackfillService.firstFullyPricedDay(changes, closes)).contains(FRIDAY);
+    }
+
+    @Test
+    void daysBeforeTheFirstCloseOfAHeldSymbolAreNotPriced() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("AAPL", FRIDAY, 10),
+                new PositionChange("MSFT", FRIDAY, 2));
+        List<ClosingPrice> closes = List.of(
+                close("AAPL", FRIDAY, "90.00"),
+                close("AAPL", MONDAY, "100.00"), close("MSFT", TUESDAY, "400.00"));
+
+        assertThat(HistoryBackfillService.firstFullyPricedDay(changes, closes)).contains(TUESDAY);
+    }
+
+    @Test
+    void nothingIsPricedWhenAHeldSymbolHasNoCloses() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("AAPL", FRIDAY, 10),
+                new PositionChange("MSFT", MONDAY, 2));
+        List<ClosingPrice> closes = List.of(close("AAPL", FRIDAY, "90.00"), close("AAPL", MONDAY, "100.00"));
+
+        assertThat(HistoryBackfillService.firstFullyPricedDay(changes, closes)).isEmpty();
+        assertThat(HistoryBackfillService.firstFullyPricedDay(changes, List.of())).isEmpty();
+    }
+
+    @Test
+    void aSymbolSoldBeforeTheFirstCloseNeedsNoCloses() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("MSFT", LocalDate.of(2024, 2, 1), 2),
+                new PositionChange("MSFT", LocalDate.of(2024, 2, 15), -2),
+                new PositionChange("AAPL", FRIDAY, 10));
+        List<ClosingPrice> closes = List.of(close("AAPL", FRIDAY, "90.00"), close("AAPL", MONDAY, "100.00"));
+
+        assertThat(HistoryBackfillService.firstFullyPricedDay(changes, closes)).contains(FRIDAY);
+    }
+
+    @Test
+    void writesTheRebuiltDays() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(holding("AAPL", 10, FRIDAY)));
+        when(loadRealizedTradesPort.loadRealizedTrades(PORTFOLIO_ID)).thenReturn(List.of());
+        when(historicalPricePort.loadClosingPrices(anySet(), eq(FRIDAY), any())).thenReturn(List.of(
+                close("AAPL", FRIDAY, "90.00"), close("AAPL", MONDAY, "100.00")));
+
+        BackfillResult result = service.backfill(PORTFOLIO_ID, null);
+
+        verify(replacePortfolioHistoryPort).replacePortfolioHistory(eq(PORTFOLIO_ID), history.capture());
+        assertThat(history.getValue()).extracting(PortfolioHistory::getDate, PortfolioHistory::getValue).containsExactly(
+                tuple(FRIDAY, new BigDecimal("900.00")),
+                tuple(MONDAY, new BigDecimal("1000.00")));
+        assertThat(result).isEqualTo(new BackfillResult(FRIDAY, MONDAY, 2));
+    }
+
+    @Test
+    void aMissingPriceFileLeavesTheStoredHistoryAlone() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(holding("AAPL", 10, FRIDAY)));
+        when(loadRealizedTradesPort.loadRealizedTrades(PORTFOLIO_ID)).thenReturn(List.of());
+        when(historicalPricePort.loadClosingPrices(anySet(), any(), any())).thenReturn(List.of());
+
+        BackfillResult result = service.backfill(PORTFOLIO_ID, null);
+
+        assertThat(result.points()).isZero();
+        verify(replacePortfolioHistoryPort, never()).replacePortfolioHistory(any(), any());
+    }
+
+    @Test
+    void aPriceFileMissingAHeldSymbolLeavesTheStoredHistoryAlone() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(
+                holding("AAPL", 10, FRIDAY), holding("MSFT", 2, FRIDAY)));
+        when(loadRealizedTradesPort.loadRealizedTrades(PORTFOLIO_ID)).thenReturn(List.of());
+        when(historicalPricePort.loadClosingPrices(anySet(), any(), any())).thenReturn(List.of(
+                close("AAPL", FRIDAY, "90.00"), close("AAPL", MONDAY, "100.00")));
+
+        BackfillResult result = service.backfill(PORTFOLIO_ID, null);
+
+        assertThat(result.points()).isZero();
+        verify(replacePortfolioHistoryPort, never()).replacePortfolioHistory(any(), any());
+    }
+
+    @Test
+    void aPriceFileStartingLateForASymbolLeavesTheDaysBeforeItAlone() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(
+                holding("AAPL", 10, FRIDAY), holding("MSFT", 2, FRIDAY)));
+        when(loadRealizedTradesPort.loadRealizedTrades(PORTFOLIO_ID)).thenReturn(List.of());
+        when(historicalPricePort.loadClosingPrices(anySet(), any(), any())).thenReturn(List.of(
+                close("AAPL", FRIDAY, "90.00"),
+                close("AAPL", MONDAY, "100.00"), close("MSFT", MONDAY, "400.00")));
+
+        BackfillResult result = service.backfill(PORTFOLIO_ID, FRIDAY);
+
+        verify(replacePortfolioHistoryPort).replacePortfolioHistory(eq(PORTFOLIO_ID), history.capture());
+        assertThat(history.getValue()).extracting(PortfolioHistory::getDate, PortfolioHistory::getValue)
+                .containsExactly(tuple(MONDAY, new BigDecimal("1800.00")));
+        assertThat(result).isEqualTo(new BackfillResult(MONDAY, MONDAY, 1));
+    }
+
+    @Test
+    void closesEndingEarlyRewriteOnlyTheDaysTheyCover() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(holding("AAPL", 10, FRIDAY)));
+        when(loadRealizedTradesPort.loadRealizedTrades(PORTFOLIO_ID)).thenReturn(List.of());
+        when(historicalPricePort.loadClosingPrices(anySet(), any(), any())).thenReturn(List.of(
+                close("AAPL", FRIDAY, "90.00")));
+
+        BackfillResult result = service.backfill(PORTFOLIO_ID, FRIDAY);
+
+        verify(replacePortfolioHistoryPort).replacePortfolioHistory(eq(PORTFOLIO_ID), history.capture());
+        assertThat(history.getValue()).extracting(PortfolioHistory::getDate).containsExactly(FRIDAY);
+        assertThat(result).isEqualTo(new BackfillResult(FRIDAY, FRIDAY, 1));
+    }
+
+    private static Holding holding(String symbol, int quantity, LocalDate purchaseDate) {
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(PORTFOLIO_ID)
+                .name(symbol)
+                .symbol(symbol)
+                .quantity(quantity)
+                .price(new BigDecimal("100.00"))
+                .purchasePrice(new BigDecimal("90.00"))
+                .purchaseDate(purchaseDate)
+                .build();
+    }
+
+    private static RealizedTrade sale(String symbol, int quantity, LocalDate purchaseDate, LocalDate saleDate,
+                                      LotMatchingMethod method) {
+        BigDecimal shares = BigDecimal.valueOf(quantity);
+        return new RealizedTrade(UUID.randomUUID(), PORTFOLIO_ID, symbol, quantity, purchaseDate, saleDate,
+                new BigDecimal("90.00").multiply(shares), new BigDecimal("100.00").multiply(shares),
+                new BigDecimal("10.00").multiply(shares), method);
+    }
+
+    private static ClosingPrice close(String symbol, LocalDate date, String price) {
+        return new ClosingPrice(symbol, date, new BigDecimal(price));
+    }
+}
@@ -0,0 +1,109 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.application.HistoryBackfill.PositionChange;
+import de.mk.portfolio.domain.model.ClosingPrice;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HistoryBackfillTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 1);
+    private static final LocalDate SATURDAY = LocalDate.of(2024, 3, 2);
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2024, 3, 5);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2024, 3, 6);
+
+    @Test
+    void valuesThePositionsAtEachClose() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("AAPL", MONDAY, 10),
+                new PositionChange("MSFT", MONDAY, 2));
+        List<ClosingPrice> closes = List.of(
+                close("AAPL", MONDAY, "100.00"), close("MSFT", MONDAY, "400.00"),
+                close("AAPL", TUESDAY, "110.00"), close("MSFT", TUESDAY, "390.00"));
+
+        List<PortfolioHistory> history = HistoryBackfill.sweep(PORTFOLIO_ID, changes, closes, MONDAY, TUESDAY);
+
+        assertThat(history).extracting(PortfolioHistory::getDate, PortfolioHistory::getValue).containsExactly(
+                tuple(MONDAY, new BigDecimal("1800.00")),
+                tuple(TUESDAY, new BigDecimal("1880.00")));
+    }
+
+    @Test
+    void aSaleLowersTheValueFromItsCloseOn() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("AAPL", MONDAY, 10),
+                new PositionChange("AAPL", TUESDAY, -4));
+        List<ClosingPrice> closes = List.of(
+                close("AAPL", MONDAY, "100.00"),
+                close("AAPL", TUESDAY, "110.00"),
+                close("AAPL", WEDNESDAY, "120.00"));
+
+        List<PortfolioHistory> history = HistoryBackfill.sweep(PORTFOLIO_ID, changes, closes, MONDAY, WEDNESDAY);
+
+        assertThat(history).extracting(PortfolioHistory::getValue).containsExactly(
+                new BigDecimal("1000.00"), new BigDecimal("660.00"), new BigDecimal("720.00"));
+    }
+
+    @Test
+    void aTradeOnANonTradingDayTakesEffectWithTheNextClose() {
+        List<PositionChange> changes = List.of(new PositionChange("AAPL", SATURDAY, 10));
+        List<ClosingPrice> closes = List.of(close("AAPL", FRIDAY, "90.00"), close("AAPL", MONDAY, "100.00"));
+
+        List<PortfolioHistory> history = HistoryBackfill.sweep(PORTFOLIO_ID, changes, closes, FRIDAY, MONDAY);
+
+        assertThat(history).extracting(PortfolioHistory::getDate, PortfolioHistory::getValue).containsExactly(
+                tuple(FRIDAY, new BigDecimal("0.00")),
+                tuple(MONDAY, new BigDecimal("1000.00")));
+    }
+
+    @Test
+    void aSymbolCountsFromItsFirstCloseOn() {
+        List<PositionChange> changes = List.of(
+                new PositionChange("AAPL", MONDAY, 10),
+                new PositionChange("MSFT", MONDAY, 2));
+        List<ClosingPrice> closes = List.of(
+                close("AAPL", MONDAY, "100.00"),
+                close("AAPL", TUESDAY, "100.00"), close("MSFT", TUESDAY, "400.00"));
+
+        List<PortfolioHistory> history = HistoryBackfill.sweep(PORTFOLIO_ID, changes, closes, MONDAY, TUESDAY);
+
+        assertThat(history).extracting(PortfolioHistory::getValue).containsExactly(
+                new BigDecimal("1000.00"), new BigDecimal("1800.00"));
+    }
+
+    @Test
+    void emitsOnlyTheDaysFromFromDateButCarriesEarlierPositionsIntoThem() {
+        List<PositionChange> changes = List.of(new PositionChange("AAPL", FRIDAY, 10));
+        List<ClosingPrice> closes = List.of(
+                close("AAPL", FRIDAY, "90.00"),
+                close("AAPL", MONDAY, "100.00"),
+                close("AAPL", TUESDAY, "110.00"));
+
+        List<PortfolioHistory> history = HistoryBackfill.sweep(PORTFOLIO_ID, changes, closes, MONDAY, MONDAY);
+
+        assertThat(history).extracting(PortfolioHistory::getDate, PortfolioHistory::getValue)
+                .containsExactly(tuple(MONDAY, new BigDecimal("1000.00")));
+        assertThat(history).extracting(PortfolioHistory::getPortfolioId).containsOnly(PORTFOLIO_ID);
+    }
+
+    @Test
+    void noClosesGiveNoPoints() {
+        List<PositionChange> changes = List.of(new PositionChange("AAPL", MONDAY, 10));
+
+        assertThat(HistoryBackfill.sweep(PORTFOLIO_ID, changes, List.of(), MONDAY, TUESDAY)).isEmpty();
+    }
+
+    private static ClosingPrice close(String symbol, LocalDate date, String price) {
+        return new ClosingPrice(symbol, date, new BigDecimal(price));
+    }
+}
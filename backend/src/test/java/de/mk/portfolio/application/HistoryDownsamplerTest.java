@@ -0,0 +1,77 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryDownsamplerTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void keepsFirstAndLastPoint() {
+        List<PortfolioHistory> history = series(1000);
+
+        List<PortfolioHistory> sampled = HistoryDownsampler.downsample(history, 50);
+
+        assertThat(sampled).hasSize(50);
+        assertThat(sampled.get(0)).isSameAs(history.get(0));
+        assertThat(sampled.get(49)).isSameAs(history.get(999));
+    }
+
+    @Test
+    void keepsDateOrder() {
+        List<PortfolioHistory> sampled = HistoryDownsampler.downsample(series(365), 20);
+
+        for (int i = 1; i < sampled.size(); i++) {
+            assertThat(sampled.get(i).getDate()).isAfter(sampled.get(i - 1).getDate());
+        }
+    }
+
+    @Test
+    void keepsPeakAndDip() {
+        List<PortfolioHistory> history = new ArrayList<>(series(200));
+        history.set(57, point(57, "1000"));
+        history.set(143, point(143, "-1000"));
+
+        List<PortfolioHistory> sampled = HistoryDownsampler.downsample(history, 10);
+
+        assertThat(sampled).contains(history.get(57), history.get(143));
+    }
+
+    @Test
+    void returnsSeriesUnchangedWhenMaxPointsIsAtOrAboveItsLength() {
+        List<PortfolioHistory> history = series(30);
+
+        assertThat(HistoryDownsampler.downsample(history, 30)).isSameAs(history);
+        assertThat(HistoryDownsampler.downsample(history, 31)).isSameAs(history);
+        assertThat(HistoryDownsampler.downsample(List.of(), 3)).isEmpty();
+    }
+
+    @Test
+    void rejectsMaxPointsBelowMinimum() {
+        assertThatThrownBy(() -> HistoryDownsampler.downsample(series(10), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<PortfolioHistory> series(int size) {
+        List<PortfolioHistory> history = new ArrayList<>(size);
+        for (int day = 0; day < size; day++) {
+            history.add(point(day, String.valueOf(100 + day % 7)));
+        }
+        return history;
+    }
+
+    private static PortfolioHistory point(int day, String value) {
+        return new PortfolioHistory(PORTFOLIO_ID, START.plusDays(day), new BigDecimal(value));
+    }
+}
@@ -0,0 +1,130 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HoldingValuationTest {
+
+    @Test
+    void revaluesInCentsAtALivePrice() {
+        Holding holding = holding(10, "100.00", "90.00", "20.00", "2.04");
+
+        Holding valued = HoldingValuation.revalue(holding, new BigDecimal("105.50"));
+
+        assertThat(valued.getPrice()).isEqualTo("105.50");
+        // Previous close 980.00: 1000.00 at the stored price minus the 20.00 already gained today
+        assertThat(valued.getDailyChangeValue()).isEqualTo("75.00");
+        assertThat(valued.getDailyChangePercent()).isEqualTo("7.65");
+        assertThat(valued.getTotalChangeValue()).isEqualTo("155.00");
+        assertThat(valued.getTotalChangePercent()).isEqualTo("17.22");
+    }
+
+    @Test
+    void keepsTheStoredDailyChangeWithoutALivePrice() {
+        Holding holding = holding(10, "100.00", "90.00", "20.00", "2.04");
+
+        Holding valued = HoldingValuation.revalue(holding, null);
+
+        assertThat(valued.getPrice()).isEqualTo("100.00");
+        assertThat(valued.getDailyChangeValue()).isEqualTo("20.00");
+        assertThat(valued.getDailyChangePercent()).isEqualTo("2.04");
+        assertThat(valued.getTotalChangeValue()).isEqualTo("100.00");
+        assertThat(valued.getTotalChangePercent()).isEqualTo("11.11");
+    }
+
+    @Test
+    void roundsNegativePercentagesHalfAwayFromZero() {
+        // -1.00 of 8.00 is -12.5%; -0.01 of 8.00 is -0.125%, the tie rounds to -0.13
+        Holding holding = holding(1, "8.00", "8.00", "0.00", "0.00");
+
+        assertThat(HoldingValuation.revalue(holding, new BigDecimal("7.00")).getTotalChangePercent()).isEqualTo("-12.50");
+        assertThat(HoldingValuation.revalue(holding, new BigDecimal("7.99")).getTotalChangePercent()).isEqualTo("-0.13");
+        assertThat(HoldingValuation.revalue(holding, new BigDecimal("7.99")).getDailyChangePercent()).isEqualTo("-0.13");
+    }
+
+    @Test
+    void zeroBaseYieldsZeroPercent() {
+        Holding holding = holding(5, "0.00", "0.00", "0.00", "0.00");
+
+        Holding valued = HoldingValuation.revalue(holding, new BigDecimal("3.00"));
+
+        assertThat(valued.getTotalChangeValue()).isEqualTo("15.00");
+        assertThat(valued.getTotalChangePercent()).isEqualTo("0.00");
+        assertThat(valued.getDailyChangePercent()).isEqualTo("0.00");
+    }
+
+    @Test
+    void takesTheExactPathForPricesWithMoreDecimalsThanStored() {
+        Holding holding = holding(10, "100.00", "90.00", "20.00", "2.04");
+
+        Holding valued = HoldingValuation.revalue(holding, new BigDecimal("105.505"));
+
+        assertThat(valued.getPrice()).isEqualTo("105.505");
+        assertThat(valued.getDailyChangeValue()).isEqualTo("75.050");
+        assertThat(valued.getDailyChangePercent()).isEqualTo("7.66");
+        assertThat(valued.getTotalChangeValue()).isEqualTo("155.050");
+        assertThat(valued.getTotalChangePercent()).isEqualTo("17.23");
+    }
+
+    @Test
+    void takesTheExactPathWhenTheCentsOverflow() {
+        // 10^12 in cents times two billion shares does not fit a long
+        Holding holding = holding(Integer.MAX_VALUE, "1000000000000.00", "999999999999.00", "0.00", "0.00");
+
+        Holding valued = HoldingValuation.revalue(holding, new BigDecimal("1000000000001.00"));
+
+        BigDecimal quantity = BigDecimal.valueOf(Integer.MAX_VALUE);
+        assertThat(valued.getDailyChangeValue()).isEqualByComparingTo(quantity);
+        assertThat(valued.getTotalChangeValue()).isEqualByComparingTo(quantity.multiply(new BigDecimal("2")));
+        assertThat(valued.getTotalChangePercent()).isEqualTo("0.00");
+    }
+
+    @Test
+    void bothPathsAgreeAtTheBoundary() {
+        // A trailing zero is enough to leave the cents path; the values must not change with it
+        String[][] cases = {
+                {"100.00", "90.00", "20.00", "105.50"},
+                {"100.00", "90.00", "20.00", "94.37"},
+                {"0.01", "0.03", "-0.01", "0.02"},
+                {"8.00", "8.00", "0.00", "7.99"},
+                {"12345.67", "23456.78", "-345.67", "12000.01"},
+                // Sixteen integer digits are still cents, seventeen are not
+                {"1234567890123456.78", "1234567890123455.00", "0.00", "1234567890123457.00"},
+                {"12345678901234567.00", "12345678901234567.00", "0.00", "12345678901234568.00"},
+        };
+        for (String[] values : cases) {
+            Holding holding = holding(3, values[0], values[1], values[2], "0.00");
+
+            Holding cents = HoldingValuation.revalue(holding, new BigDecimal(values[3]));
+            Holding exact = HoldingValuation.revalue(holding, new BigDecimal(values[3] + "0"));
+
+            assertThat(cents.getDailyChangeValue()).as("daily change at %s", values[3]).isEqualByComparingTo(exact.getDailyChangeValue());
+            assertThat(cents.getDailyChangePercent()).as("daily change %% at %s", values[3]).isEqualTo(exact.getDailyChangePercent());
+            assertThat(cents.getTotalChangeValue()).as("total change at %s", values[3]).isEqualByComparingTo(exact.getTotalChangeValue());
+            assertThat(cents.getTotalChangePercent()).as("total change %% at %s", values[3]).isEqualTo(exact.getTotalChangePercent());
+        }
+    }
+
+    private static Holding holding(int quantity, String price, String purchasePrice, String dailyChangeValue, String dailyChangePercent) {
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(UUID.randomUUID())
+                .name("Apple Inc.")
+                .symbol("AAPL")
+                .quantity(quantity)
+                .price(new BigDecimal(price))
+                .purchasePrice(new BigDecimal(purchasePrice))
+                .purchaseDate(LocalDate.of(2024, 1, 2))
+                .dailyChangeValue(new BigDecimal(dailyChangeValue))
+                .dailyChangePercent(new BigDecimal(dailyChangePercent))
+                .totalChangeValue(BigDecimal.ZERO)
+                .totalChangePercent(BigDecimal.ZERO)
+                .build();
+    }
+}
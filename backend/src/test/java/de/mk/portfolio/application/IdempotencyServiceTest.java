@@ -0,0 +1,106 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.IdempotentResponse;
+import de.mk.portfolio.domain.port.in.HandleIdempotentRequestUseCase.Claim;
+import de.mk.portfolio.domain.port.out.IdempotencyKeyPort;
+import de.mk.portfolio.domain.port.out.IdempotencyKeyPort.StoredKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String KEY = "key-1";
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(90);
+
+    @Mock
+    private IdempotencyKeyPort idempotencyKeyPort;
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(idempotencyKeyPort, Duration.ofHours(24), LOCK_TIMEOUT);
+        lenient().when(idempotencyKeyPort.extendKey(eq(KEY), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void aClaimedKeyIsRenewedWhileItsRequestRuns() {
+        when(idempotencyKeyPort.insertKey(eq(KEY), eq("POST /a sha256=1"), any())).thenReturn(true);
+
+        assertThat(service.claim(KEY, "POST /a sha256=1")).isInstanceOf(Claim.Acquired.class);
+
+        verify(idempotencyKeyPort, timeout(2_000).atLeast(3)).extendKey(eq(KEY), any());
+    }
+
+    @Test
+    void completingTheRequestStopsTheRenewal() throws InterruptedException {
+        when(idempotencyKeyPort.insertKey(eq(KEY), any(), any())).thenReturn(true);
+        service.claim(KEY, "POST /a sha256=1");
+        verify(idempotencyKeyPort, timeout(2_000)).extendKey(eq(KEY), any());
+
+        service.complete(KEY, new IdempotentResponse(200, "application/json", new byte[0]));
+        clearInvocations(idempotencyKeyPort);
+        Thread.sleep(LOCK_TIMEOUT.toMillis() * 2);
+
+        verify(idempotencyKeyPort, never()).extendKey(any(), any());
+    }
+
+    @Test
+    void releasingTheKeyStopsTheRenewal() throws InterruptedException {
+        when(idempotencyKeyPort.insertKey(eq(KEY), any(), any())).thenReturn(true);
+        service.claim(KEY, "POST /a sha256=1");
+
+        service.release(KEY);
+        clearInvocations(idempotencyKeyPort);
+        Thread.sleep(LOCK_TIMEOUT.toMillis() * 2);
+
+        verify(idempotencyKeyPort, never()).extendKey(any(), any());
+    }
+
+    @Test
+    void aKeyWithAnotherBodyIsAMismatch() {
+        when(idempotencyKeyPort.insertKey(eq(KEY), any(), any())).thenReturn(false);
+        when(idempotencyKeyPort.loadKey(KEY)).thenReturn(Optional.of(new StoredKey("POST /a sha256=1", null, Instant.now())));
+
+        assertThat(service.claim(KEY, "POST /a sha256=2")).isInstanceOf(Claim.Mismatch.class);
+        assertThat(service.claim(KEY, "POST /a sha256=1")).isInstanceOf(Claim.InProgress.class);
+    }
+
+    @Test
+    void aKeyWhoseRenewalFindsItGoneIsNoLongerRenewed() throws InterruptedException {
+        when(idempotencyKeyPort.insertKey(eq(KEY), any(), any())).thenReturn(true);
+        when(idempotencyKeyPort.extendKey(eq(KEY), any())).thenReturn(false);
+        service.claim(KEY, "POST /a sha256=1");
+        verify(idempotencyKeyPort, timeout(2_000)).extendKey(eq(KEY), any());
+
+        Thread.sleep(LOCK_TIMEOUT.toMillis() * 2);
+
+        verify(idempotencyKeyPort, times(1)).extendKey(eq(KEY), any());
+    }
+}
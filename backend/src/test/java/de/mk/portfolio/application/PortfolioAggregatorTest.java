@@ -0,0 +1,131 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PortfolioAggregatorTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+
+    private final PortfolioAggregator aggregator = new PortfolioAggregator();
+
+    @Test
+    void buyAddsLotToRunningSumsAndDerivesChanges() {
+        // 10 shares bought at 100, now at 110, up 20 today
+        Portfolio portfolio = aggregator.applyBuy(emptyPortfolio(), lot(10, "110.00", "100.00", "20.00"));
+
+        assertThat(portfolio.getTotalValue()).isEqualByComparingTo("1100.00");
+        assertThat(portfolio.getCostBasis()).isEqualByComparingTo("1000.00");
+        assertThat(portfolio.getDayOpenValue()).isEqualByComparingTo("1080.00");
+        assertThat(portfolio.getDailyChangeValue()).isEqualByComparingTo("20.00");
+        assertThat(portfolio.getDailyChangePercent()).isEqualByComparingTo("1.85");
+        assertThat(portfolio.getTotalChangeValue()).isEqualByComparingTo("100.00");
+        assertThat(portfolio.getTotalChangePercent()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void buyingLotsInOneBatchEqualsBuyingThemOneByOne() {
+        Holding first = lot(10, "110.00", "100.00", "20.00");
+        Holding second = lot(3, "50.00", "60.00", "-1.50");
+
+        Portfolio batched = aggregator.applyBuys(emptyPortfolio(), List.of(first, second));
+        Portfolio single = aggregator.applyBuy(aggregator.applyBuy(emptyPortfolio(), first), second);
+
+        assertThat(batched.getTotalValue()).isEqualByComparingTo(single.getTotalValue());
+        assertThat(batched.getCostBasis()).isEqualByComparingTo(single.getCostBasis());
+        assertThat(batched.getDayOpenValue()).isEqualByComparingTo(single.getDayOpenValue());
+        assertThat(batched.getDailyChangePercent()).isEqualByComparingTo(single.getDailyChangePercent());
+        assertThat(batched.getTotalChangePercent()).isEqualByComparingTo(single.getTotalChangePercent());
+    }
+
+    @Test
+    void sellingWholeLotRestoresEmptyPortfolio() {
+        Holding lot = lot(10, "110.00", "100.00", "20.00");
+        Portfolio portfolio = aggregator.applySell(aggregator.applyBuy(emptyPortfolio(), lot), lot, 10);
+
+        assertThat(portfolio.getTotalValue()).isZero();
+        assertThat(portfolio.getCostBasis()).isZero();
+        assertThat(portfolio.getDayOpenValue()).isZero();
+        assertThat(portfolio.getDailyChangePercent()).isZero();
+        assertThat(portfolio.getTotalChangePercent()).isZero();
+    }
+
+    @Test
+    void sellingPartOfLotRemovesItsShareOfTheSums() {
+        Holding lot = lot(3, "110.00", "100.00", "10.00");
+        Portfolio portfolio = aggregator.applySell(aggregator.applyBuy(emptyPortfolio(), lot), lot, 1);
+
+        assertThat(portfolio.getTotalValue()).isEqualByComparingTo("220.00");
+        assertThat(portfolio.getCostBasis()).isEqualByComparingTo("200.00");
+        // one third of the lot's daily change, rounded to cents
+        assertThat(portfolio.getDailyChangeValue()).isEqualByComparingTo("6.67");
+    }
+
+    @Test
+    void dailyChangeShareOfSoldAndRemainingPartsAddsUpToTheLot() {
+        Holding lot = lot(3, "110.00", "100.00", "10.00");
+
+        assertThat(PortfolioAggregator.dailyChangeShare(lot, 3)).isSameAs(lot.getDailyChangeValue());
+        assertThat(PortfolioAggregator.dailyChangeShare(lot, 1)).isEqualByComparingTo("3.33");
+        assertThat(PortfolioAggregator.dailyChangeShare(lot, 2)).isEqualByComparingTo("6.67");
+    }
+
+    @Test
+    void percentOfZeroBaseIsZero() {
+        assertThat(PortfolioAggregator.percent(new BigDecimal("5.00"), BigDecimal.ZERO)).isEqualByComparingTo("0");
+        assertThat(PortfolioAggregator.percent(new BigDecimal("1.00"), new BigDecimal("3.00"))).isEqualByComparingTo("33.33");
+    }
+
+    @Test
+    void keepsIdentityAndVersion() {
+        Portfolio portfolio = Portfolio.builder()
+                .id(PORTFOLIO_ID)
+                .totalValue(BigDecimal.ZERO)
+                .costBasis(BigDecimal.ZERO)
+                .dayOpenValue(BigDecimal.ZERO)
+                .history(List.of())
+                .version(7L)
+                .build();
+
+        Portfolio bought = aggregator.applyBuy(portfolio, lot(1, "10.00", "10.00", "0.00"));
+
+        assertThat(bought.getId()).isEqualTo(PORTFOLIO_ID);
+        assertThat(bought.getVersion()).isEqualTo(7L);
+    }
+
+    private static Portfolio emptyPortfolio() {
+        return Portfolio.builder()
+                .id(PORTFOLIO_ID)
+                .totalValue(new BigDecimal("0.00"))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .totalChangePercent(new BigDecimal("0.00"))
+                .costBasis(new BigDecimal("0.00"))
+                .dayOpenValue(new BigDecimal("0.00"))
+                .history(List.of())
+                .build();
+    }
+
+    private static Holding lot(int quantity, String price, String purchasePrice, String dailyChangeValue) {
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(PORTFOLIO_ID)
+                .name("Apple Inc.")
+                .symbol("AAPL")
+                .quantity(quantity)
+                .price(new BigDecimal(price))
+                .purchasePrice(new BigDecimal(purchasePrice))
+                .purchaseDate(LocalDate.of(2024, 1, 2))
+                .dailyChangeValue(new BigDecimal(dailyChangeValue))
+                .build();
+    }
+}
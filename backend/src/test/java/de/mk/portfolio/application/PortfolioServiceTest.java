@@ -0,0 +1,231 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.exception.PortfolioNotFoundException;
+import de.mk.portfolio.domain.model.HistoryRange;
+import de.mk.portfolio.domain.model.HistoryResolution;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.PortfolioHistory;
+import de.mk.portfolio.domain.model.Quote;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import de.mk.portfolio.domain.port.out.LoadPortfolioHistoryPort;
+import de.mk.portfolio.domain.port.out.LoadPortfolioPort;
+import de.mk.portfolio.domain.port.out.SaveHoldingPort;
+import de.mk.portfolio.domain.port.out.SavePortfolioPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioServiceTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+
+    @Mock
+    private LoadPortfolioPort loadPortfolioPort;
+    @Mock
+    private LoadHoldingsPort loadHoldingsPort;
+    @Mock
+    private LoadPortfolioHistoryPort loadPortfolioHistoryPort;
+    @Mock
+    private SavePortfolioPort savePortfolioPort;
+    @Mock
+    private SaveHoldingPort saveHoldingPort;
+    @Mock
+    private HoldingFactory holdingFactory;
+    @Mock
+    private OptimisticWriteRetry optimisticWriteRetry;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private QuoteCache quoteCache;
+    private PortfolioService service;
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+        service = new PortfolioService(loadPortfolioPort, loadHoldingsPort, loadPortfolioHistoryPort, savePortfolioPort,
+                saveHoldingPort, new PortfolioAggregator(), quoteCache, holdingFactory, optimisticWriteRetry, eventPublisher);
+    }
+
+    @Test
+    void holdingsOfAnUnknownPortfolioAreNotFound() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of());
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getHoldings(PORTFOLIO_ID)).isInstanceOf(PortfolioNotFoundException.class);
+    }
+
+    @Test
+    void emptyPortfolioHasNoHoldings() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of());
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.of(0L));
+
+        assertThat(service.getHoldings(PORTFOLIO_ID)).isEmpty();
+    }
+
+    @Test
+    void holdingsAreValuedAtTheCachedQuoteWithoutAnExistenceCheck() {
+        quoteCache.put(new Quote("AAPL", new BigDecimal("110.00"), Instant.now()));
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID)).thenReturn(List.of(holding("AAPL"), holding("MSFT")));
+
+        List<Holding> holdings = service.getHoldings(PORTFOLIO_ID);
+
+        assertThat(holdings).extracting(Holding::getSymbol, Holding::getPrice).containsExactly(
+                tuple("AAPL", new BigDecimal("110.00")),
+                tuple("MSFT", new BigDecimal("100.00")));
+        verify(loadPortfolioPort, never()).loadPortfolioVersion(any());
+    }
+
+    @Test
+    void streamedHoldingsOfAnUnknownPortfolioAreNotFound() {
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.forEachHolding(PORTFOLIO_ID, holding -> { }))
+                .isInstanceOf(PortfolioNotFoundException.class);
+    }
+
+    @Test
+    void streamedHoldingsSkipTheExistenceCheckOnceALotWasRead() {
+        quoteCache.put(new Quote("AAPL", new BigDecimal("110.00"), Instant.now()));
+        doAnswer(invocation -> {
+            Consumer<Holding> action = invocation.getArgument(1);
+            action.accept(holding("AAPL"));
+            return null;
+        }).when(loadHoldingsPort).forEachHolding(eq(PORTFOLIO_ID), any());
+        List<Holding> streamed = new ArrayList<>();
+
+        service.forEachHolding(PORTFOLIO_ID, streamed::add);
+
+        assertThat(streamed).extracting(Holding::getPrice).containsExactly(new BigDecimal("110.00"));
+        verify(loadPortfolioPort, never()).loadPortfolioVersion(any());
+    }
+
+    @Test
+    void historyOfAnUnknownPortfolioIsNotFound() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.DAILY)))
+                .thenReturn(List.of());
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_MONTH, null))
+                .isInstanceOf(PortfolioNotFoundException.class);
+        assertThatThrownBy(() -> service.forEachPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_MONTH, point -> { }))
+                .isInstanceOf(PortfolioNotFoundException.class);
+    }
+
+    @Test
+    void historyOfANewPortfolioIsEmpty() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.DAILY)))
+                .thenReturn(List.of());
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.of(0L));
+
+        assertThat(service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_MONTH, null)).isEmpty();
+    }
+
+    @Test
+    void aPointBudgetIsServedFromTheCoarsestSeriesThatFillsIt() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.MONTHLY)))
+                .thenReturn(series(13));
+
+        List<PortfolioHistory> history = service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_YEAR, 12);
+
+        assertThat(history).hasSize(12);
+        verify(loadPortfolioHistoryPort, never()).loadPortfolioHistory(any(), any(), eq(HistoryResolution.WEEKLY));
+        verify(loadPortfolioHistoryPort, never()).loadPortfolioHistory(any(), any(), eq(HistoryResolution.DAILY));
+    }
+
+    @Test
+    void aResolutionThatCannotFillTheBudgetIsNotLoaded() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.WEEKLY)))
+                .thenReturn(series(53));
+
+        List<PortfolioHistory> history = service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_YEAR, 30);
+
+        assertThat(history).hasSize(30);
+        verify(loadPortfolioHistoryPort, never()).loadPortfolioHistory(any(), any(), eq(HistoryResolution.MONTHLY));
+        verify(loadPortfolioHistoryPort, never()).loadPortfolioHistory(any(), any(), eq(HistoryResolution.DAILY));
+    }
+
+    @Test
+    void aShortCoarseSeriesFallsThroughToTheNextFinerOne() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.MONTHLY)))
+                .thenReturn(series(4));
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.WEEKLY)))
+                .thenReturn(series(17));
+
+        List<PortfolioHistory> history = service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_YEAR, 12);
+
+        assertThat(history).hasSize(12);
+        verify(loadPortfolioHistoryPort, never()).loadPortfolioHistory(any(), any(), eq(HistoryResolution.DAILY));
+    }
+
+    @Test
+    void dailyHistoryIsReturnedEvenWhenItCannotFillTheBudget() {
+        List<PortfolioHistory> daily = series(8);
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.MONTHLY)))
+                .thenReturn(series(2));
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.WEEKLY)))
+                .thenReturn(series(3));
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), eq(HistoryResolution.DAILY)))
+                .thenReturn(daily);
+
+        assertThat(service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_YEAR, 12)).isEqualTo(daily);
+        verify(loadPortfolioPort, never()).loadPortfolioVersion(any());
+    }
+
+    @Test
+    void aBudgetForAnUnknownPortfolioEndsInNotFound() {
+        when(loadPortfolioHistoryPort.loadPortfolioHistory(eq(PORTFOLIO_ID), any(), any())).thenReturn(List.of());
+        when(loadPortfolioPort.loadPortfolioVersion(PORTFOLIO_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getPortfolioHistory(PORTFOLIO_ID, HistoryRange.ONE_YEAR, 12))
+                .isInstanceOf(PortfolioNotFoundException.class);
+    }
+
+    private static List<PortfolioHistory> series(int points) {
+        List<PortfolioHistory> history = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            history.add(new PortfolioHistory(PORTFOLIO_ID, LocalDate.of(2024, 1, 1).plusDays(i), BigDecimal.valueOf(1000 + i)));
+        }
+        return history;
+    }
+
+    private static Holding holding(String symbol) {
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(PORTFOLIO_ID)
+                .name(symbol)
+                .symbol(symbol)
+                .quantity(10)
+                .price(new BigDecimal("100.00"))
+                .purchasePrice(new BigDecimal("90.00"))
+                .purchaseDate(LocalDate.of(2024, 1, 2))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("100.00"))
+                .totalChangePercent(new BigDecimal("11.11"))
+                .build();
+    }
+}
@@ -0,0 +1,294 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.event.PricesChangedEvent;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.model.PortfolioUpdate;
+import de.mk.portfolio.domain.port.in.GetHoldingsUseCase;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.SubscribePortfolioUpdatesUseCase.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioStreamServiceTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final UUID AAPL_LOT = UUID.randomUUID();
+    private static final UUID MSFT_LOT = UUID.randomUUID();
+    private static final int PUBLISH_PARALLELISM = 4;
+
+    @Mock
+    private GetPortfolioUseCase getPortfolioUseCase;
+    @Mock
+    private GetHoldingsUseCase getHoldingsUseCase;
+
+    private PortfolioStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PortfolioStreamService(getPortfolioUseCase, getHoldingsUseCase, PUBLISH_PARALLELISM);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void sendsASnapshotAndThenOnlyWhatChanged() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "1400.00", holding(AAPL_LOT, "AAPL", "100.00"), holding(MSFT_LOT, "MSFT", "400.00"));
+        BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+        service.subscribe(PORTFOLIO_ID, updates::add);
+
+        PortfolioUpdate snapshot = next(updates);
+        assertThat(snapshot.snapshot()).isTrue();
+        assertThat(snapshot.holdings()).hasSize(2);
+
+        // The first cycle has no previous state to diff against
+        service.publish();
+        assertThat(next(updates).holdings()).hasSize(2);
+
+        stubState(PORTFOLIO_ID, "1410.00", holding(AAPL_LOT, "AAPL", "110.00"), holding(MSFT_LOT, "MSFT", "400.00"));
+        service.onPricesChanged(new PricesChangedEvent(Set.of("AAPL")));
+        service.publish();
+
+        PortfolioUpdate delta = next(updates);
+        assertThat(delta.snapshot()).isFalse();
+        assertThat(delta.portfolio().getTotalValue()).isEqualTo("1410.00");
+        assertThat(delta.holdings()).extracting(Holding::getId).containsExactly(AAPL_LOT);
+        assertThat(delta.removedHoldingIds()).isEmpty();
+
+        stubState(PORTFOLIO_ID, "1010.00", holding(AAPL_LOT, "AAPL", "110.00"));
+        service.onPositionsChanged(new PositionsChangedEvent(PORTFOLIO_ID));
+        service.publish();
+
+        assertThat(next(updates).removedHoldingIds()).containsExactly(MSFT_LOT);
+    }
+
+    @Test
+    void publishesOnlyDirtyPortfolios() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "100.00", holding(AAPL_LOT, "AAPL", "100.00"));
+        BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+        service.subscribe(PORTFOLIO_ID, updates::add);
+        next(updates);
+        service.publish();
+        next(updates);
+
+        service.onPricesChanged(new PricesChangedEvent(Set.of("MSFT")));
+        service.onPositionsChanged(new PositionsChangedEvent(UUID.randomUUID()));
+        service.publish();
+
+        // Subscribe, first cycle; nothing after the unrelated events
+        verify(getPortfolioUseCase, times(2)).getPortfolio(PORTFOLIO_ID);
+        assertThat(updates.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void conflatesUpdatesWhileTheListenerIsBusy() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "1400.00", holding(AAPL_LOT, "AAPL", "100.00"), holding(MSFT_LOT, "MSFT", "400.00"));
+        CountDownLatch snapshotTaken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+        service.subscribe(PORTFOLIO_ID, update -> {
+            updates.add(update);
+            if (update.snapshot()) {
+                snapshotTaken.countDown();
+                await(release);
+            }
+        });
+        assertThat(snapshotTaken.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Three cycles while the listener still holds the snapshot
+        service.publish();
+        stubState(PORTFOLIO_ID, "1410.00", holding(AAPL_LOT, "AAPL", "110.00"), holding(MSFT_LOT, "MSFT", "400.00"));
+        service.onPricesChanged(new PricesChangedEvent(Set.of("AAPL")));
+        service.publish();
+        stubState(PORTFOLIO_ID, "1420.00", holding(AAPL_LOT, "AAPL", "110.00"), holding(MSFT_LOT, "MSFT", "410.00"));
+        service.onPricesChanged(new PricesChangedEvent(Set.of("MSFT")));
+        service.publish();
+        release.countDown();
+
+        assertThat(next(updates).snapshot()).isTrue();
+        PortfolioUpdate conflated = next(updates);
+        assertThat(conflated.portfolio().getTotalValue()).isEqualTo("1420.00");
+        assertThat(conflated.holdings()).extracting(Holding::getPrice)
+                .containsExactlyInAnyOrder(new BigDecimal("110.00"), new BigDecimal("410.00"));
+        assertThat(updates.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void closedSubscriptionReceivesNothingAndItsPortfolioIsNoLongerLoaded() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "100.00", holding(AAPL_LOT, "AAPL", "100.00"));
+        BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+        Subscription subscription = service.subscribe(PORTFOLIO_ID, updates::add);
+        next(updates);
+
+        subscription.close();
+        service.onPositionsChanged(new PositionsChangedEvent(PORTFOLIO_ID));
+        service.publish();
+
+        assertThat(updates.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        verify(getPortfolioUseCase, times(1)).getPortfolio(PORTFOLIO_ID);
+    }
+
+    @Test
+    void listenerThatThrowsIsUnsubscribed() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "100.00", holding(AAPL_LOT, "AAPL", "100.00"));
+        CountDownLatch called = new CountDownLatch(1);
+        service.subscribe(PORTFOLIO_ID, update -> {
+            called.countDown();
+            throw new IllegalStateException("client went away");
+        });
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+
+        service.publish();
+
+        verify(getHoldingsUseCase, times(1)).getHoldings(PORTFOLIO_ID);
+    }
+
+    @Test
+    void loadsTheDirtyPortfoliosOfACycleInParallel() throws InterruptedException {
+        CountDownLatch allLoading = new CountDownLatch(PUBLISH_PARALLELISM);
+        AtomicInteger loadedTogether = new AtomicInteger();
+        List<BlockingQueue<PortfolioUpdate>> queues = new ArrayList<>();
+        when(getHoldingsUseCase.getHoldings(any())).thenReturn(List.of());
+        when(getPortfolioUseCase.getPortfolio(any())).thenAnswer(invocation -> portfolio(invocation.getArgument(0), "0.00"));
+        for (int i = 0; i < PUBLISH_PARALLELISM; i++) {
+            BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+            service.subscribe(UUID.randomUUID(), updates::add);
+            next(updates);
+            queues.add(updates);
+        }
+        // Only the publish cycle blocks: each load waits for all the others to have started
+        doAnswer(invocation -> {
+            allLoading.countDown();
+            if (allLoading.await(5, TimeUnit.SECONDS)) {
+                loadedTogether.incrementAndGet();
+            }
+            return portfolio(invocation.getArgument(0), "1.00");
+        }).when(getPortfolioUseCase).getPortfolio(any());
+
+        service.publish();
+
+        assertThat(loadedTogether).hasValue(PUBLISH_PARALLELISM);
+        for (BlockingQueue<PortfolioUpdate> updates : queues) {
+            assertThat(next(updates).portfolio().getTotalValue()).isEqualTo("1.00");
+        }
+    }
+
+    @Test
+    void failedLoadIsRetriedInTheNextCycle() throws InterruptedException {
+        stubState(PORTFOLIO_ID, "100.00", holding(AAPL_LOT, "AAPL", "100.00"));
+        BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+        service.subscribe(PORTFOLIO_ID, updates::add);
+        next(updates);
+        doThrow(new IllegalStateException("database down")).when(getPortfolioUseCase).getPortfolio(PORTFOLIO_ID);
+
+        service.publish();
+        assertThat(updates.poll(100, TimeUnit.MILLISECONDS)).isNull();
+
+        stubState(PORTFOLIO_ID, "100.00", holding(AAPL_LOT, "AAPL", "100.00"));
+        service.publish();
+        assertThat(next(updates).holdings()).hasSize(1);
+    }
+
+    @Test
+    void subscriptionsSurviveConcurrentUnsubscribesOfTheSamePortfolio() throws InterruptedException {
+        when(getHoldingsUseCase.getHoldings(PORTFOLIO_ID)).thenReturn(List.of());
+        when(getPortfolioUseCase.getPortfolio(PORTFOLIO_ID)).thenReturn(portfolio(PORTFOLIO_ID, "0.00"));
+        int kept = 200;
+        List<BlockingQueue<PortfolioUpdate>> queues = new ArrayList<>();
+        try (ExecutorService clients = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < kept; i++) {
+                BlockingQueue<PortfolioUpdate> updates = new LinkedBlockingQueue<>();
+                queues.add(updates);
+                // Every kept subscription races a subscription that is closed right away
+                clients.execute(() -> service.subscribe(PORTFOLIO_ID, updates::add));
+                clients.execute(() -> service.subscribe(PORTFOLIO_ID, update -> { }).close());
+            }
+        }
+
+        doReturn(portfolio(PORTFOLIO_ID, "1.00")).when(getPortfolioUseCase).getPortfolio(PORTFOLIO_ID);
+        service.publish();
+
+        for (BlockingQueue<PortfolioUpdate> updates : queues) {
+            PortfolioUpdate update = next(updates);
+            assertThat(update.snapshot()).isTrue();
+            // A snapshot not yet sent when the delta arrives is conflated with it
+            if (update.portfolio().getTotalValue().compareTo(new BigDecimal("1.00")) != 0) {
+                update = next(updates);
+            }
+            assertThat(update.portfolio().getTotalValue()).isEqualTo("1.00");
+        }
+    }
+
+    private void stubState(UUID portfolioId, String totalValue, Holding... holdings) {
+        // Stubbed without calling the mock, which may be stubbed to throw
+        doReturn(portfolio(portfolioId, totalValue)).when(getPortfolioUseCase).getPortfolio(portfolioId);
+        doReturn(List.of(holdings)).when(getHoldingsUseCase).getHoldings(portfolioId);
+    }
+
+    private static PortfolioUpdate next(BlockingQueue<PortfolioUpdate> updates) throws InterruptedException {
+        PortfolioUpdate update = updates.poll(5, TimeUnit.SECONDS);
+        assertThat(update).as("update within 5 s").isNotNull();
+        return update;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Portfolio portfolio(UUID portfolioId, String totalValue) {
+        return Portfolio.builder()
+                .id(portfolioId)
+                .totalValue(new BigDecimal(totalValue))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .build();
+    }
+
+    private static Holding holding(UUID id, String symbol, String price) {
+        return Holding.builder()
+                .id(id)
+                .portfolioId(PORTFOLIO_ID)
+                .symbol(symbol)
+                .quantity(1)
+                .price(new BigDecimal(price))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PricesChangedEvent;
+import de.mk.portfolio.domain.model.PriceTick;
+import de.mk.portfolio.domain.port.out.PriceFeedPort;
+import de.mk.portfolio.domain.port.out.RevalueHoldingsPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PriceIngestionServiceTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-01T15:00:00Z");
+
+    @Mock
+    private ObjectProvider<PriceFeedPort> priceFeedPort;
+    @Mock
+    private RevalueHoldingsPort revalueHoldingsPort;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<Collection<PriceTick>> batch;
+
+    private QuoteCache quoteCache;
+    private PriceIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+        service = new PriceIngestionService(priceFeedPort, revalueHoldingsPort, quoteCache, eventPublisher);
+    }
+
+    @Test
+    void coalescesTicksPerSymbolToTheLatestOne() {
+        service.ingest(tick("AAPL", "100.00", 1));
+        service.ingest(tick("AAPL", "101.00", 3));
+        service.ingest(tick("AAPL", "99.00", 2));
+        service.ingest(tick("MSFT", "400.00", 1));
+
+        service.flush();
+
+        verify(revalueHoldingsPort).revalueHoldings(batch.capture());
+        assertThat(batch.getValue())
+                .extracting(PriceTick::symbol, PriceTick::price)
+                .containsExactlyInAnyOrder(tuple("AAPL", new BigDecimal("101.00")), tuple("MSFT", new BigDecimal("400.00")));
+        verify(eventPublisher).publishEvent(new PricesChangedEvent(Set.of("AAPL", "MSFT")));
+    }
+
+    @Test
+    void flushWithoutNewTicksDoesNothing() {
+        service.ingest(tick("AAPL", "100.00", 1));
+        service.flush();
+
+        service.flush();
+
+        verify(revalueHoldingsPort, times(1)).revalueHoldings(any());
+    }
+
+    @Test
+    void roundsPricesToCentsBeforeCachingAndWriting() {
+        service.ingest(tick("AAPL", "100.005", 1));
+
+        assertThat(quoteCache.get("AAPL")).get().extracting(quote -> quote.price()).isEqualTo(new BigDecimal("100.01"));
+        service.flush();
+        verify(revalueHoldingsPort).revalueHoldings(batch.capture());
+        assertThat(batch.getValue()).extracting(PriceTick::price).containsExactly(new BigDecimal("100.01"));
+    }
+
+    @Test
+    void failedBatchIsRetriedUnlessANewerTickArrived() {
+        doThrow(new IllegalStateException("database down")).doNothing()
+                .when(revalueHoldingsPort).revalueHoldings(any());
+        service.ingest(tick("AAPL", "100.00", 1));
+        service.ingest(tick("MSFT", "400.00", 1));
+        service.flush();
+        verify(eventPublisher, never()).publishEvent(any());
+
+        service.ingest(tick("AAPL", "102.00", 2));
+        service.flush();
+
+        verify(revalueHoldingsPort, times(2)).revalueHoldings(batch.capture());
+        assertThat(batch.getValue())
+                .extracting(PriceTick::symbol, PriceTick::price)
+                .containsExactlyInAnyOrder(tuple("AAPL", new BigDecimal("102.00")), tuple("MSFT", new BigDecimal("400.00")));
+    }
+
+    private static PriceTick tick(String symbol, String price, int secondsAfterT0) {
+        return new PriceTick(symbol, new BigDecimal(price), T0.plusSeconds(secondsAfterT0));
+    }
+}
@@ -0,0 +1,77 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.model.Quote;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuoteCacheTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-01T15:00:00Z");
+
+    private final QuoteCache quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void newerQuoteReplacesOlderOne() {
+        quoteCache.put(quote("AAPL", "100.00", 0));
+        quoteCache.put(quote("AAPL", "101.00", 1));
+
+        assertThat(quoteCache.get("AAPL")).contains(quote("AAPL", "101.00", 1));
+    }
+
+    @Test
+    void outOfOrderQuoteDoesNotReplaceNewerOne() {
+        quoteCache.put(quote("AAPL", "101.00", 2));
+        quoteCache.put(quote("AAPL", "100.00", 1));
+
+        assertThat(quoteCache.get("AAPL")).contains(quote("AAPL", "101.00", 2));
+    }
+
+    @Test
+    void quoteWithSameTimestampReplacesCurrentOne() {
+        quoteCache.put(quote("AAPL", "100.00", 1));
+        quoteCache.put(quote("AAPL", "100.50", 1));
+
+        assertThat(quoteCache.get("AAPL")).contains(quote("AAPL", "100.50", 1));
+    }
+
+    @Test
+    void staleQuoteIsDropped() throws InterruptedException {
+        QuoteCache shortLived = new QuoteCache(100, Duration.ofMillis(20));
+        shortLived.put(quote("AAPL", "100.00", 0));
+
+        Thread.sleep(100);
+
+        assertThat(shortLived.get("AAPL")).isEmpty();
+        assertThat(shortLived.getAll(List.of("AAPL"))).isEmpty();
+    }
+
+    @Test
+    void getAllReturnsOnlySymbolsWithQuote() {
+        quoteCache.put(quote("AAPL", "100.00", 0));
+        quoteCache.put(quote("MSFT", "400.00", 0));
+
+        assertThat(quoteCache.getAll(List.of("AAPL", "MSFT", "NVDA")))
+                .containsOnlyKeys("AAPL", "MSFT");
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        quoteCache.put(quote("AAPL", "100.00", 0));
+
+        quoteCache.get("AAPL");
+        quoteCache.get("NVDA");
+
+        assertThat(quoteCache.stats().hitCount()).isEqualTo(1);
+        assertThat(quoteCache.stats().missCount()).isEqualTo(1);
+    }
+
+    private static Quote quote(String symbol, String price, int secondsAfterT0) {
+        return new Quote(symbol, new BigDecimal(price), T0.plusSeconds(secondsAfterT0));
+    }
+}
@@ -0,0 +1,309 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.exception.InsufficientQuantityException;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.LotMatchingMethod;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.model.Quote;
+import de.mk.portfolio.domain.model.RealizedTrade;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.out.DeleteHoldingPort;
+import de.mk.portfolio.domain.port.out.LoadHoldingsPort;
+import de.mk.portfolio.domain.port.out.SavePortfolioPort;
+import de.mk.portfolio.domain.port.out.SaveRealizedTradesPort;
+import de.mk.portfolio.domain.port.out.UpdateHoldingPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SellStockServiceTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 2);
+    private static final LocalDate FEBRUARY = LocalDate.of(2024, 2, 1);
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+
+    @Mock
+    private GetPortfolioUseCase getPortfolioUseCase;
+    @Mock
+    private LoadHoldingsPort loadHoldingsPort;
+    @Mock
+    private UpdateHoldingPort updateHoldingPort;
+    @Mock
+    private DeleteHoldingPort deleteHoldingPort;
+    @Mock
+    private SavePortfolioPort savePortfolioPort;
+    @Mock
+    private SaveRealizedTradesPort saveRealizedTradesPort;
+    @Mock
+    private OptimisticWriteRetry optimisticWriteRetry;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<List<RealizedTrade>> realizedTrades;
+    @Captor
+    private ArgumentCaptor<Holding> updatedLots;
+    @Captor
+    private ArgumentCaptor<Portfolio> savedPortfolio;
+
+    private QuoteCache quoteCache;
+
+    // Oldest first, as the port returns them; all priced at 130.00
+    private final Holding january = lot(JANUARY, 10, "100.00", "30.00");
+    private final Holding february = lot(FEBRUARY, 10, "120.00", "0.00");
+    private final Holding march = lot(MARCH, 5, "150.00", "0.00");
+
+    @BeforeEach
+    void setUp() {
+        quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+        quoteCache.put(new Quote("AAPL", new BigDecimal("140.00"), Instant.now()));
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(optimisticWriteRetry).executeWithoutResult(any());
+        // 25 shares at 130.00, bought for 2950.00; 30.00 of the value was gained today
+        lenient().when(getPortfolioUseCase.getPortfolio(PORTFOLIO_ID)).thenReturn(portfolio("3250.00", "2950.00", "3220.00"));
+        lenient().when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID, "AAPL")).thenReturn(List.of(january, february, march));
+    }
+
+    @Test
+    void fifoConsumesTheOldestLotsFirst() {
+        service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 15);
+
+        verify(deleteHoldingPort).deleteHolding(january.getId());
+        verify(updateHoldingPort).updateHolding(updatedLots.capture());
+        assertThat(updatedLots.getValue().getId()).isEqualTo(february.getId());
+        assertThat(updatedLots.getValue().getQuantity()).isEqualTo(5);
+        assertThat(updatedLots.getValue().getTotalChangeValue()).isEqualByComparingTo("50.00");
+
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).hasSize(2);
+        assertTrade(realizedTrades.getValue().get(0), 10, JANUARY, "1000.00", "1400.00", "400.00", LotMatchingMethod.FIFO);
+        assertTrade(realizedTrades.getValue().get(1), 5, FEBRUARY, "600.00", "700.00", "100.00", LotMatchingMethod.FIFO);
+
+        verify(savePortfolioPort).savePortfolio(savedPortfolio.capture());
+        assertThat(savedPortfolio.getValue().getTotalValue()).isEqualByComparingTo("1300.00");
+        assertThat(savedPortfolio.getValue().getCostBasis()).isEqualByComparingTo("1350.00");
+        // The January lot took its whole daily change with it
+        assertThat(savedPortfolio.getValue().getDayOpenValue()).isEqualByComparingTo("1300.00");
+        verify(eventPublisher).publishEvent(new PositionsChangedEvent(PORTFOLIO_ID));
+    }
+
+    @Test
+    void lifoConsumesTheNewestLotsFirst() {
+        service(LotMatchingMethod.LIFO).sellStock(PORTFOLIO_ID, "AAPL", 7);
+
+        verify(deleteHoldingPort).deleteHolding(march.getId());
+        verify(updateHoldingPort).updateHolding(updatedLots.capture());
+        assertThat(updatedLots.getValue().getId()).isEqualTo(february.getId());
+        assertThat(updatedLots.getValue().getQuantity()).isEqualTo(8);
+
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).hasSize(2);
+        assertTrade(realizedTrades.getValue().get(0), 5, MARCH, "750.00", "700.00", "-50.00", LotMatchingMethod.LIFO);
+        assertTrade(realizedTrades.getValue().get(1), 2, FEBRUARY, "240.00", "280.00", "40.00", LotMatchingMethod.LIFO);
+
+        verify(savePortfolioPort).savePortfolio(savedPortfolio.capture());
+        assertThat(savedPortfolio.getValue().getTotalValue()).isEqualByComparingTo("2340.00");
+        assertThat(savedPortfolio.getValue().getCostBasis()).isEqualByComparingTo("1960.00");
+    }
+
+    @Test
+    void partialSellOfOneLotSplitsItsDailyChange() {
+        service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 3);
+
+        verify(deleteHoldingPort, never()).deleteHolding(any());
+        verify(updateHoldingPort).updateHolding(updatedLots.capture());
+        Holding reduced = updatedLots.getValue();
+        assertThat(reduced.getId()).isEqualTo(january.getId());
+        assertThat(reduced.getQuantity()).isEqualTo(7);
+        assertThat(reduced.getPurchasePrice()).isEqualByComparingTo("100.00");
+        assertThat(reduced.getDailyChangeValue()).isEqualByComparingTo("21.00");
+        assertThat(reduced.getTotalChangeValue()).isEqualByComparingTo("210.00");
+
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).singleElement()
+                .satisfies(trade -> assertTrade(trade, 3, JANUARY, "300.00", "420.00", "120.00", LotMatchingMethod.FIFO));
+
+        verify(savePortfolioPort).savePortfolio(savedPortfolio.capture());
+        assertThat(savedPortfolio.getValue().getTotalValue()).isEqualByComparingTo("2860.00");
+        // 9.00 of the 30.00 gained today left with the 3 shares
+        assertThat(savedPortfolio.getValue().getDayOpenValue()).isEqualByComparingTo("2839.00");
+        assertThat(savedPortfolio.getValue().getDailyChangeValue()).isEqualByComparingTo("21.00");
+    }
+
+    @Test
+    void sellingEveryShareDeletesEveryLot() {
+        service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 25);
+
+        verify(deleteHoldingPort, times(3)).deleteHolding(any());
+        verify(updateHoldingPort, never()).updateHolding(any());
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).extracting(RealizedTrade::realizedGain)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("400.00"), new BigDecimal("200.00"), new BigDecimal("-50.00"));
+        verify(savePortfolioPort).savePortfolio(savedPortfolio.capture());
+        assertThat(savedPortfolio.getValue().getTotalValue()).isEqualByComparingTo("0.00");
+        assertThat(savedPortfolio.getValue().getCostBasis()).isEqualByComparingTo("0.00");
+        assertThat(savedPortfolio.getValue().getDayOpenValue()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void averageCostPricesTheSaleAtTheAveragePurchasePriceAndRepricesTheRest() {
+        service(LotMatchingMethod.AVERAGE_COST).sellStock(PORTFOLIO_ID, "AAPL", 5);
+
+        // Average of 2950.00 over 25 shares
+        verify(updateHoldingPort, times(4)).updateHolding(updatedLots.capture());
+        List<Holding> updates = updatedLots.getAllValues();
+        assertThat(updates.get(0).getId()).isEqualTo(january.getId());
+        assertThat(updates.get(0).getQuantity()).isEqualTo(5);
+        assertThat(updates.subList(1, 4)).extracting(Holding::getId)
+                .containsExactly(january.getId(), february.getId(), march.getId());
+        assertThat(updates.subList(1, 4)).extracting(Holding::getPurchasePrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsOnly(new BigDecimal("118.00"));
+        assertThat(updates.get(3).getTotalChangeValue()).isEqualByComparingTo("60.00");
+        assertThat(updates.get(3).getTotalChangePercent()).isEqualByComparingTo("10.17");
+
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).singleElement()
+                .satisfies(trade -> assertTrade(trade, 5, null, "590.00", "700.00", "110.00", LotMatchingMethod.AVERAGE_COST));
+
+        verify(savePortfolioPort).savePortfolio(savedPortfolio.capture());
+        assertThat(savedPortfolio.getValue().getTotalValue()).isEqualByComparingTo("2600.00");
+        assertThat(savedPortfolio.getValue().getCostBasis()).isEqualByComparingTo("2360.00");
+    }
+
+    @Test
+    void averageCostSellOfRepricedLotsReleasesTheSameAverage() {
+        Holding first = lot(JANUARY, 5, "118.00", "0.00");
+        Holding second = lot(FEBRUARY, 15, "118.00", "0.00");
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID, "AAPL")).thenReturn(List.of(first, second));
+        when(getPortfolioUseCase.getPortfolio(PORTFOLIO_ID)).thenReturn(portfolio("2600.00", "2360.00", "2600.00"));
+
+        service(LotMatchingMethod.AVERAGE_COST).sellStock(PORTFOLIO_ID, "AAPL", 8);
+
+        verify(deleteHoldingPort).deleteHolding(first.getId());
+        // Only the reduced lot is written; its price already is the average
+        verify(updateHoldingPort).updateHolding(updatedLots.capture());
+        assertThat(updatedLots.getValue().getQuantity()).isEqualTo(12);
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).singleElement()
+                .satisfies(trade -> assertTrade(trade, 8, null, "944.00", "1120.00", "176.00", LotMatchingMethod.AVERAGE_COST));
+    }
+
+    @Test
+    void salePriceFallsBackToTheStoredPriceWithoutAQuote() {
+        quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+
+        service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 10);
+
+        verify(saveRealizedTradesPort).saveRealizedTrades(realizedTrades.capture());
+        assertThat(realizedTrades.getValue()).singleElement()
+                .satisfies(trade -> assertTrade(trade, 10, JANUARY, "1000.00", "1300.00", "300.00", LotMatchingMethod.FIFO));
+    }
+
+    @Test
+    void overSellingIsRejectedWithoutWritingAnything() {
+        assertThatThrownBy(() -> service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 26))
+                .isInstanceOfSatisfying(InsufficientQuantityException.class, e -> {
+                    assertThat(e.getSymbol()).isEqualTo("AAPL");
+                    assertThat(e.getRequested()).isEqualTo(26);
+                    assertThat(e.getHeld()).isEqualTo(25);
+                });
+
+        verifyNoInteractions(deleteHoldingPort, updateHoldingPort, saveRealizedTradesPort, savePortfolioPort, eventPublisher);
+    }
+
+    @Test
+    void sellingASymbolThatIsNotHeldIsRejected() {
+        when(loadHoldingsPort.loadHoldings(PORTFOLIO_ID, "MSFT")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "MSFT", 1))
+                .isInstanceOf(InsufficientQuantityException.class);
+    }
+
+    @Test
+    void quantityMustBePositive() {
+        assertThatThrownBy(() -> service(LotMatchingMethod.FIFO).sellStock(PORTFOLIO_ID, "AAPL", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(optimisticWriteRetry);
+    }
+
+    private SellStockService service(LotMatchingMethod lotMatchingMethod) {
+        return new SellStockService(getPortfolioUseCase, loadHoldingsPort, updateHoldingPort, deleteHoldingPort, savePortfolioPort,
+                saveRealizedTradesPort, new PortfolioAggregator(), quoteCache, optimisticWriteRetry, eventPublisher, lotMatchingMethod);
+    }
+
+    private static void assertTrade(RealizedTrade trade, int quantity, LocalDate purchaseDate, String costBasis, String proceeds,
+                                    String realizedGain, LotMatchingMethod lotMatchingMethod) {
+        assertThat(trade.portfolioId()).isEqualTo(PORTFOLIO_ID);
+        assertThat(trade.symbol()).isEqualTo("AAPL");
+        assertThat(trade.quantity()).isEqualTo(quantity);
+        assertThat(trade.purchaseDate()).isEqualTo(purchaseDate);
+        assertThat(trade.saleDate()).isEqualTo(LocalDate.now());
+        assertThat(trade.costBasis()).isEqualByComparingTo(costBasis);
+        assertThat(trade.proceeds()).isEqualByComparingTo(proceeds);
+        assertThat(trade.realizedGain()).isEqualByComparingTo(realizedGain);
+        assertThat(trade.lotMatchingMethod()).isEqualTo(lotMatchingMethod);
+    }
+
+    private static Holding lot(LocalDate purchaseDate, int quantity, String purchasePrice, String dailyChangeValue) {
+        BigDecimal price = new BigDecimal("130.00");
+        BigDecimal priceGain = price.subtract(new BigDecimal(purchasePrice));
+        return Holding.builder()
+                .id(UUID.randomUUID())
+                .portfolioId(PORTFOLIO_ID)
+                .name("Apple Inc.")
+                .symbol("AAPL")
+                .quantity(quantity)
+                .price(price)
+                .purchasePrice(new BigDecimal(purchasePrice))
+                .purchaseDate(purchaseDate)
+                .dailyChangeValue(new BigDecimal(dailyChangeValue))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(priceGain.multiply(BigDecimal.valueOf(quantity)))
+                .totalChangePercent(PortfolioAggregator.percent(priceGain, new BigDecimal(purchasePrice)))
+                .build();
+    }
+
+    private static Portfolio portfolio(String totalValue, String costBasis, String dayOpenValue) {
+        return Portfolio.builder()
+                .id(PORTFOLIO_ID)
+                .totalValue(new BigDecimal(totalValue))
+                .dailyChangeValue(new BigDecimal(totalValue).subtract(new BigDecimal(dayOpenValue)))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal(totalValue).subtract(new BigDecimal(costBasis)))
+                .totalChangePercent(new BigDecimal("0.00"))
+                .costBasis(new BigDecimal(costBasis))
+                .dayOpenValue(new BigDecimal(dayOpenValue))
+                .history(List.of())
+                .version(3L)
+                .build();
+    }
+}
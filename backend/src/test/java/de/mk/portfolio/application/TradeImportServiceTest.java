@@ -0,0 +1,151 @@
+package de.mk.portfolio.application;
+
+import de.mk.portfolio.domain.event.BackdatedTradesImportedEvent;
+import de.mk.portfolio.domain.event.PositionsChangedEvent;
+import de.mk.portfolio.domain.model.Holding;
+import de.mk.portfolio.domain.model.Portfolio;
+import de.mk.portfolio.domain.port.in.AddStockUseCase.AddStockCommand;
+import de.mk.portfolio.domain.port.in.GetPortfolioUseCase;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.ImportResult;
+import de.mk.portfolio.domain.port.in.ImportTradesUseCase.Trade;
+import de.mk.portfolio.domain.port.out.SaveHoldingsPort;
+import de.mk.portfolio.domain.port.out.SavePortfolioPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TradeImportServiceTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private GetPortfolioUseCase getPortfolioUseCase;
+    @Mock
+    private SaveHoldingsPort saveHoldingsPort;
+    @Mock
+    private SavePortfolioPort savePortfolioPort;
+    @Mock
+    private OptimisticWriteRetry optimisticWriteRetry;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<List<Holding>> savedBatches = new ArrayList<>();
+    private TradeImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TradeImportService(getPortfolioUseCase, saveHoldingsPort, savePortfolioPort, new PortfolioAggregator(),
+                new HoldingFactory(new QuoteCache(100, Duration.ofMinutes(5))), optimisticWriteRetry, eventPublisher, 2);
+        when(getPortfolioUseCase.getPortfolio(PORTFOLIO_ID)).thenReturn(emptyPortfolio());
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(optimisticWriteRetry).executeWithoutResult(any());
+        // The service reuses its batch list, so the batches are copied as they are written
+        lenient().doAnswer(invocation -> savedBatches.add(List.copyOf(invocation.<List<Holding>>getArgument(0))))
+                .when(saveHoldingsPort).saveHoldings(anyList());
+    }
+
+    @Test
+    void writesTheTradesInBatches() {
+        ImportResult result = service.importTrades(PORTFOLIO_ID, List.of(
+                trade(1, "AAPL", "10", "150.00", TODAY),
+                trade(2, "MSFT", "5", "400.00", TODAY),
+                trade(3, "NVDA", "2", "500.00", TODAY)).iterator());
+
+        assertThat(result).isEqualTo(new ImportResult(3, 0, List.of()));
+        assertThat(savedBatches).extracting(List::size).containsExactly(2, 1);
+        assertThat(savedBatches.get(1)).singleElement().extracting(Holding::getSymbol).isEqualTo("NVDA");
+        verify(savePortfolioPort, times(2)).savePortfolio(any());
+        verify(eventPublisher, times(2)).publishEvent(new PositionsChangedEvent(PORTFOLIO_ID));
+        verify(eventPublisher, never()).publishEvent(any(BackdatedTradesImportedEvent.class));
+    }
+
+    @Test
+    void rejectsInvalidTradesUnderTheReadersPosition() {
+        ImportResult result = service.importTrades(PORTFOLIO_ID, List.of(
+                trade(1, "AAPL", "10", "150.00", TODAY),
+                trade(3, " ", "10", "150.00", TODAY),
+                trade(4, "MSFT", "0", "400.00", TODAY),
+                trade(6, "MSFT", "1.5", "400.00", TODAY),
+                trade(7, "MSFT", "1", "-1.00", TODAY),
+                trade(8, "MSFT", "1", "400.00", TODAY.plusDays(1)),
+                trade(9, "TOOLONGSYMBOL", "1", "400.00", TODAY)).iterator());
+
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(6);
+        assertThat(result.errors()).containsExactly(
+                "Line 3: symbol is missing",
+                "Line 4: quantity must be positive",
+                "Line 6: quantity must be a whole number of shares",
+                "Line 7: purchase price must not be negative",
+                "Line 8: purchase date is in the future",
+                "Line 9: symbol is longer than 10 characters");
+    }
+
+    @Test
+    void reportsNoMoreErrorsThanTheLimitButCountsEveryRejectedTrade() {
+        int invalid = TradeImportService.MAX_REPORTED_ERRORS + 5;
+
+        ImportResult result = service.importTrades(PORTFOLIO_ID, IntStream.rangeClosed(1, invalid)
+                .mapToObj(line -> trade(line, "AAPL", "-1", "150.00", TODAY))
+                .iterator());
+
+        assertThat(result.imported()).isZero();
+        assertThat(result.rejected()).isEqualTo(invalid);
+        assertThat(result.errors()).hasSize(TradeImportService.MAX_REPORTED_ERRORS);
+        assertThat(savedBatches).isEmpty();
+    }
+
+    @Test
+    void backdatedTradesTriggerAHistoryBackfillFromTheEarliestPurchase() {
+        service.importTrades(PORTFOLIO_ID, List.of(
+                trade(1, "AAPL", "10", "150.00", TODAY.minusDays(3)),
+                trade(2, "MSFT", "5", "400.00", TODAY.minusDays(10)),
+                trade(3, "NVDA", "2", "500.00", TODAY)).iterator());
+
+        verify(eventPublisher).publishEvent(new BackdatedTradesImportedEvent(PORTFOLIO_ID, TODAY.minusDays(10)));
+    }
+
+    private static Trade trade(int line, String symbol, String quantity, String purchasePrice, LocalDate purchaseDate) {
+        return new Trade("Line " + line,
+                new AddStockCommand(symbol, new BigDecimal(quantity), new BigDecimal(purchasePrice), purchaseDate));
+    }
+
+    private static Portfolio emptyPortfolio() {
+        return Portfolio.builder()
+                .id(PORTFOLIO_ID)
+                .totalValue(new BigDecimal("0.00"))
+                .dailyChangeValue(new BigDecimal("0.00"))
+                .dailyChangePercent(new BigDecimal("0.00"))
+                .totalChangeValue(new BigDecimal("0.00"))
+                .totalChangePercent(new BigDecimal("0.00"))
+                .costBasis(new BigDecimal("0.00"))
+                .dayOpenValue(new BigDecimal("0.00"))
+                .history(List.of())
+                .version(0L)
+                .build();
+    }
+}
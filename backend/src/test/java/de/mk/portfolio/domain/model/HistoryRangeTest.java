@@ -0,0 +1,46 @@
+package de.mk.portfolio.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryRangeTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 31);
+
+    @Test
+    void mapsRangesToTheirStartDate() {
+        assertThat(HistoryRange.ONE_WEEK.startDate(TODAY)).isEqualTo(LocalDate.of(2024, 8, 24));
+        assertThat(HistoryRange.ONE_MONTH.startDate(TODAY)).isEqualTo(LocalDate.of(2024, 7, 31));
+        assertThat(HistoryRange.THREE_MONTHS.startDate(TODAY)).isEqualTo(LocalDate.of(2024, 5, 31));
+        assertThat(HistoryRange.SIX_MONTHS.startDate(TODAY)).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(HistoryRange.ONE_YEAR.startDate(TODAY)).isEqualTo(LocalDate.of(2023, 8, 31));
+        assertThat(HistoryRange.FIVE_YEARS.startDate(TODAY)).isEqualTo(LocalDate.of(2019, 8, 31));
+    }
+
+    @Test
+    void allStartsAtEpoch() {
+        assertThat(HistoryRange.ALL.startDate(TODAY)).isEqualTo(LocalDate.EPOCH);
+    }
+
+    @Test
+    void parsesCodesIgnoringCaseAndWhitespace() {
+        assertThat(HistoryRange.fromCode("6m")).isEqualTo(HistoryRange.SIX_MONTHS);
+        assertThat(HistoryRange.fromCode(" 1Y ")).isEqualTo(HistoryRange.ONE_YEAR);
+        assertThat(HistoryRange.fromCode("ALL")).isEqualTo(HistoryRange.ALL);
+    }
+
+    @Test
+    void acceptsMaxAsAliasOfAll() {
+        assertThat(HistoryRange.fromCode("MAX")).isEqualTo(HistoryRange.ALL);
+        assertThat(HistoryRange.fromCode("max")).isEqualTo(HistoryRange.ALL);
+    }
+
+    @Test
+    void rejectsUnknownCode() {
+        assertThatThrownBy(() -> HistoryRange.fromCode("2W")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
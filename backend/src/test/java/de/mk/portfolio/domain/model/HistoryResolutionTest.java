@@ -0,0 +1,52 @@
+package de.mk.portfolio.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryResolutionTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2024, 3, 6);
+    private static final LocalDate SUNDAY = LocalDate.of(2024, 3, 10);
+    private static final LocalDate NEXT_MONDAY = LocalDate.of(2024, 3, 11);
+
+    @Test
+    void weeksStartOnMondayAndMonthsOnTheFirst() {
+        assertThat(HistoryResolution.DAILY.periodStart(SUNDAY)).isEqualTo(SUNDAY);
+        assertThat(HistoryResolution.WEEKLY.periodStart(SUNDAY)).isEqualTo(MONDAY);
+        assertThat(HistoryResolution.WEEKLY.periodStart(MONDAY)).isEqualTo(MONDAY);
+        assertThat(HistoryResolution.MONTHLY.periodStart(SUNDAY)).isEqualTo(LocalDate.of(2024, 3, 1));
+    }
+
+    @Test
+    void dailyCountsEveryDayInclusive() {
+        assertThat(HistoryResolution.DAILY.maxPoints(MONDAY, MONDAY)).isEqualTo(1);
+        assertThat(HistoryResolution.DAILY.maxPoints(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29))).isEqualTo(29);
+        assertThat(HistoryResolution.DAILY.maxPoints(LocalDate.of(2023, 8, 31), LocalDate.of(2024, 8, 31))).isEqualTo(367);
+    }
+
+    @Test
+    void weeklyCountsTheWeeksTouched() {
+        assertThat(HistoryResolution.WEEKLY.maxPoints(MONDAY, SUNDAY)).isEqualTo(1);
+        assertThat(HistoryResolution.WEEKLY.maxPoints(SUNDAY, NEXT_MONDAY)).isEqualTo(2);
+        assertThat(HistoryResolution.WEEKLY.maxPoints(WEDNESDAY, NEXT_MONDAY.plusDays(2))).isEqualTo(2);
+        assertThat(HistoryResolution.WEEKLY.maxPoints(LocalDate.of(2023, 8, 31), LocalDate.of(2024, 8, 31))).isEqualTo(53);
+    }
+
+    @Test
+    void monthlyCountsTheMonthsTouched() {
+        assertThat(HistoryResolution.MONTHLY.maxPoints(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))).isEqualTo(1);
+        assertThat(HistoryResolution.MONTHLY.maxPoints(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1))).isEqualTo(2);
+        assertThat(HistoryResolution.MONTHLY.maxPoints(LocalDate.of(2023, 8, 31), LocalDate.of(2024, 8, 31))).isEqualTo(13);
+    }
+
+    @Test
+    void anEmptyRangeHasNoPoints() {
+        for (HistoryResolution resolution : HistoryResolution.values()) {
+            assertThat(resolution.maxPoints(NEXT_MONDAY, MONDAY)).isZero();
+        }
+    }
+}
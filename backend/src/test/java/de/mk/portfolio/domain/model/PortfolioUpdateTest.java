@@ -0,0 +1,87 @@
+package de.mk.portfolio.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PortfolioUpdateTest {
+
+    private static final UUID PORTFOLIO_ID = UUID.randomUUID();
+    private static final UUID AAPL = UUID.randomUUID();
+    private static final UUID MSFT = UUID.randomUUID();
+    private static final UUID NVDA = UUID.randomUUID();
+
+    @Test
+    void laterHoldingsAndPortfolioReplaceEarlierOnes() {
+        PortfolioUpdate earlier = delta(portfolio("1000.00"), List.of(holding(AAPL, "100.00"), holding(MSFT, "400.00")), List.of());
+        PortfolioUpdate later = delta(portfolio("1010.00"), List.of(holding(AAPL, "101.00")), List.of());
+
+        PortfolioUpdate merged = earlier.mergedWith(later);
+
+        assertThat(merged.snapshot()).isFalse();
+        assertThat(merged.portfolio().getTotalValue()).isEqualTo("1010.00");
+        assertThat(merged.holdings()).extracting(Holding::getId, Holding::getPrice)
+                .containsExactly(tuple(AAPL, new BigDecimal("101.00")),
+                        tuple(MSFT, new BigDecimal("400.00")));
+        assertThat(merged.removedHoldingIds()).isEmpty();
+    }
+
+    @Test
+    void keepsTheEarlierPortfolioWhenOnlyHoldingsChangedLater() {
+        PortfolioUpdate earlier = delta(portfolio("1000.00"), List.of(), List.of());
+        PortfolioUpdate later = delta(null, List.of(holding(AAPL, "100.00")), List.of());
+
+        assertThat(earlier.mergedWith(later).portfolio().getTotalValue()).isEqualTo("1000.00");
+    }
+
+    @Test
+    void removalDropsAnEarlierChangeOfTheHolding() {
+        PortfolioUpdate earlier = delta(null, List.of(holding(AAPL, "100.00"), holding(MSFT, "400.00")), List.of(NVDA));
+        PortfolioUpdate later = delta(null, List.of(), List.of(AAPL));
+
+        PortfolioUpdate merged = earlier.mergedWith(later);
+
+        assertThat(merged.holdings()).extracting(Holding::getId).containsExactly(MSFT);
+        assertThat(merged.removedHoldingIds()).containsExactly(NVDA, AAPL);
+    }
+
+    @Test
+    void snapshotStaysASnapshotAndLeavesRemovedHoldingsOut() {
+        PortfolioUpdate snapshot = new PortfolioUpdate(PORTFOLIO_ID, true, portfolio("1000.00"),
+                List.of(holding(AAPL, "100.00"), holding(MSFT, "400.00")), List.of());
+        PortfolioUpdate later = delta(portfolio("990.00"), List.of(holding(NVDA, "500.00")), List.of(MSFT));
+
+        PortfolioUpdate merged = snapshot.mergedWith(later);
+
+        assertThat(merged.snapshot()).isTrue();
+        assertThat(merged.portfolio().getTotalValue()).isEqualTo("990.00");
+        assertThat(merged.holdings()).extracting(Holding::getId).containsExactly(AAPL, NVDA);
+        assertThat(merged.removedHoldingIds()).isEmpty();
+        assertThat(merged.isEmpty()).isFalse();
+    }
+
+    @Test
+    void emptyDeltasMergeIntoAnEmptyDelta() {
+        PortfolioUpdate empty = delta(null, List.of(), List.of());
+
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(empty.mergedWith(empty).isEmpty()).isTrue();
+    }
+
+    private static PortfolioUpdate delta(Portfolio portfolio, List<Holding> holdings, List<UUID> removed) {
+        return new PortfolioUpdate(PORTFOLIO_ID, false, portfolio, holdings, removed);
+    }
+
+    private static Portfolio portfolio(String totalValue) {
+        return Portfolio.builder().id(PORTFOLIO_ID).totalValue(new BigDecimal(totalValue)).build();
+    }
+
+    private static Holding holding(UUID id, String price) {
+        return Holding.builder().id(id).portfolioId(PORTFOLIO_ID).symbol("SYM").quantity(1).price(new BigDecimal(price)).build();
+    }
+}
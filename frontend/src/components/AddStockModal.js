@@ -1,4 +1,5 @@
 import React, { useState } from 'react';
+import { portfolioApi } from '../config';
 
 const AddStockModal = ({ isOpen, onClose, onStockAdded }) => {
   const [symbol, setSymbol] = useState('');
@@ -11,13 +12,12 @@ const AddStockModal = ({ isOpen, onClose, onStockAdded }) => {
     e.preventDefault();
     if (action === 'buy') {
       try {
-        const response = await fetch('/api/portfolio/holdings', {
+        const response = await fetch(portfolioApi('/holdings'), {
           method: 'POST',
           headers: {
             'Content-Type': 'application/json',
           },
           body: JSON.stringify({
-            portfolioId: 'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11',
             symbol: symbol,
             quantity: parseFloat(quantity),
             purchasePrice: purchasePrice ? parseFloat(purchasePrice) : 0,
@@ -1,33 +1,8 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState } from 'react';
 
-const HoldingsTable = ({ refreshTrigger }) => {
-  const [holdings, setHoldings] = useState([]);
-  const [loading, setLoading] = useState(true);
-  const [error, setError] = useState(null);
+const HoldingsTable = ({ holdings, loading, error }) => {
   const [expandedRows, setExpandedRows] = useState([]);
 
-  useEffect(() => {
-    const fetchHoldings = async () => {
-      setLoading(true);
-      setError(null);
-      try {
-        const response = await fetch('/api/portfolio/holdings');
-        if (!response.ok) {
-          throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        const data = await response.json();
-        setHoldings(data);
-      } catch (e) {
-        setError('Failed to fetch holdings.');
-        console.error('Error fetching holdings:', e);
-      } finally {
-        setLoading(false);
-      }
-    };
-
-    fetchHoldings();
-  }, [refreshTrigger]);
-
   const groupedHoldings = new Map();
   holdings.forEach(holding => {
     const { symbol } = holding;
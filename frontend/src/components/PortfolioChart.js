@@ -1,8 +1,13 @@
 import React, { useState, useEffect } from 'react';
 import { AreaChart, Area, XAxis, YAxis, Tooltip, ResponsiveContainer } from 'recharts';
 import useDarkMode from '../hooks/useDarkMode';
+import { portfolioApi } from '../config';
 
 const ranges = ['1M', '3M', '6M', '1Y', '5Y', 'MAX'];
+export const DEFAULT_RANGE = '1Y';
+export const MAX_CHART_POINTS = 250;
+
+const toChartData = (history) => history.map(item => ({ name: item.date, value: item.value }));
 
 const CustomTooltip = ({ active, payload, label }) => {
   if (active && payload && payload.length) {
@@ -17,34 +22,44 @@ const CustomTooltip = ({ active, payload, label }) => {
   return null;
 };
 
-const PortfolioChart = ({ refreshTrigger }) => {
-  const [range, setRange] = useState('1Y');
+const PortfolioChart = ({ initialHistory, loading: dashboardLoading, error: dashboardError }) => {
+  const [range, setRange] = useState(DEFAULT_RANGE);
   const [chartData, setChartData] = useState([]);
-  const [loading, setLoading] = useState(true);
-  const [error, setError] = useState(null);
+  const [rangeLoading, setRangeLoading] = useState(false);
+  const [rangeError, setRangeError] = useState(null);
   const [colorTheme] = useDarkMode();
 
   useEffect(() => {
+    // The dashboard response already carries the default range
+    if (range === DEFAULT_RANGE) {
+      setRangeError(null);
+      setChartData(initialHistory ? toChartData(initialHistory) : []);
+      return;
+    }
+
     const fetchPortfolioHistory = async () => {
-      setLoading(true);
-      setError(null);
+      setRangeLoading(true);
+      setRangeError(null);
       try {
-        const response = await fetch(`/api/portfolio/history?range=${range}`);
+        const response = await fetch(portfolioApi(`/history?range=${range}&maxPoints=${MAX_CHART_POINTS}`));
         if (!response.ok) {
           throw new Error(`HTTP error! status: ${response.status}`);
         }
         const data = await response.json();
-        setChartData(data.map(item => ({ name: item.date, value: item.value })));
+        setChartData(toChartData(data));
       } catch (e) {
-        setError('Failed to fetch portfolio history.');
+        setRangeError('Failed to fetch portfolio history.');
         console.error('Error fetching portfolio history:', e);
       } finally {
-        setLoading(false);
+        setRangeLoading(false);
       }
     };
 
     fetchPortfolioHistory();
-  }, [range, refreshTrigger]);
+  }, [range, initialHistory]);
+
+  const loading = dashboardLoading || rangeLoading;
+  const error = rangeError || (range === DEFAULT_RANGE ? dashboardError : null);
 
   if (loading) return <div className="text-center dark:text-white">Loading chart data...</div>;
   if (error) return <div className="text-center text-red-500 dark:text-red-400">Error: {error}</div>;
@@ -0,0 +1,4 @@
+// Portfolio shown by the dashboard; the backend routes every request by portfolio ID
+export const PORTFOLIO_ID = process.env.REACT_APP_PORTFOLIO_ID || 'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11';
+
+export const portfolioApi = (path = '') => `/api/portfolio/${PORTFOLIO_ID}${path}`;
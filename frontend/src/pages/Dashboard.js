@@ -1,12 +1,77 @@
-import React, { useState } from 'react';
+import React, { useState, useEffect } from 'react';
 import Header from '../components/Header';
-import PortfolioChart from '../components/PortfolioChart';
+import PortfolioChart, { DEFAULT_RANGE, MAX_CHART_POINTS } from '../components/PortfolioChart';
 import HoldingsTable from '../components/HoldingsTable';
 import AddStockModal from '../components/AddStockModal';
+import { portfolioApi } from '../config';
 
 const Dashboard = () => {
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [refreshTrigger, setRefreshTrigger] = useState(0);
+  const [dashboard, setDashboard] = useState(null);
+  const [loading, setLoading] = useState(true);
+  const [error, setError] = useState(null);
+
+  // One request for everything on the page; the chart only fetches on its own when the range changes
+  useEffect(() => {
+    const fetchDashboard = async () => {
+      setLoading(true);
+      setError(null);
+      try {
+        const response = await fetch(portfolioApi(`/dashboard?range=${DEFAULT_RANGE}&maxPoints=${MAX_CHART_POINTS}`));
+        if (!response.ok) {
+          throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        setDashboard(await response.json());
+      } catch (e) {
+        setError('Failed to fetch dashboard.');
+        console.error('Error fetching dashboard:', e);
+      } finally {
+        setLoading(false);
+      }
+    };
+
+    fetchDashboard();
+  }, [refreshTrigger]);
+
+  // Live updates: every (re)connect starts with the full state, then the server pushes changed
+  // holdings (and removed ones) as they happen
+  useEffect(() => {
+    const source = new EventSource(portfolioApi('/stream'));
+    // Replaces rather than merges, so holdings sold while the stream was not connected disappear
+    const applySnapshot = (event) => {
+      const snapshot = JSON.parse(event.data);
+      setDashboard(current => {
+        if (!current) {
+          return current;
+        }
+        return { ...current, portfolio: snapshot.portfolio ?? current.portfolio, holdings: snapshot.holdings };
+      });
+    };
+    const applyUpdate = (event) => {
+      const update = JSON.parse(event.data);
+      setDashboard(current => {
+        if (!current) {
+          return current;
+        }
+        const removed = new Set(update.removedHoldingIds);
+        const changed = new Map(update.holdings.map(holding => [holding.id, holding]));
+        const holdings = current.holdings
+          .filter(holding => !removed.has(holding.id))
+          .map(holding => changed.get(holding.id) ?? holding);
+        const known = new Set(holdings.map(holding => holding.id));
+        update.holdings.forEach(holding => {
+          if (!known.has(holding.id)) {
+            holdings.push(holding);
+          }
+        });
+        return { ...current, portfolio: update.portfolio ?? current.portfolio, holdings };
+      });
+    };
+    source.addEventListener('snapshot', applySnapshot);
+    source.addEventListener('delta', applyUpdate);
+    return () => source.close();
+  }, []);
 
   const handleStockAdded = () => {
     setIsModalOpen(false);
@@ -16,8 +81,8 @@ const Dashboard = () => {
   return (
     <div className="container mx-auto p-4 sm:p-6 lg:p-8">
       <Header />
-      <PortfolioChart refreshTrigger={refreshTrigger} />
-      <HoldingsTable refreshTrigger={refreshTrigger} />
+      <PortfolioChart initialHistory={dashboard?.history} loading={loading} error={error} />
+      <HoldingsTable holdings={dashboard?.holdings ?? []} loading={loading} error={error} />
       <button
         onClick={() => setIsModalOpen(true)}
         className="fixed bottom-10 right-10 bg-blue-600 text-white w-16 h-16 rounded-full shadow-lg flex items-center justify-center text-3xl hover:bg-blue-700 transition-colors"
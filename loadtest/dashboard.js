@@ -0,0 +1,68 @@
+// Dashboard load scenario: every virtual user loads the dashboard the way the frontend does
+// (one aggregated dashboard request) and then idles like a user looking at the page.
+// With -e API=separate the three individual endpoints are called instead, for comparison.
+//
+//   k6 run -e MODE=platform loadtest/dashboard.js   # backend started with VIRTUAL_THREADS_ENABLED=false
+//   k6 run -e MODE=virtual  loadtest/dashboard.js   # backend started with VIRTUAL_THREADS_ENABLED=true
+//
+// Each run writes its summary (throughput, p50/p95/p99) to loadtest/results/<MODE>-<API>.json.
+import http from 'k6/http';
+import { check, group, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const PORTFOLIO_ID = __ENV.PORTFOLIO_ID || 'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11';
+const CLIENTS = Number(__ENV.CLIENTS || 5000);
+const MODE = __ENV.MODE || 'unknown';
+const THINK_TIME_SECONDS = Number(__ENV.THINK_TIME_SECONDS || 1);
+const API = __ENV.API || 'dashboard';
+
+export const options = {
+  scenarios: {
+    dashboard: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '1m', target: CLIENTS },
+        { duration: '3m', target: CLIENTS },
+        { duration: '30s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+    'http_req_duration{endpoint:dashboard}': ['p(99)<1000'],
+    'http_req_duration{endpoint:portfolio}': ['p(99)<1000'],
+    'http_req_duration{endpoint:holdings}': ['p(99)<1000'],
+    'http_req_duration{endpoint:history}': ['p(99)<1000'],
+  },
+};
+
+const portfolioUrl = `${BASE_URL}/api/portfolio/${PORTFOLIO_ID}`;
+
+export default function () {
+  group('dashboard', () => {
+    if (API === 'dashboard') {
+      const response = http.get(`${portfolioUrl}/dashboard?range=1Y&maxPoints=250`, { tags: { endpoint: 'dashboard' } });
+      check(response, { 'status is 200': (r) => r.status === 200 });
+      return;
+    }
+    const responses = http.batch([
+      ['GET', portfolioUrl, null, { tags: { endpoint: 'portfolio' } }],
+      ['GET', `${portfolioUrl}/holdings`, null, { tags: { endpoint: 'holdings' } }],
+      ['GET', `${portfolioUrl}/history?range=1Y&maxPoints=250`, null, { tags: { endpoint: 'history' } }],
+    ]);
+    responses.forEach((response) => check(response, { 'status is 200': (r) => r.status === 200 }));
+  });
+  sleep(THINK_TIME_SECONDS);
+}
+
+export function handleSummary(data) {
+  return {
+    [`loadtest/results/${MODE}-${API}.json`]: JSON.stringify(data, null, 2),
+    stdout: `\n${MODE} (${API}): ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, `
+      + `p99 ${data.metrics.http_req_duration.values['p(99)'].toFixed(1)} ms, `
+      + `failed ${(data.metrics.http_req_failed.values.rate * 100).toFixed(2)}%\n`,
+  };
+}